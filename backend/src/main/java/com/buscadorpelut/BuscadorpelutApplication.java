@@ -2,6 +2,7 @@ package com.buscadorpelut;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Clase principal de la aplicación Spring Boot "BuscadorPelut".
@@ -10,8 +11,11 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - Configuración automática de Spring Boot.
  * - Escaneo de componentes en el paquete actual y subpaquetes.
  * - Soporte para propiedades de configuración.
+ * 
+ * La anotación {@link EnableScheduling} habilita las tareas periódicas ({@code @Scheduled}).
  */
 @SpringBootApplication
+@EnableScheduling
 public class BuscadorpelutApplication {
 
 	/**
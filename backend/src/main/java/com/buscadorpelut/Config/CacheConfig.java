@@ -0,0 +1,42 @@
+package com.buscadorpelut.Config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa la memòria cau de les consultes de {@link com.buscadorpelut.Service.AnimalService}.
+ * Les protectores no en tenen: es llegeixen de {@link com.buscadorpelut.Service.DirectoriProtectores}.
+ *
+ * <p>Les caches són de Caffeine, amb mida màxima, caducitat i estadístiques configurades a
+ * {@code application.properties} ({@code spring.cache.*}). Els mètodes de consulta fan servir
+ * {@code @Cacheable} i els d'escriptura ({@code save}, {@code deleteById}) invaliden
+ * només les caches afectades.
+ *
+ * <p>Les claus comencen per la versió del catàleg ({@link com.buscadorpelut.Service.CatalegVersio}), que
+ * s'incrementa amb cada modificació. Així, una consulta que ha començat abans d'una modificació i acaba
+ * després d'haver buidat la cache guarda el seu resultat amb la versió anterior, i ningú el torna a llegir.
+ *
+ * @see com.buscadorpelut.Service.GestioCaches
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /** Pàgines de resultats de {@code AnimalService#cercar}. */
+    public static final String CERCA_ANIMALS = "cercaAnimals";
+
+    /** Recomptes de {@code AnimalService#comptar}. */
+    public static final String COMPTES_ANIMALS = "comptesAnimals";
+
+    /** Facetes de {@code AnimalService#facets}. */
+    public static final String FACETS_ANIMALS = "facetsAnimals";
+
+    /** Pàgines de {@code AnimalService#getAllAnimalsAdoptats}. */
+    public static final String ANIMALS_ADOPTATS = "animalsAdoptats";
+
+    /** Detall d'un animal amb la seva protectora, per {@code numId}. */
+    public static final String ANIMAL = "animal";
+
+    /** Cossos JSON (i gzip) de les respostes més consultades, vegeu {@link RespostesCatalegFilter}. */
+    public static final String RESPOSTES_CATALEG = "respostesCataleg";
+}
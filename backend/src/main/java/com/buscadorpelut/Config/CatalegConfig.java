@@ -0,0 +1,60 @@
+package com.buscadorpelut.Config;
+
+import java.util.List;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.buscadorpelut.Service.CatalegVersio;
+
+/**
+ * Configuració de la memòria cau HTTP del catàleg públic.
+ *
+ * <p>Registra {@link EtagCatalegFilter} només per a les rutes de lectura pública
+ * d'animals, protectores i localitzacions (no per a {@code /api/admin} ni {@code /api/usuarios}), i després
+ * {@link RespostesCatalegFilter} per a les rutes més consultades.
+ */
+@Configuration
+public class CatalegConfig {
+
+    /** Rutes de {@link RespostesCatalegFilter}: les respostes que es poden servir comprimides. */
+    public static final List<String> RUTES_RESPOSTES = List.of("/api/animals", "/api/animals/facets", "/api/protectores");
+
+    /**
+     * Registra el filtre d'ETags sobre {@code /api/animals}, {@code /api/protectores} i l'autocompletat
+     * de {@code /api/localitzacions}, que també depèn de les protectores.
+     *
+     * @param catalegVersio la versió del catàleg que es fa servir com a ETag.
+     * @return el registre del filtre.
+     */
+    @Bean
+    public FilterRegistrationBean<EtagCatalegFilter> etagCatalegFilter(CatalegVersio catalegVersio) {
+        FilterRegistrationBean<EtagCatalegFilter> registre = new FilterRegistrationBean<>(
+            new EtagCatalegFilter(catalegVersio, RUTES_RESPOSTES));
+        registre.addUrlPatterns("/api/animals", "/api/animals/*", "/api/protectores", "/api/protectores/*",
+            "/api/localitzacions/*");
+        registre.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registre;
+    }
+
+    /**
+     * Registra el filtre de respostes precomprimides sobre les cerques d'animals, les facetes i el llistat
+     * de protectores. S'executa dins del filtre d'ETags, que respon {@code 304} abans d'arribar-hi
+     * si el client ja té la resposta.
+     *
+     * @param catalegVersio la versió del catàleg, que forma part de la clau.
+     * @param cacheManager el gestor de caches, d'on s'obté {@link CacheConfig#RESPOSTES_CATALEG}.
+     * @return el registre del filtre.
+     */
+    @Bean
+    public FilterRegistrationBean<RespostesCatalegFilter> respostesCatalegFilter(CatalegVersio catalegVersio, CacheManager cacheManager) {
+        FilterRegistrationBean<RespostesCatalegFilter> registre = new FilterRegistrationBean<>(
+            new RespostesCatalegFilter(catalegVersio, cacheManager.getCache(CacheConfig.RESPOSTES_CATALEG)));
+        registre.addUrlPatterns(RUTES_RESPOSTES.toArray(String[]::new));
+        registre.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registre;
+    }
+}
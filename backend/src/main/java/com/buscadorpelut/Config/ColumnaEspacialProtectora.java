@@ -0,0 +1,78 @@
+package com.buscadorpelut.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.Service.IndexGeoProtectores;
+
+/**
+ * Crea en arrencar la columna espacial {@code ubicacio} de la taula {@code protectora} i el seu índex
+ * {@code SPATIAL}, quan les cerques geogràfiques es resolen a MySQL
+ * ({@code buscadorpelut.geo.mode=mysql}, vegeu {@link IndexGeoProtectores}).
+ *
+ * <p>La columna és un {@code POINT SRID 4326} generat i guardat per MySQL a partir de {@code latitud}
+ * i {@code longitud}, de manera que sempre està sincronitzada amb aquests camps sense que l'entitat
+ * {@link com.buscadorpelut.Model.Protectora} la conegui. Hibernate ({@code ddl-auto=update}) no pot crear
+ * columnes generades ni índexs {@code SPATIAL}, i per això es crea aquí si encara no existeix.
+ * Requereix MySQL 8.0.
+ *
+ * <p>A l'SRID 4326 el primer eix és la latitud: {@code POINT(latitud, longitud)}, tant a la columna com a les
+ * consultes de {@link com.buscadorpelut.Repository.ProtectoraRepository}. Les caixes en WKT, en canvi, s'escriuen
+ * longitud-latitud i es llegeixen amb {@code 'axis-order=long-lat'}. Si la columna ja existeix però no coincideix
+ * amb {@code latitud} (l'havia creada una versió anterior amb els eixos girats), es torna a crear.
+ */
+@Component
+public class ColumnaEspacialProtectora {
+
+    /** Nom de la columna espacial. */
+    public static final String COLUMNA = "ubicacio";
+
+    /** Nom de l'índex espacial. */
+    public static final String INDEX = "idx_protectora_ubicacio";
+
+    private static final Logger log = LoggerFactory.getLogger(ColumnaEspacialProtectora.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${buscadorpelut.geo.mode:memoria}")
+    private String mode;
+
+    /**
+     * Afegeix la columna i l'índex si la taula encara no els té (només en mode {@code mysql}).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void crearColumna() {
+        if (!IndexGeoProtectores.esModeMysql(mode)) {
+            return;
+        }
+        Integer columnes = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.COLUMNS"
+                + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'protectora' AND COLUMN_NAME = ?",
+            Integer.class, COLUMNA);
+        if (columnes != null && columnes > 0) {
+            Integer girades = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM protectora WHERE ABS(ST_Latitude(" + COLUMNA + ") - latitud) > 1e-9",
+                Integer.class);
+            if (girades == null || girades == 0) {
+                return;
+            }
+            jdbcTemplate.execute("ALTER TABLE protectora DROP COLUMN " + COLUMNA);
+            log.warn("La columna espacial protectora.{} tenia els eixos girats en {} protectores: es torna a crear",
+                COLUMNA, girades);
+        }
+        jdbcTemplate.execute("ALTER TABLE protectora"
+            + " ADD COLUMN " + COLUMNA + " POINT GENERATED ALWAYS AS (ST_SRID(POINT(latitud, longitud), 4326)) STORED NOT NULL SRID 4326,"
+            + " ADD SPATIAL INDEX " + INDEX + " (" + COLUMNA + ")");
+        log.info("Creada la columna espacial protectora.{} amb l'índex {}", COLUMNA, INDEX);
+    }
+}
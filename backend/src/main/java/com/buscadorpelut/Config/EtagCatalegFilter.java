@@ -0,0 +1,214 @@
+package com.buscadorpelut.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.buscadorpelut.Service.CatalegVersio;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtre de peticions GET condicionals per al catàleg públic ({@code /api/animals} i {@code /api/protectores}).
+ *
+ * <p>Les respostes correctes (2xx) porten com a ETag la versió del catàleg ({@link CatalegVersio}) i
+ * {@code Cache-Control: no-cache}, perquè el navegador les guardi però les torni a validar, i
+ * {@code Vary: Accept, Accept-Encoding}, perquè la mateixa versió es pot servir en JSON o en un format
+ * binari ({@link FormatsBinarisConfig}), i comprimida amb gzip ({@link RespostesCatalegFilter}) o no.
+ * Cada variant té bytes diferents i el seu propi ETag: la versió amb el sufix del format i de la codificació,
+ * per exemple {@code "v12"} (JSON), {@code "v12-gzip"}, {@code "v12-cbor"} o {@code "v12-smile"}
+ * (vegeu {@link CatalegVersio#etag(long, String)}). Els errors (per exemple, un {@code 404}) no porten ETag i mai es
+ * responen amb un {@code 304}.
+ *
+ * <p>A diferència de {@link org.springframework.web.filter.ShallowEtagHeaderFilter}, l'ETag no és un hash
+ * del cos: es coneix abans de generar la resposta. La versió és la del catàleg, el format surt de la capçalera
+ * {@code Accept} (com la negociació de Spring MVC) i la codificació, de l'{@code Accept-Encoding} si la ruta
+ * és de {@link RespostesCatalegFilter}. Si la capçalera {@code If-None-Match} conté aquest ETag, es respon
+ * {@code 304 Not Modified} sense cos i sense passar pel controlador ni per la base de dades. Un client només
+ * pot tenir l'ETag d'una resposta correcta, i mentre la versió no canvia el recurs continua existint.
+ *
+ * <p>Si no coincideix, la resposta es genera i l'ETag es calcula amb el format i la codificació reals
+ * de la resposta, només si és correcta (2xx).
+ *
+ * <p>Es registra a {@link CatalegConfig}.
+ */
+public class EtagCatalegFilter extends OncePerRequestFilter {
+
+    /** Rutes del catàleg amb respostes aleatòries, que no es poden validar amb la versió. */
+    private static final Set<String> RUTES_SENSE_ETAG = Set.of("/api/animals/featured");
+
+    /** Formats que pot produir l'API, en l'ordre en què Spring MVC els tria si el client n'accepta diversos. */
+    private static final List<MediaType> FORMATS = List.of(MediaType.APPLICATION_JSON,
+        MediaType.parseMediaType(FormatsBinarisConfig.CBOR), MediaType.parseMediaType(FormatsBinarisConfig.SMILE));
+
+    private final CatalegVersio catalegVersio;
+    private final Set<String> rutesComprimides;
+
+    /**
+     * @param catalegVersio la versió del catàleg.
+     * @param rutesComprimides les rutes de {@link RespostesCatalegFilter}, que poden respondre amb gzip.
+     */
+    public EtagCatalegFilter(CatalegVersio catalegVersio, Collection<String> rutesComprimides) {
+        this.catalegVersio = catalegVersio;
+        this.rutesComprimides = Set.copyOf(rutesComprimides);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String metode = request.getMethod();
+        return !("GET".equals(metode) || "HEAD".equals(metode))
+            || RUTES_SENSE_ETAG.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // La versió es llegeix abans de generar la resposta: si el catàleg canvia mentrestant, l'ETag és
+        // l'anterior i la propera validació torna la resposta nova
+        long versio = catalegVersio.actual();
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String format = formatPrevist(request.getHeader(HttpHeaders.ACCEPT));
+            if (format != null) {
+                String etag = CatalegVersio.etag(versio, variant(format, comprimida(request) ? "gzip" : null));
+                if (coincideix(ifNoneMatch, etag)) {
+                    capcaleres(response, etag);
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
+        }
+
+        ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, resposta);
+        int estat = resposta.getStatus();
+        if (estat >= 200 && estat < 300) {
+            capcaleres(response, CatalegVersio.etag(versio, variant(response)));
+        }
+        resposta.copyBodyToResponse();
+    }
+
+    private static void capcaleres(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        afegirVary(response, HttpHeaders.ACCEPT);
+        afegirVary(response, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    /**
+     * Format en què es respondrà la petició, com el tria Spring MVC: el primer dels {@link #FORMATS} compatible
+     * amb el tipus acceptat de més pes ({@code q}), i entre tipus del mateix pes, els concrets abans que els comodins.
+     *
+     * @return "cbor", "smile", una cadena buida per a JSON, o {@code null} si no s'accepta cap format.
+     */
+    private static String formatPrevist(String accept) {
+        List<MediaType> acceptats;
+        try {
+            acceptats = new ArrayList<>(MediaType.parseMediaTypes(accept == null || accept.isBlank() ? "*/*" : accept));
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        acceptats.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()
+            .thenComparing(tipus -> tipus.isWildcardType() || tipus.isWildcardSubtype()));
+        for (MediaType acceptat : acceptats) {
+            if (acceptat.getQualityValue() <= 0) {
+                break;
+            }
+            for (MediaType format : FORMATS) {
+                if (acceptat.isCompatibleWith(format)) {
+                    return format(format);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indica si la resposta sortirà comprimida ({@link RespostesCatalegFilter#comprimeix(HttpServletRequest)}).
+     */
+    private boolean comprimida(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        return rutesComprimides.contains(ruta) && RespostesCatalegFilter.comprimeix(request);
+    }
+
+    /**
+     * Nom de la variant de la resposta per a l'ETag: el format, si no és JSON ({@link FormatsBinarisConfig}),
+     * i la codificació ({@code Content-Encoding}), si n'hi ha.
+     */
+    private static String variant(HttpServletResponse response) {
+        String tipus = response.getContentType();
+        String codificacio = response.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (codificacio != null && (codificacio.isBlank() || codificacio.equalsIgnoreCase("identity"))) {
+            codificacio = null;
+        }
+        return variant(tipus == null ? "" : format(MediaType.parseMediaType(tipus)),
+            codificacio == null ? null : codificacio.trim().toLowerCase(Locale.ROOT));
+    }
+
+    private static String variant(String format, String codificacio) {
+        StringJoiner variant = new StringJoiner("-");
+        if (!format.isEmpty()) {
+            variant.add(format);
+        }
+        if (codificacio != null) {
+            variant.add(codificacio);
+        }
+        return variant.length() == 0 ? null : variant.toString();
+    }
+
+    /**
+     * Nom del format per a l'ETag: "cbor", "smile", o una cadena buida per a JSON (i qualsevol altre tipus).
+     */
+    private static String format(MediaType tipus) {
+        if (tipus.isCompatibleWith(FORMATS.get(1))) {
+            return "cbor";
+        }
+        return tipus.isCompatibleWith(FORMATS.get(2)) ? "smile" : "";
+    }
+
+    /**
+     * Afegeix una capçalera a {@code Vary} si no hi és (per exemple, si ja l'ha posada {@link RespostesCatalegFilter}).
+     */
+    private static void afegirVary(HttpServletResponse response, String capcalera) {
+        for (String valor : response.getHeaders(HttpHeaders.VARY)) {
+            for (String existent : valor.split(",")) {
+                if (existent.trim().equalsIgnoreCase(capcalera)) {
+                    return;
+                }
+            }
+        }
+        response.addHeader(HttpHeaders.VARY, capcalera);
+    }
+
+    /**
+     * Comprova si la capçalera {@code If-None-Match} inclou l'ETag de la resposta.
+     *
+     * <p>{@code *} no es considera una coincidència: només té sentit per a peticions que modifiquen
+     * un recurs, i aquí faria respondre {@code 304} sense que el client tingui cap còpia.
+     */
+    private static boolean coincideix(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidat : ifNoneMatch.split(",")) {
+            if (candidat.trim().equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,65 @@
+package com.buscadorpelut.Config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Afegeix els formats binaris CBOR ({@value #CBOR}) i Smile ({@value #SMILE}) a les respostes de l'API,
+ * a més de JSON.
+ *
+ * <p>El format es tria amb la capçalera {@code Accept} (per exemple, {@code Accept: application/cbor});
+ * sense capçalera o amb {@code *}{@code /*} es continua responent JSON. Els convertidors es construeixen
+ * amb la mateixa configuració de Jackson que el de JSON (dates, mòduls, propietats calculades, etc.),
+ * de manera que els DTO i les entitats tenen exactament els mateixos camps en tots els formats.
+ *
+ * @see com.buscadorpelut.Service.ComparativaFormats
+ */
+@Configuration
+public class FormatsBinarisConfig implements WebMvcConfigurer {
+
+    /** Tipus de contingut CBOR. */
+    public static final String CBOR = MediaType.APPLICATION_CBOR_VALUE;
+
+    /** Tipus de contingut Smile. */
+    public static final String SMILE = "application/x-jackson-smile";
+
+    @Autowired
+    private ObjectProvider<Jackson2ObjectMapperBuilder> constructors;
+
+    /**
+     * Substitueix els convertidors CBOR i Smile que Spring MVC registra per defecte (amb la configuració
+     * per defecte de Jackson, que per exemple escriu les dates com a números) pels de l'aplicació.
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+            || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(mapper(constructors, new CBORFactory())));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(mapper(constructors, new SmileFactory())));
+    }
+
+    /**
+     * Crea un {@link ObjectMapper} amb la configuració de Jackson de l'aplicació i el format indicat.
+     *
+     * @param constructors el constructor de Jackson configurat per Spring Boot (un de nou per a cada mapper).
+     * @param format el format de sortida (JSON, CBOR o Smile).
+     * @return el mapper.
+     */
+    public static ObjectMapper mapper(ObjectProvider<Jackson2ObjectMapperBuilder> constructors, JsonFactory format) {
+        return constructors.getObject().factory(format).build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.buscadorpelut.Config;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.ClauCerca;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.AnimalRepository;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+/**
+ * Calcula en arrencar les claus de cerca ({@link ClauCerca}) de les files que encara no en tenen.
+ *
+ * <p>Les entitats calculen les claus automàticament en guardar-se, però les files creades abans
+ * d'afegir les columnes "*_clau" (o inserides directament a la base de dades) les tenen a {@code null}
+ * i no apareixerien a les cerques. S'executa abans que es construeixin els índexs de cerca.
+ */
+@Component
+public class InicialitzacioClausCerca {
+
+    private static final Logger log = LoggerFactory.getLogger(InicialitzacioClausCerca.class);
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private ProtectoraRepository protectoraRepository;
+
+    /**
+     * Omple les claus que falten d'animals i protectores.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void omplirClausPendents() {
+        List<Protectora> protectores = protectoraRepository.findSenseClausCerca();
+        protectores.forEach(Protectora::actualitzarClaus);
+        protectoraRepository.saveAll(protectores);
+
+        List<Animal> animals = animalRepository.findSenseClausCerca();
+        animals.forEach(Animal::actualitzarClaus);
+        animalRepository.saveAll(animals);
+
+        if (!protectores.isEmpty() || !animals.isEmpty()) {
+            log.info("Claus de cerca calculades per a {} protectores i {} animals", protectores.size(), animals.size());
+        }
+    }
+}
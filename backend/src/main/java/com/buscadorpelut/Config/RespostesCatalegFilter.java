@@ -0,0 +1,197 @@
+package com.buscadorpelut.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.cache.Cache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.buscadorpelut.Service.CatalegVersio;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtre que guarda ja serialitzades i comprimides les respostes JSON de les rutes més consultades
+ * del catàleg (la primera pàgina de cada cerca d'animals, les facetes i el directori de protectores).
+ *
+ * <p>La primera petició passa pel controlador; el cos JSON resultant es guarda a la cache
+ * {@link CacheConfig#RESPOSTES_CATALEG} tal qual i comprimit amb gzip. Les peticions següents amb la
+ * mateixa ruta i paràmetres reben directament aquests bytes (amb {@code Content-Encoding: gzip} si el
+ * client l'accepta), sense passar per Jackson ni tornar a comprimir. Totes dues variants porten
+ * {@code Vary: Accept-Encoding}, i {@link EtagCatalegFilter} els dona ETags diferents.
+ *
+ * <p>La clau inclou la versió del catàleg ({@link CatalegVersio}), de manera que una resposta
+ * calculada abans d'una modificació mai es torna a servir; a més, els serveis buiden la cache quan
+ * guarden o eliminen animals o protectores. Les pàgines següents ({@code after}) no es guarden,
+ * perquè són poc repetides i ja tenen la cache de consultes. Només es guarda JSON: les peticions en
+ * format binari ({@link FormatsBinarisConfig}) sempre passen pel controlador.
+ *
+ * <p>Es registra a {@link CatalegConfig}, després de {@link EtagCatalegFilter}.
+ */
+public class RespostesCatalegFilter extends OncePerRequestFilter {
+
+    /** Capçaleres de la resposta original que no es guarden (les calcula aquest filtre o {@link EtagCatalegFilter}). */
+    private static final Set<String> CAPCALERES_NO_GUARDADES = Set.of(
+        HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.CONTENT_ENCODING.toLowerCase(),
+        HttpHeaders.TRANSFER_ENCODING.toLowerCase(), HttpHeaders.DATE.toLowerCase(),
+        HttpHeaders.ETAG.toLowerCase(), HttpHeaders.CACHE_CONTROL.toLowerCase());
+
+    /**
+     * Resposta guardada: el tipus de contingut, les capçaleres del controlador (per exemple, CORS)
+     * i el cos JSON sense comprimir i comprimit amb gzip.
+     */
+    record RespostaGuardada(String tipus, Map<String, List<String>> capcaleres, byte[] json, byte[] gzip) {}
+
+    private final CatalegVersio catalegVersio;
+    private final Cache respostes;
+
+    public RespostesCatalegFilter(CatalegVersio catalegVersio, Cache respostes) {
+        this.catalegVersio = catalegVersio;
+        this.respostes = respostes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || request.getParameter("after") != null
+            || demanaFormatBinari(request.getHeader(HttpHeaders.ACCEPT));
+    }
+
+    /**
+     * Indica si la resposta a una petició d'una de les rutes d'aquest filtre sortirà comprimida amb gzip,
+     * sense generar-la (el fa servir {@link EtagCatalegFilter} per saber l'ETag abans del controlador).
+     *
+     * @param request la petició.
+     * @return {@code true} si el filtre la respon i el client accepta gzip.
+     */
+    static boolean comprimeix(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) && request.getParameter("after") == null
+            && !demanaFormatBinari(request.getHeader(HttpHeaders.ACCEPT))
+            && acceptaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    /**
+     * Indica si el client demana CBOR o Smile ({@link FormatsBinarisConfig}): aquestes respostes no es guarden
+     * i les peticions no es poden respondre amb el JSON guardat.
+     */
+    private static boolean demanaFormatBinari(String accept) {
+        return accept != null && (accept.contains(FormatsBinarisConfig.CBOR) || accept.contains(FormatsBinarisConfig.SMILE));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clau = clau(request);
+        RespostaGuardada guardada = respostes.get(clau, RespostaGuardada.class);
+        if (guardada == null) {
+            ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, resposta);
+            if (resposta.getStatus() != HttpServletResponse.SC_OK || !esJson(resposta.getContentType())) {
+                resposta.copyBodyToResponse();
+                return;
+            }
+            guardada = guardar(clau, resposta);
+            resposta.resetBuffer();
+        }
+        escriure(guardada, request, response);
+    }
+
+    /**
+     * Clau de la resposta: versió del catàleg, origen (les capçaleres CORS en depenen), ruta i
+     * paràmetres ordenats pel nom (l'ordre dels paràmetres a la URL no hi influeix).
+     */
+    private String clau(HttpServletRequest request) {
+        StringBuilder clau = new StringBuilder()
+            .append(catalegVersio.actual()).append('|')
+            .append(request.getHeader(HttpHeaders.ORIGIN)).append('|')
+            .append(request.getRequestURI());
+        new TreeMap<>(request.getParameterMap()).forEach((nom, valors) ->
+            clau.append('|').append(nom).append('=').append(String.join(",", valors)));
+        return clau.toString();
+    }
+
+    private RespostaGuardada guardar(String clau, ContentCachingResponseWrapper resposta) throws IOException {
+        Map<String, List<String>> capcaleres = new LinkedHashMap<>();
+        for (String nom : resposta.getHeaderNames()) {
+            if (!CAPCALERES_NO_GUARDADES.contains(nom.toLowerCase())) {
+                capcaleres.put(nom, new ArrayList<>(resposta.getHeaders(nom)));
+            }
+        }
+        byte[] json = resposta.getContentAsByteArray();
+        RespostaGuardada guardada = new RespostaGuardada(resposta.getContentType(), capcaleres, json, gzip(json));
+        respostes.put(clau, guardada);
+        return guardada;
+    }
+
+    private static void escriure(RespostaGuardada guardada, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        guardada.capcaleres().forEach((nom, valors) -> {
+            response.setHeader(nom, valors.get(0));
+            valors.stream().skip(1).forEach(valor -> response.addHeader(nom, valor));
+        });
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(guardada.tipus());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        byte[] cos = guardada.json();
+        if (acceptaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            cos = guardada.gzip();
+        }
+        response.setContentLength(cos.length);
+        response.getOutputStream().write(cos);
+    }
+
+    private static boolean esJson(String tipus) {
+        return tipus != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(tipus));
+    }
+
+    private static byte[] gzip(byte[] json) throws IOException {
+        ByteArrayOutputStream sortida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(sortida)) {
+            gzip.write(json);
+        }
+        return sortida.toByteArray();
+    }
+
+    /**
+     * Comprova si la capçalera {@code Accept-Encoding} admet gzip (o {@code *}) amb un pes {@code q} més gran que 0.
+     */
+    static boolean acceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String candidat : acceptEncoding.split(",")) {
+            String[] parts = candidat.split(";");
+            String codificacio = parts[0].trim();
+            if (!codificacio.equalsIgnoreCase("gzip") && !codificacio.equals("*")) {
+                continue;
+            }
+            double pes = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parametre = parts[i].trim();
+                if (parametre.startsWith("q=")) {
+                    try {
+                        pes = Double.parseDouble(parametre.substring(2));
+                    } catch (NumberFormatException e) {
+                        pes = 0;
+                    }
+                }
+            }
+            return pes > 0;
+        }
+        return false;
+    }
+}
@@ -13,12 +13,20 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.buscadorpelut.DTO.ComparativaFormatDTO;
+import com.buscadorpelut.DTO.EstadistiquesCacheDTO;
+import com.buscadorpelut.DTO.InformeIndexDTO;
 import com.buscadorpelut.DTO.UsuarioDTO;
 import com.buscadorpelut.Model.Animal;
 import com.buscadorpelut.Model.Protectora;
 import com.buscadorpelut.Service.AnimalService;
+import com.buscadorpelut.Service.CatalegVersio;
+import com.buscadorpelut.Service.ComparativaFormats;
+import com.buscadorpelut.Service.GestioCaches;
+import com.buscadorpelut.Service.IndexAnimals;
 import com.buscadorpelut.Service.ProtectoraService;
 import com.buscadorpelut.Service.UsuarioService;
 
@@ -51,6 +59,22 @@ public class AdminController {
 
     private ProtectoraService protectoraService;
 
+    @Autowired
+
+    private IndexAnimals indexAnimals;
+
+    @Autowired
+
+    private GestioCaches gestioCaches;
+
+    @Autowired
+
+    private ComparativaFormats comparativaFormats;
+
+    @Autowired
+
+    private CatalegVersio catalegVersio;
+
     /**      USUARIS    */
 
     /**
@@ -202,6 +226,95 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     };
 
+    /**    ÍNDICE DE BÚSQUEDA   */
+
+    /**
+     * Comprueba el índice en memoria de animales disponibles contra la base de datos.
+     * 
+     * @return {@link ResponseEntity} con el {@link InformeIndexDTO} (200 OK): animales que faltan,
+     *         sobran o tienen datos diferentes, y la duración de la última reconstrucción.
+     */
+    @GetMapping("/index-animals")
+    public ResponseEntity<InformeIndexDTO>comprovarIndexAnimals(){
+        return ResponseEntity.ok(indexAnimals.comprovarConsistencia());
+    };
+
+    /**
+     * Reconstruye el índice en memoria de animales disponibles a partir de la base de datos.
+     * 
+     * <p>También vacía las cachés de animales, que podrían tener resultados del índice anterior,
+     * e incrementa la versión del catálogo ({@link CatalegVersio}) para que los clientes no validen
+     * con su ETag respuestas calculadas con el índice anterior.
+     * 
+     * @return {@link ResponseEntity} con el {@link InformeIndexDTO} después de reconstruir (200 OK).
+     */
+    @PostMapping("/index-animals/reconstruir")
+    public ResponseEntity<InformeIndexDTO>reconstruirIndexAnimals(){
+        indexAnimals.reconstruir();
+        gestioCaches.buidarAnimals();
+        catalegVersio.incrementar();
+        return ResponseEntity.ok(indexAnimals.comprovarConsistencia());
+    };
+
+    /**    CACHÉS   */
+
+    /**
+     * Obtiene las estadísticas de las cachés de consultas (aciertos, fallos y desalojos).
+     * 
+     * @return {@link ResponseEntity} con la lista de {@link EstadistiquesCacheDTO} (200 OK).
+     */
+    @GetMapping("/caches")
+    public ResponseEntity<List<EstadistiquesCacheDTO>>getEstadistiquesCaches(){
+        return ResponseEntity.ok(gestioCaches.estadistiques());
+    };
+
+    /**
+     * Vacía todas las cachés de consultas, por ejemplo después de modificar datos directamente en la base de datos.
+     * 
+     * <p>También incrementa la versión del catálogo ({@link CatalegVersio}), de manera que los ETags
+     * que tienen los clientes dejan de ser válidos.
+     * 
+     * @return {@link ResponseEntity} con codigo 204 (No Content).
+     */
+    @DeleteMapping("/caches")
+    public ResponseEntity<Void>buidarCaches(){
+        gestioCaches.buidarTot();
+        catalegVersio.incrementar();
+        return ResponseEntity.noContent().build();
+    };
+
+    /**    FORMATOS DE RESPUESTA   */
+
+    /**
+     * Empieza en segundo plano una comparación de los formatos de respuesta (JSON, CBOR y Smile) con los datos
+     * actuales del catálogo: tamaño (sin comprimir y con gzip) y tiempo medio de serialización y lectura.
+     * 
+     * <p>La comparación ocupa la CPU durante segundos, así que no se ejecuta en el hilo de la petición;
+     * el resultado se consulta después con {@code GET /api/admin/formats}.
+     * 
+     * @param iteracions número de iteraciones medidas por muestra y formato (opcional, por defecto 50).
+     * @return {@link ResponseEntity} con codigo 202 (Accepted), o 409 (Conflict) si ya hay una en curso.
+     */
+    @PostMapping("/formats")
+    public ResponseEntity<Void>compararFormats(@RequestParam(defaultValue = "50") int iteracions){
+        return comparativaFormats.iniciar(iteracions)
+            ? ResponseEntity.accepted().build()
+            : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    };
+
+    /**
+     * Obtiene el resultado de la última comparación de formatos terminada.
+     * 
+     * @return {@link ResponseEntity} con la lista de {@link ComparativaFormatDTO} (200 OK),
+     *         o 404 (Not Found) si todavía no ha terminado ninguna.
+     */
+    @GetMapping("/formats")
+    public ResponseEntity<List<ComparativaFormatDTO>>getComparativaFormats(){
+        return comparativaFormats.resultat()
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    };
+
     /**    PROTECTORAS   */
 
     /**
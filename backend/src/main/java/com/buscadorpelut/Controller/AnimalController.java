@@ -1,18 +1,26 @@
 package com.buscadorpelut.Controller;
 
 import java.util.List;
-
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FacetsDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.DTO.PaginaDTO;
 import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.OrdreAnimals;
+import com.buscadorpelut.Model.SeleccioCamps;
+import com.buscadorpelut.Service.AdopcionsRecents;
 import com.buscadorpelut.Service.AnimalService;
 
 /**
@@ -21,12 +29,25 @@ import com.buscadorpelut.Service.AnimalService;
  * <p>Aquesta classe proporciona endpoints per:
  * <ul>
  *   <li>Llistar tots els animals</li>
- *   <li>Filtrar animals per espècie (incloent l'opció "Exòtic" per a espècies no convencionals)</li>
+ *   <li>Comptar els animals que compleixen uns criteris de cerca ({@code /count})</li>
+ *   <li>Comptar els animals disponibles per cada valor dels filtres (facetes)</li>
+ *   <li>Cercar animals per qualsevol combinació d'espècie (incloent l'opció "Exòtic" per a espècies
+ *       no convencionals), sexe, edat, ubicació, protectora i estat d'adopció</li>
  * </ul>
  * 
  * <p>Tots els endpoints accedeixen des de {@code /api/animals} i admeten peticions CORS
  * per facilitar la integració amb frontends externs.
  * 
+ * <p>Els llistats estan paginats per cursor: accepten els paràmetres opcionals {@code limit}
+ * (mida de pàgina) i {@code after} (valor de {@code nextCursor} de la resposta anterior) i
+ * retornen un {@link PaginaDTO}. Per exemple, {@code GET /api/animals?especie=Gos&limit=12&after=340}.
+ * 
+ * <p>Els llistats retornen targetes {@link AnimalCardDTO}, sense la descripció de l'animal;
+ * la descripció només s'obté amb {@code GET /api/animals/{numId}}.
+ * 
+ * <p>El detall i la consulta per identificadors admeten el paràmetre {@code fields} per retornar
+ * només uns camps de l'animal (vegeu {@link SeleccioCamps}).
+ * 
  * @author Luis Gil
  */
 @RestController
@@ -34,115 +55,234 @@ import com.buscadorpelut.Service.AnimalService;
 @CrossOrigin(origins="*")
 public class AnimalController {
 
+    /** Nombre d'adopcions recents que es retornen si el client no n'indica cap. */
+    public static final int ADOPCIONS_RECENTS_PER_DEFECTE = 10;
+
+    /** Capçalera amb el nombre total de resultats als endpoints {@code /count} (útil amb peticions HEAD). */
+    public static final String CAPCALERA_TOTAL = "X-Total-Count";
+
+    /** Nombre d'animals destacats que es retornen si el client no n'indica cap. */
+    public static final int DESTACATS_PER_DEFECTE = 6;
+
     @Autowired
     private AnimalService animalService;
 
     /**
-     * Mètode per retornar tots els animals registrats al sistema en situació d'adopció.
+     * Mètode per cercar animals combinant qualsevol subconjunt de criteris.
      * 
-     * @return {@link ResponseEntity} amb una llista d'animals {@link Animal} no adoptats i codi HTTP 200 (OK).
+     * <p>Tots els paràmetres són opcionals. Sense cap paràmetre retorna tots els animals
+     * en situació d'adopció. Si el paràmetre {@code especie} és "Exòtic", es retornen tots
+     * els animals que no pertanyen a les espècies "Gos" ni "Gat".
      * 
-     * @see AnimalService#getAllAnimals()
+     * <p>Exemples d'ús:
+     * <ul>
+     *   <li>{@code GET /api/animals?especie=Gos} → només gossos</li>
+     *   <li>{@code GET /api/animals?especie=Exòtic&localitzacio=08031} → conills, aus, rèptils, etc. d'un codi postal</li>
+     *   <li>{@code GET /api/animals?sexe=Femella&edatMax=12&provincia=Girona} → femelles de fins a un any a Girona</li>
+     *   <li>{@code GET /api/animals?q=gos petit tranquil&provincia=Barcelona} → cerca de text lliure al nom i
+     *       la descripció, ordenada per rellevància</li>
+     *   <li>{@code GET /api/animals?especie=Gat&sort=joves} → gats, els més joves primer</li>
+     * </ul>
+     * 
+     * <p>{@code sort} admet els valors de {@link OrdreAnimals} ({@code arribada}, {@code recents}, {@code joves} i {@code nom});
+     * qualsevol altre valor retorna 400 (Bad Request).
+     * 
+     * @param filtre criteris de cerca: {@code q} (text lliure), {@code especie}, {@code sexe}, {@code edatMin} i {@code edatMax} (en mesos),
+     *               {@code provincia}, {@code codiPostal}, {@code localitzacio} (codi postal, província o localitat),
+     *               {@code protectora} (codi de la protectora), {@code adoptat} (per defecte {@code false}) i {@code sort} (ordre).
+     * @param after cursor de la pàgina anterior (opcional). Amb {@code q}, és la posició dins del rànquing.
+     * @param limit mida de pàgina (opcional).
+     * @return {@link ResponseEntity} amb una pàgina de targetes {@link AnimalCardDTO} i codi HTTP 200 (OK).
+     *         Pot retornar una pàgina buida si cap animal compleix els criteris,
+     *         o codi HTTP 400 (Bad Request) si l'ordre no és vàlid.
+     * 
+     * @see AnimalService#cercar(FiltreAnimalsDTO, Long, int)
      */
     @GetMapping
-    public ResponseEntity<List<Animal>>getAllAnimals(){
-        List<Animal> animals = animalService.getAllAnimalsNoAdoptats();
-        return ResponseEntity.ok(animals);
+    public ResponseEntity<PaginaDTO<AnimalCardDTO>>cercarAnimals(
+        @ModelAttribute FiltreAnimalsDTO filtre,
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "" + AnimalService.LIMIT_PER_DEFECTE) int limit){
+        if (filtre.ordre() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(animalService.cercar(filtre, after, limit));
+    }
+
+    /**
+     * Mètode per comptar els animals que compleixen uns criteris de cerca, sense retornar-los
+     * (per exemple, per mostrar "N trobats" o calcular el nombre de pàgines).
+     * 
+     * <p>Accepta els mateixos criteris que {@link #cercarAnimals}, per exemple
+     * {@code GET /api/animals/count?especie=Gos&provincia=Girona}. El total es retorna al cos i a la capçalera
+     * {@value #CAPCALERA_TOTAL}, de manera que amb una petició {@code HEAD} n'hi ha prou per obtenir-lo.
+     * 
+     * @param filtre criteris de cerca (opcionals); {@code sort} s'ignora.
+     * @return {@link ResponseEntity} amb el nombre d'animals i codi HTTP 200 (OK).
+     * 
+     * @see AnimalService#comptar(FiltreAnimalsDTO)
+     */
+    @GetMapping("/count")
+    @CrossOrigin(exposedHeaders = CAPCALERA_TOTAL)
+    public ResponseEntity<Long>comptarAnimals(@ModelAttribute FiltreAnimalsDTO filtre){
+        long total = animalService.comptar(filtre);
+        return ResponseEntity.ok().header(CAPCALERA_TOTAL, String.valueOf(total)).body(total);
+    }
+
+    /**
+     * Mètode per retornar el nombre d'animals disponibles per cada valor dels filtres de la cerca
+     * (espècie, província, sexe i franja d'edat), per mostrar-los a la barra lateral.
+     * 
+     * <p>Accepta els mateixos criteris que {@link #cercarAnimals}; per exemple,
+     * {@code GET /api/animals/facets?especie=Gos} retorna quants gossos hi ha per província, sexe i edat.
+     * 
+     * @param filtre criteris de cerca actuals (opcionals).
+     * @return {@link ResponseEntity} amb les facetes {@link FacetsDTO} i codi HTTP 200 (OK).
+     * 
+     * @see AnimalService#facets(FiltreAnimalsDTO)
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<FacetsDTO>getFacets(@ModelAttribute FiltreAnimalsDTO filtre){
+        return ResponseEntity.ok(animalService.facets(filtre));
     }
 
     /**
      * Mètode per retornar tots els animals registrats al sistema que ja han estat adoptats.
      * 
-     * @return {@link ResponseEntity} amb una llista d'animals {@link Animal} adoptats i codi HTTP 200 (OK).
+     * @param sort ordre dels resultats (opcional, vegeu {@link OrdreAnimals}).
+     * @param after cursor de la pàgina anterior (opcional).
+     * @param limit mida de pàgina (opcional).
+     * @return {@link ResponseEntity} amb una pàgina de targetes {@link AnimalCardDTO} d'animals adoptats i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si l'ordre no és vàlid.
      * 
-     * @see AnimalService#getAllAnimalsAdoptats()
+     * @see AnimalService#getAllAnimalsAdoptats(String, Long, int)
      */
     @GetMapping("/adoptats")
-    public ResponseEntity<List<Animal>>getAllAnimalsAdoptats(){
-        List<Animal> animals = animalService.getAllAnimalsAdoptats();
+    public ResponseEntity<PaginaDTO<AnimalCardDTO>>getAllAnimalsAdoptats(
+        @RequestParam(required = false) String sort,
+        @RequestParam(required = false) Long after,
+        @RequestParam(defaultValue = "" + AnimalService.LIMIT_PER_DEFECTE) int limit){
+        if (OrdreAnimals.de(sort) == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        PaginaDTO<AnimalCardDTO> animals = animalService.getAllAnimalsAdoptats(sort, after, limit);
         return ResponseEntity.ok(animals);
     }
     /**
-     * Retorna els detalls d'un animal identificat pel seu ID numèric.
+     * Mètode per retornar diversos animals en una sola petició, per exemple {@code GET /api/animals?ids=12,5,40}
+     * (preferits, comparacions, etc.), en lloc d'una petició {@code /api/animals/{numId}} per animal.
      * 
-     * @param numId l'identificador únic de l'animal el qual es mostraran els detalls.
-     * @return {@link ResponseEntity} amb l'objecte {@link Animal} si es troba (codi 200 OK),
-     *         o codi HTTP 404 (Not Found) si no existeix cap animal amb aquest ID.
+     * <p>Retorna els animals complets amb la seva protectora, com el detall, en l'ordre dels identificadors demanats;
+     * els que no existeixen s'ometen.
      * 
-     * @see AnimalService#getAnimalsById(Long)
+     * @param ids els identificadors dels animals, separats per comes (com a màxim {@link AnimalService#LIMIT_MAXIM}).
+     * @return {@link ResponseEntity} amb la llista d'objectes {@link Animal} i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si es demanen massa identificadors.
+     * 
+     * @see AnimalService#getAnimalsByIds(List)
      */
-    @GetMapping("{numId}")
-    public ResponseEntity<Animal>getAnimalsByNumId(@PathVariable Long numId){
-        return animalService.getAnimalByIdWithProtectora(numId)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<Animal>>getAnimalsByIds(@RequestParam List<Long> ids){
+        if (ids.size() > AnimalService.LIMIT_MAXIM) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(animalService.getAnimalsByIds(ids));
     }
 
+
     /**
-     * Mètode per retornar una llista d'animals filtrats per espècie i que no estan adoptats.
+     * Mètode per retornar només uns camps de diversos animals, per exemple
+     * {@code GET /api/animals?ids=12,5,40&fields=nomAn,fotoPerfil,protectora.nomProt}.
      * 
-     * <p>Si el paràmetre {@code especie} és "Exòtic", es retornen tots els animals
-     * que no pertanyen a les espècies "Gos" ni "Gat" en situació d'adopció.
-     * 
-     * <p>Exemples d'ús:
-     * <ul>
-     *   <li>{@code GET /api/animals?especie=Gos} → només gossos</li>
-     *   <li>{@code GET /api/animals?especie=Exòtic} → conills, aus, rèptils, etc.</li>
-     * </ul>
+     * <p>Com {@link #getAnimalsByIds(List)}, però la consulta només llegeix les columnes dels camps demanats
+     * i la resposta només els conté (vegeu {@link SeleccioCamps}).
      * 
-     * @param especie el nom de l'espècie a filtrar (ex: "Gos", "Gat", "Exòtic").
-     * @return {@link ResponseEntity} amb una llista d'animals {@link Animal} en situació d'adopció i codi HTTP 200 (OK).
-     *         Pot retornar una llista buida si no hi ha animals d'aquella espècie.
+     * @param ids els identificadors dels animals, separats per comes (com a màxim {@link AnimalService#LIMIT_MAXIM}).
+     * @param fields els camps a retornar, separats per comes (vegeu {@link SeleccioCamps#CAMPS_ANIMAL}).
+     * @return {@link ResponseEntity} amb els camps demanats de cada animal i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si es demanen massa identificadors o algun camp no existeix.
      * 
-     * @see AnimalService#getAnimalsByEspecie(String)
-     * @see AnimalService#getAnimalsExcluirGosGat()
+     * @see AnimalService#getCampsAnimals(List, SeleccioCamps)
      */
-    @GetMapping(params = "especie")
-    public ResponseEntity<List<Animal>>getAnimalsByEspecie(@RequestParam String especie){
-        List<Animal>animals;
-        if("Exòtic".equals(especie)){
-            animals=animalService.getAnimalsExcluirGosGatNoAdoptats();
-        }else{
-            animals=animalService.getAnimalsByEspecieNoAdoptats(especie);
+    @GetMapping(params = {"ids", "fields"})
+    public ResponseEntity<List<Map<String, Object>>>getCampsAnimalsByIds(@RequestParam List<Long> ids, @RequestParam String fields){
+        SeleccioCamps camps = SeleccioCamps.animal(fields);
+        if (ids.size() > AnimalService.LIMIT_MAXIM || camps == null) {
+            return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(animals);
+        return ResponseEntity.ok(animalService.getCampsAnimals(ids, camps));
+    }
+
+    /**
+     * Mètode per retornar una mostra aleatòria d'animals disponibles per destacar a la pàgina d'inici,
+     * per exemple {@code GET /api/animals/featured?n=6}.
+     * 
+     * <p>Cada petició retorna una mostra diferent, i per això aquesta ruta no fa servir ETag.
+     * 
+     * @param n nombre d'animals (opcional, per defecte {@value #DESTACATS_PER_DEFECTE}; com a màxim {@link AnimalService#MAXIM_DESTACATS}).
+     * @return {@link ResponseEntity} amb les targetes {@link AnimalCardDTO} dels animals triats i codi HTTP 200 (OK).
+     * 
+     * @see AnimalService#getDestacats(int)
+     */
+    @GetMapping("/featured")
+    public ResponseEntity<List<AnimalCardDTO>>getDestacats(
+        @RequestParam(defaultValue = "" + DESTACATS_PER_DEFECTE) int n){
+        return ResponseEntity.ok(animalService.getDestacats(n));
     }
 
     /**
-     * Mètode per retornar una llista d'animals filtrats per espècie i localització, excloent els ja adoptats.
+     * Mètode per retornar les últimes adopcions, per al carrusel de la pàgina d'inici.
+     * 
+     * <p>A diferència de {@code /adoptats}, no recorre l'historial: retorna com a màxim
+     * {@link AdopcionsRecents#MAXIM} animals d'una llista precalculada.
+     * 
+     * @param n nombre d'adopcions (opcional, per defecte {@value #ADOPCIONS_RECENTS_PER_DEFECTE}).
+     * @return {@link ResponseEntity} amb les targetes {@link AnimalCardDTO} de les adopcions més recents i codi HTTP 200 (OK).
      * 
-     * @param especie el nom de l'espècie a filtrar (ex: "Gos", "Gat", "Exòtic").
-     * @param localitzacio la localització geogràfica per filtrar els animals (ex: ciutat o codi postal).
-     * @return {@link ResponseEntity} amb una llista d'animals {@link Animal} en situació d'adopció i codi HTTP 200 (OK).
-     *         Pot retornar una llista buida si no hi ha animals que compleixin els criteris.
-     * @see AnimalService#getAnimalsByEspecieAndLocalitzacio(String, String)
+     * @see AnimalService#getAdopcionsRecents(int)
      */
-    @GetMapping(params = {"especie", "localitzacio"})
-    public ResponseEntity<List<Animal>>getAnimalsByEspecieAndLocalitzacio(
-        @RequestParam String especie,
-        @RequestParam String localitzacio){
-        List<Animal>animals;
-        if("Exòtic".equals(especie)){
-            animals=animalService.getAnimalsExcluirGosGatNoAdoptatsByLocalitzacio(localitzacio);
-        }else{
-            animals=animalService.getAnimalsByEspecieNoAdoptatsByLocalitzacio(especie, localitzacio);
-        }
-        return ResponseEntity.ok(animals);
+    @GetMapping("/adoptats/recents")
+    public ResponseEntity<List<AnimalCardDTO>>getAdopcionsRecents(
+        @RequestParam(defaultValue = "" + ADOPCIONS_RECENTS_PER_DEFECTE) int n){
+        return ResponseEntity.ok(animalService.getAdopcionsRecents(n));
     }
 
     /**
-     * Mètode per retornar una llista d'animals filtrats per localització i que no estan adoptats.
+     * Retorna els detalls d'un animal identificat pel seu ID numèric.
+     * 
+     * @param numId l'identificador únic de l'animal el qual es mostraran els detalls.
+     * @return {@link ResponseEntity} amb l'objecte {@link Animal} si es troba (codi 200 OK),
+     *         o codi HTTP 404 (Not Found) si no existeix cap animal amb aquest ID.
+     * 
+     * @see AnimalService#getAnimalsById(Long)
+     */
+    @GetMapping("{numId}")
+    public ResponseEntity<Animal>getAnimalsByNumId(@PathVariable Long numId){
+        return animalService.getAnimalByIdWithProtectora(numId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Retorna només uns camps d'un animal, per exemple {@code GET /api/animals/12?fields=nomAn,fotoPerfil}
+     * (sense la descripció ni les dades de contacte de la protectora si no es demanen).
+     * 
+     * @param numId l'identificador únic de l'animal.
+     * @param fields els camps a retornar, separats per comes (vegeu {@link SeleccioCamps#CAMPS_ANIMAL}).
+     * @return {@link ResponseEntity} amb els camps demanats de l'animal (codi 200 OK),
+     *         codi HTTP 404 (Not Found) si no existeix, o codi HTTP 400 (Bad Request) si algun camp no existeix.
      * 
-     * @param localitzacio la localització geogràfica per filtrar els animals (ex: ciutat o codi postal).
-     * @return {@link ResponseEntity} amb una llista d'animals {@link Animal} en situació d'adopció i codi HTTP 200 (OK).
-     *         Pot retornar una llista buida si no hi ha animals en aquella localització.
-     * @see AnimalService#getAnimalsNoAdoptatsByLocalitzacio(String)
+     * @see AnimalService#getCampsAnimal(Long, SeleccioCamps)
      */
-    @GetMapping(params = "localitzacio")
-    public ResponseEntity<List<Animal>>getAnimalsByLocalitzacio(
-        @RequestParam String localitzacio){   
-        return ResponseEntity.ok(animalService.getAnimalsNoAdoptatsByLocalitzacio(localitzacio));
+    @GetMapping(value = "{numId}", params = "fields")
+    public ResponseEntity<Map<String, Object>>getCampsAnimal(@PathVariable Long numId, @RequestParam String fields){
+        SeleccioCamps camps = SeleccioCamps.animal(fields);
+        if (camps == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return animalService.getCampsAnimal(numId, camps)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
     }
-    
 
 }
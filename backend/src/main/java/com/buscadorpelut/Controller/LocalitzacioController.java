@@ -0,0 +1,49 @@
+package com.buscadorpelut.Controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.buscadorpelut.DTO.SuggerimentLocalitzacioDTO;
+import com.buscadorpelut.Service.DiccionariLocalitzacions;
+
+/**
+ * Controlador REST per a l'autocompletat de localitzacions dels formularis de cerca.
+ *
+ * <p>Els suggeriments surten de les províncies, localitats, codis postals i noms de les protectores,
+ * i es resolen en memòria amb {@link DiccionariLocalitzacions}, sense consultar la base de dades.
+ * Els endpoints són a {@code /api/localitzacions} i admeten peticions CORS.
+ */
+@RestController
+@RequestMapping("/api/localitzacions")
+@CrossOrigin(origins = "*")
+public class LocalitzacioController {
+
+    @Autowired
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    /**
+     * Mètode per suggerir localitzacions i protectores que comencen pel text escrit,
+     * per exemple {@code GET /api/localitzacions/suggest?prefix=gir}.
+     *
+     * <p>No es distingeixen majúscules ni accents. Cada suggeriment indica el seu tipus (província,
+     * localitat, codi postal o protectora), perquè el frontend sàpiga per quin paràmetre ha de cercar.
+     *
+     * @param prefix el text escrit per l'usuari (si és buit, no hi ha suggeriments).
+     * @param limit nombre màxim de suggeriments (per defecte i com a màxim, {@link DiccionariLocalitzacions#MAXIM_SUGGERIMENTS}).
+     * @return {@link ResponseEntity} amb la llista de suggeriments ordenats i codi HTTP 200 (OK).
+     * @see DiccionariLocalitzacions#suggerir(String, int)
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggerimentLocalitzacioDTO>> suggerir(
+        @RequestParam(defaultValue = "") String prefix,
+        @RequestParam(defaultValue = "" + DiccionariLocalitzacions.MAXIM_SUGGERIMENTS) int limit){
+        return ResponseEntity.ok(diccionariLocalitzacions.suggerir(prefix, limit));
+    }
+}
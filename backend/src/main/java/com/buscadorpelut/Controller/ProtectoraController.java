@@ -1,6 +1,9 @@
 package com.buscadorpelut.Controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +13,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.buscadorpelut.DTO.ClusterMapaDTO;
+import com.buscadorpelut.DTO.ProtectoraDistanciaDTO;
+import com.buscadorpelut.Model.CaixaGeo;
 import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Model.SeleccioCamps;
+import com.buscadorpelut.Service.IndexGeoProtectores;
+import com.buscadorpelut.Service.MapaProtectores;
 import com.buscadorpelut.Service.ProtectoraService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -21,6 +30,10 @@ import org.springframework.web.bind.annotation.PathVariable;
  * <p>Aquesta classe proporciona endpoints per:
  * <ul> 
  *  <li>Llistar totes les protectores</li>
+ *  <li>Comptar les protectores d'una ubicació ({@code /count})</li>
+ *  <li>Retornar només uns camps de les protectores (paràmetre {@code fields})</li>
+ *  <li>Cercar les protectores més properes a un punt ({@code /near})</li>
+ *  <li>Agrupar les protectores d'una zona del mapa ({@code /map})</li>
  * </ul>
  * <p>Tots els endpoints accedeixen des de {@code /api/protectores} i admeten peticions CORS
  * per facilitar la integració amb frontends externs.
@@ -48,6 +61,110 @@ public class ProtectoraController {
         return ResponseEntity.ok(protectores);
     } 
     
+    /**
+     * Mètode per retornar diverses protectores en una sola petició, per exemple {@code GET /api/protectores?ids=3,1,7}.
+     * 
+     * <p>Es resol amb una sola consulta i respecta l'ordre dels codis demanats; els codis que no existeixen s'ometen.
+     * 
+     * @param ids els codis de les protectores, separats per comes (com a màxim {@link ProtectoraService#LIMIT_IDS}).
+     * @return {@link ResponseEntity} amb la llista de protectores {@link Protectora} i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si es demanen massa codis.
+     * @see ProtectoraService#getProtectoresByIds(List)
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<Protectora>>getProtectoresByIds(@RequestParam List<Long> ids){
+        if (ids.size() > ProtectoraService.LIMIT_IDS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(protectoraService.getProtectoresByIds(ids));
+    }
+
+    /**
+     * Mètode per retornar només uns camps de totes les protectores, per exemple
+     * {@code GET /api/protectores?fields=codiProt,nomProt,localitat}. La consulta només llegeix
+     * les columnes dels camps demanats i la resposta només els conté.
+     * 
+     * <p>No es combina amb els altres paràmetres de cerca, que retornen les protectores senceres.
+     * 
+     * @param fields els camps a retornar, separats per comes (vegeu {@link SeleccioCamps#CAMPS_PROTECTORA}).
+     * @return {@link ResponseEntity} amb els camps demanats de cada protectora i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si algun camp no existeix.
+     * @see ProtectoraService#getCampsProtectores(SeleccioCamps)
+     */
+    @GetMapping(params = {"fields", "!ids", "!nomProt", "!adresa", "!codiPostal", "!localitat", "!provincia", "!longitud", "!emailProt"})
+    public ResponseEntity<List<Map<String, Object>>>getCampsProtectores(@RequestParam String fields){
+        SeleccioCamps camps = SeleccioCamps.protectora(fields);
+        if (camps == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(protectoraService.getCampsProtectores(camps));
+    }
+
+    /**
+     * Mètode per retornar només uns camps de diverses protectores, per exemple {@code GET /api/protectores?ids=3,1&fields=nomProt,url}.
+     * 
+     * @param ids els codis de les protectores, separats per comes (com a màxim {@link ProtectoraService#LIMIT_IDS}).
+     * @param fields els camps a retornar, separats per comes (vegeu {@link SeleccioCamps#CAMPS_PROTECTORA}).
+     * @return {@link ResponseEntity} amb els camps demanats de cada protectora i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si es demanen massa codis o algun camp no existeix.
+     * @see ProtectoraService#getCampsProtectoresByIds(List, SeleccioCamps)
+     */
+    @GetMapping(params = {"ids", "fields"})
+    public ResponseEntity<List<Map<String, Object>>>getCampsProtectoresByIds(@RequestParam List<Long> ids, @RequestParam String fields){
+        SeleccioCamps camps = SeleccioCamps.protectora(fields);
+        if (ids.size() > ProtectoraService.LIMIT_IDS || camps == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(protectoraService.getCampsProtectoresByIds(ids, camps));
+    }
+
+    /**
+     * Mètode per retornar només uns camps d'una protectora, per exemple {@code GET /api/protectores/3?fields=nomProt,tlfProt}.
+     * 
+     * @param codiProt el codi únic de la protectora.
+     * @param fields els camps a retornar, separats per comes (vegeu {@link SeleccioCamps#CAMPS_PROTECTORA}).
+     * @return {@link ResponseEntity} amb els camps demanats i codi HTTP 200 (OK), codi HTTP 404 (Not Found)
+     *         si la protectora no existeix, o codi HTTP 400 (Bad Request) si algun camp no existeix.
+     * @see ProtectoraService#getCampsProtectora(Long, SeleccioCamps)
+     */
+    @GetMapping(value = "{codiProt}", params = "fields")
+    public ResponseEntity<Map<String, Object>>getCampsProtectora(@PathVariable Long codiProt, @RequestParam String fields){
+        SeleccioCamps camps = SeleccioCamps.protectora(fields);
+        if (camps == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return protectoraService.getCampsProtectora(codiProt, camps)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Mètode per comptar les protectores d'un codi postal, una localitat o una província, o totes si no
+     * s'indica cap criteri, per exemple {@code GET /api/protectores/count?provincia=Girona}.
+     * 
+     * <p>El total es retorna al cos i a la capçalera {@value AnimalController#CAPCALERA_TOTAL}
+     * (n'hi ha prou amb una petició {@code HEAD}).
+     * 
+     * @param codiPostal el codi postal (opcional).
+     * @param localitat la localitat (opcional).
+     * @param provincia la província (opcional).
+     * @return {@link ResponseEntity} amb el nombre de protectores i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si s'indica més d'un criteri.
+     * @see ProtectoraService#comptarProtectores(String, String, String)
+     */
+    @GetMapping("/count")
+    @CrossOrigin(exposedHeaders = AnimalController.CAPCALERA_TOTAL)
+    public ResponseEntity<Long>comptarProtectores(
+        @RequestParam(required = false) String codiPostal,
+        @RequestParam(required = false) String localitat,
+        @RequestParam(required = false) String provincia){
+        if (Stream.of(codiPostal, localitat, provincia).filter(Objects::nonNull).count() > 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        long total = protectoraService.comptarProtectores(codiPostal, localitat, provincia);
+        return ResponseEntity.ok().header(AnimalController.CAPCALERA_TOTAL, String.valueOf(total)).body(total);
+    }
+
     /**
      * Mètode per retornar una protectora segons el seu codi únic.
      * 
@@ -130,13 +247,63 @@ public class ProtectoraController {
         return ResponseEntity.ok(protectoraService.getProtectoresByProvincia(provincia));
     }
 
+    /**
+     * Mètode per retornar les protectores més properes a un punt, per exemple
+     * {@code GET /api/protectores/near?lat=41.39&lon=2.17&radiusKm=50&limit=20}.
+     * 
+     * <p>Les protectores surten ordenades de la més propera a la més llunyana, amb la distància en quilòmetres,
+     * de manera que el frontend no ha de descarregar tot el directori per calcular-la.
+     * 
+     * @param lat la latitud del punt, en graus (entre -90 i 90).
+     * @param lon la longitud del punt, en graus (entre -180 i 180).
+     * @param radiusKm la distància màxima, en quilòmetres (per defecte {@link IndexGeoProtectores#RADI_PER_DEFECTE_KM}).
+     * @param limit el nombre màxim de protectores (per defecte 20, com a molt {@link IndexGeoProtectores#LIMIT_MAXIM}).
+     * @return {@link ResponseEntity} amb la llista de protectores i distàncies i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si les coordenades o el radi no són vàlids.
+     * @see ProtectoraService#getProtectoresPropers(double, double, double, int)
+     */
+    @GetMapping("/near")
+    public ResponseEntity<List<ProtectoraDistanciaDTO>>getProtectoresPropers(
+        @RequestParam double lat,
+        @RequestParam double lon,
+        @RequestParam(defaultValue = "" + IndexGeoProtectores.RADI_PER_DEFECTE_KM) double radiusKm,
+        @RequestParam(defaultValue = "20") int limit){
+        if (!(Math.abs(lat) <= 90) || !(Math.abs(lon) <= 180) || !(radiusKm > 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(protectoraService.getProtectoresPropers(lat, lon, radiusKm, limit));
+    }
+
+    /**
+     * Mètode per retornar les protectores d'una zona del mapa agrupades per proximitat, per exemple
+     * {@code GET /api/protectores/map?bbox=0.15,40.52,3.33,42.86&zoom=8}.
+     * 
+     * <p>Cada grup té el centre, el nombre de protectores i el total d'animals disponibles, de manera que
+     * el mapa dibuixa un marcador per grup en lloc de descarregar tot el directori.
+     * 
+     * @param bbox la zona visible, com a {@code oest,sud,est,nord} en graus (vegeu {@link CaixaGeo#bbox(String)}).
+     * @param zoom el nivell de zoom del mapa (com a molt {@link MapaProtectores#ZOOM_MAXIM}).
+     * @return {@link ResponseEntity} amb la llista de grups i codi HTTP 200 (OK),
+     *         o codi HTTP 400 (Bad Request) si la zona no és vàlida.
+     * @see ProtectoraService#getClustersMapa(CaixaGeo, int)
+     */
+    @GetMapping("/map")
+    public ResponseEntity<List<ClusterMapaDTO>>getClustersMapa(@RequestParam String bbox, @RequestParam int zoom){
+        CaixaGeo caixa = CaixaGeo.bbox(bbox);
+        if (caixa == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(protectoraService.getClustersMapa(caixa, zoom));
+    }
+
     /**
      * Mètode per retornar una protectora segons la seva longitud i latitud.
+     * Les coordenades poden estar arrodonides: es retorna la protectora més propera dins de la tolerància.
      * 
      * @param longitud la longitud geogràfica de la protectora a cercar.
      * @param latitud la latitud geogràfica de la protectora a cercar.
      * @return {@link ResponseEntity} amb la protectora {@link Protectora} corresponent i codi HTTP 200 (OK).
-     *         Si no es troba la protectora, retorna codi HTTP 404 (Not Found).
+     *         Si no hi ha cap protectora prop d'aquestes coordenades, retorna codi HTTP 404 (Not Found).
      * @see ProtectoraService#getProtectoraByLongitudAndLatitud(double, double)
      */
     @GetMapping(params = {"longitud","latitud"})
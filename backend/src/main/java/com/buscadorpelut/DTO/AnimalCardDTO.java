@@ -0,0 +1,44 @@
+package com.buscadorpelut.DTO;
+
+import java.sql.Date;
+import java.util.Map;
+
+import com.buscadorpelut.Model.Animal;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO (projecció) amb les dades d'un animal que es mostren a les targetes dels llistats.
+ *
+ * <p>Les cerques la construeixen directament a la consulta SQL, de manera que mai es
+ * llegeix la columna {@code descripcio} (LONGTEXT) ni les dades de contacte de la protectora.
+ * Només {@code GET /api/animals/{numId}} carrega l'entitat {@link Animal} completa.
+ *
+ * <p>L'ordre dels camps coincideix amb el constructor que fa servir
+ * {@link com.buscadorpelut.Repository.AnimalRepositoryCustomImpl}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimalCardDTO {
+    private Long numId;// Identificador de l'animal.
+    private String nomAn;// Nom de l'animal.
+    private String especie;// Espècie de l'animal.
+    private String sexe;// Sexe de l'animal.
+    private Date dataNeix;// Data de naixement de l'animal.
+    private String fotoPerfil;// Nom del fitxer de la imatge de l'animal.
+    private String localitatProtectora;// Localitat de la protectora on és l'animal.
+
+    /**
+     * Edat de l'animal en anys, mesos i dies, amb el mateix format que {@link Animal#getEdat()}.
+     *
+     * @return un map amb les claus "anys", "mesos" i "dies".
+     */
+    @JsonProperty("edat")
+    public Map<String, Integer> getEdat() {
+        return Animal.calcularEdat(this.dataNeix);
+    }
+}
@@ -0,0 +1,44 @@
+package com.buscadorpelut.DTO;
+
+import java.sql.Date;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO amb les dades d'un animal disponible que guarda l'índex en memòria de cerca.
+ *
+ * <p>Conté els camps de la targeta del llistat ({@link AnimalCardDTO}) i les claus normalitzades
+ * per les quals es filtra (espècie, província, codi postal i codi de la protectora).
+ * Es carrega amb una consulta de projecció, sense la descripció de l'animal.
+ *
+ * @see com.buscadorpelut.Service.IndexAnimals
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnimalIndexatDTO {
+    private Long numId;// Identificador de l'animal.
+    private String nomAn;// Nom de l'animal.
+    private String especie;// Espècie de l'animal.
+    private String sexe;// Sexe de l'animal.
+    private Date dataNeix;// Data de naixement de l'animal.
+    private String fotoPerfil;// Nom del fitxer de la imatge de l'animal.
+    private String especieClau;// Clau de cerca de l'espècie.
+    private String localitat;// Localitat de la protectora.
+    private String provincia;// Província de la protectora.
+    private String provinciaClau;// Clau de cerca de la província de la protectora.
+    private String codiPostalClau;// Clau de cerca del codi postal de la protectora.
+    private Long codiProt;// Codi de la protectora.
+
+    /**
+     * Construeix la targeta de llistat d'aquest animal.
+     *
+     * @return la targeta, amb la localitat "Desconeguda" si l'animal no té protectora.
+     */
+    public AnimalCardDTO toTargeta() {
+        return new AnimalCardDTO(numId, nomAn, especie, sexe, dataNeix, fotoPerfil,
+            localitat != null ? localitat : "Desconeguda");
+    }
+}
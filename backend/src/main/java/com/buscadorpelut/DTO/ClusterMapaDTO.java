@@ -0,0 +1,20 @@
+package com.buscadorpelut.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO d'un grup de protectores properes per dibuixar-lo com un sol marcador al mapa.
+ *
+ * @see com.buscadorpelut.Service.MapaProtectores#clusters(com.buscadorpelut.Model.CaixaGeo, int)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClusterMapaDTO {
+    private double latitud;// Latitud del centre del grup (mitjana de les protectores), en graus.
+    private double longitud;// Longitud del centre del grup (mitjana de les protectores), en graus.
+    private int protectores;// Nombre de protectores del grup.
+    private long animalsDisponibles;// Nombre d'animals no adoptats de les protectores del grup.
+}
@@ -0,0 +1,26 @@
+package com.buscadorpelut.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO amb el resultat de serialitzar i llegir una mostra del catàleg en un format de resposta
+ * (JSON, CBOR o Smile).
+ *
+ * <p>Els temps són la mitjana per iteració, després d'unes iteracions d'escalfament.
+ *
+ * @see com.buscadorpelut.Service.ComparativaFormats#comparar(int)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ComparativaFormatDTO {
+    private String mostra;// Dades serialitzades (ex: "targetes" o "protectores").
+    private int elements;// Nombre d'elements de la mostra.
+    private String format;// Tipus de contingut (ex: "application/json" o "application/cbor").
+    private int bytes;// Mida del cos sense comprimir.
+    private int bytesGzip;// Mida del cos comprimit amb gzip.
+    private double microsEscriure;// Temps mitjà de serialització, en microsegons.
+    private double microsLlegir;// Temps mitjà de lectura (deserialització als mateixos tipus), en microsegons.
+}
@@ -0,0 +1,24 @@
+package com.buscadorpelut.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO amb les estadístiques d'una memòria cau de consultes.
+ *
+ * <p>Els comptadors s'acumulen des de l'arrencada de l'aplicació.
+ *
+ * @see com.buscadorpelut.Service.GestioCaches#estadistiques()
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EstadistiquesCacheDTO {
+    private String nom;// Nom de la cache (vegeu CacheConfig).
+    private long entrades;// Nombre aproximat d'entrades guardades ara mateix.
+    private long encerts;// Consultes respostes des de la cache.
+    private long fallades;// Consultes que han hagut d'anar a la base de dades o als índexs.
+    private long desallotjaments;// Entrades descartades per mida o per caducitat.
+    private double taxaEncerts;// Proporció d'encerts sobre el total de consultes (0 a 1).
+}
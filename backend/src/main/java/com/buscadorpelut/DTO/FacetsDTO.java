@@ -0,0 +1,26 @@
+package com.buscadorpelut.DTO;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO amb el recompte d'animals disponibles per cada valor dels filtres de la cerca (facetes).
+ *
+ * <p>Cada mapa va del valor (tal com es mostra, per exemple "Gos" o "Barcelona") al nombre
+ * d'animals disponibles que el tenen dins de la cerca actual, ordenat de més a menys animals.
+ * Les franges d'edat fan servir els noms de {@link com.buscadorpelut.Model.BandaEdat}
+ * i sempre hi són totes, en ordre d'edat.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetsDTO {
+    private long total;// Nombre total d'animals disponibles que compleixen el filtre.
+    private Map<String, Long> especie;// Animals per espècie.
+    private Map<String, Long> provincia;// Animals per província de la protectora.
+    private Map<String, Long> sexe;// Animals per sexe.
+    private Map<String, Long> edat;// Animals per franja d'edat.
+}
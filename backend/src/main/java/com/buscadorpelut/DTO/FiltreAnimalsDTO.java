@@ -0,0 +1,179 @@
+package com.buscadorpelut.DTO;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import com.buscadorpelut.Model.ClauCerca;
+import com.buscadorpelut.Model.OrdreAnimals;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO que agrupa tots els criteris de cerca d'animals.
+ *
+ * <p>Qualsevol subconjunt dels camps pot estar informat; els camps a {@code null}
+ * no s'apliquen com a filtre. Es fa servir tant per rebre els paràmetres de
+ * {@code GET /api/animals} (Spring els associa pel nom) com per construir la
+ * consulta a {@link com.buscadorpelut.Repository.AnimalRepositoryCustom}.
+ *
+ * <p>Si {@code q} està informat, la cerca és de text lliure sobre el nom i la descripció
+ * i els resultats s'ordenen per rellevància (vegeu {@link com.buscadorpelut.Service.CercaTextAnimals}).
+ *
+ * <p>L'espècie especial {@value #ESPECIE_EXOTIC} selecciona totes les espècies
+ * que no són a {@link #ESPECIES_COMUNS}.
+ *
+ * <p>{@code sort} tria l'ordre dels resultats entre els de {@link OrdreAnimals} (per defecte, per ordre d'alta).
+ * No s'aplica a les cerques de text lliure, que sempre s'ordenen per rellevància.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FiltreAnimalsDTO {
+
+    /** Valor d'espècie que agrupa tots els animals que no són gossos ni gats. */
+    public static final String ESPECIE_EXOTIC = "Exòtic";
+
+    /** Espècies que no formen part de la categoria "Exòtic". */
+    public static final List<String> ESPECIES_COMUNS = List.of("Gos", "Gat");
+
+    private String q;// Text lliure a cercar al nom i la descripció (ex: "gos petit tranquil").
+    private String especie;// Espècie de l'animal (ex: "Gos", "Gat" o "Exòtic").
+    private String sexe;// Sexe de l'animal.
+    private Integer edatMin;// Edat mínima en mesos.
+    private Integer edatMax;// Edat màxima en mesos (inclosa).
+    private String provincia;// Província de la protectora.
+    private String codiPostal;// Codi postal de la protectora.
+    private String localitzacio;// Codi postal, província o localitat de la protectora.
+    private Long protectora;// Codi de la protectora (codiProt).
+    private Boolean adoptat = Boolean.FALSE;// Estat d'adopció (per defecte, només animals disponibles).
+    private String sort;// Ordre dels resultats (ex: "recents", "joves" o "nom"; vegeu OrdreAnimals).
+
+    /**
+     * Indica si l'espècie demanada és la categoria {@value #ESPECIE_EXOTIC},
+     * sense distingir majúscules ni accents (per exemple, "exotic").
+     *
+     * @return {@code true} si s'han de retornar les espècies que no són a {@link #ESPECIES_COMUNS}.
+     */
+    public boolean esExotic() {
+        return especie != null && ClauCerca.normalitzar(ESPECIE_EXOTIC).equals(ClauCerca.normalitzar(especie));
+    }
+
+    /**
+     * Claus de cerca de les espècies comunes, per comparar amb les columnes normalitzades.
+     *
+     * @return les claus de {@link #ESPECIES_COMUNS}.
+     */
+    public static List<String> clausEspeciesComunes() {
+        return ESPECIES_COMUNS.stream().map(ClauCerca::normalitzar).toList();
+    }
+
+    /**
+     * Indica si la cerca inclou text lliure.
+     *
+     * @return {@code true} si {@code q} conté algun caràcter que no és un espai.
+     */
+    public boolean teText() {
+        return q != null && !q.isBlank();
+    }
+
+    /**
+     * Indica si la cerca filtra per localització. Si el text no correspon a cap protectora
+     * ({@link com.buscadorpelut.Service.DiccionariLocalitzacions#protectores(String)} retorna {@code null}),
+     * no hi ha cap resultat.
+     *
+     * @return {@code true} si {@code localitzacio} conté algun caràcter que no és un espai.
+     */
+    public boolean teLocalitzacio() {
+        return localitzacio != null && !localitzacio.isBlank();
+    }
+
+    /**
+     * Ordre demanat per als resultats.
+     *
+     * @return l'ordre de {@code sort}, {@link OrdreAnimals#ARRIBADA} si no s'ha indicat,
+     *         o {@code null} si el valor no és a la llista blanca.
+     */
+    public OrdreAnimals ordre() {
+        return OrdreAnimals.de(sort);
+    }
+
+    /**
+     * Clau de memòria cau del filtre: els mateixos criteris escrits amb majúscules, accents o espais
+     * diferents (per exemple, "Gos" i " gos ") donen la mateixa clau, igual que passa a la cerca.
+     * El sexe es compara exactament i el text lliure només ignora majúscules i espais repetits.
+     *
+     * @return una cadena amb tots els criteris normalitzats.
+     * @see com.buscadorpelut.Config.CacheConfig
+     */
+    public String clauCache() {
+        return String.join("|",
+            teText() ? q.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) : "null",
+            esExotic() ? "*exotic" : String.valueOf(ClauCerca.normalitzar(especie)),
+            String.valueOf(sexe),
+            String.valueOf(edatMin),
+            String.valueOf(edatMax),
+            String.valueOf(ClauCerca.normalitzar(provincia)),
+            String.valueOf(ClauCerca.normalitzarCodiPostal(codiPostal)),
+            String.valueOf(ClauCerca.normalitzar(localitzacio)),
+            String.valueOf(protectora),
+            String.valueOf(adoptat),
+            String.valueOf(ordre()));
+    }
+
+    /**
+     * Còpia del filtre amb els criteris que intervenen en un recompte: tots menys l'ordre ({@code sort}).
+     * El filtre original no canvia.
+     *
+     * @return la còpia.
+     * @see com.buscadorpelut.Service.AnimalService#comptar(FiltreAnimalsDTO)
+     */
+    public FiltreAnimalsDTO perComptar() {
+        FiltreAnimalsDTO copia = copia();
+        copia.setSort(null);
+        return copia;
+    }
+
+    /**
+     * Còpia del filtre amb els criteris que intervenen en les facetes: sempre d'animals disponibles,
+     * sense text lliure ni ordre. El filtre original no canvia.
+     *
+     * @return la còpia.
+     * @see com.buscadorpelut.Service.AnimalService#facets(FiltreAnimalsDTO)
+     */
+    public FiltreAnimalsDTO perFacets() {
+        FiltreAnimalsDTO copia = copia();
+        copia.setAdoptat(Boolean.FALSE);
+        copia.setQ(null);
+        copia.setSort(null);
+        return copia;
+    }
+
+    private FiltreAnimalsDTO copia() {
+        return new FiltreAnimalsDTO(q, especie, sexe, edatMin, edatMax, provincia, codiPostal, localitzacio,
+            protectora, adoptat, sort);
+    }
+
+    /**
+     * Data de naixement més recent que compleix {@code edatMin}: un animal té com a mínim
+     * {@code edatMin} mesos si va néixer aquest dia o abans.
+     *
+     * @return la data límit (inclosa), o {@code null} si no hi ha edat mínima.
+     */
+    public Date nascutAbans() {
+        return edatMin == null ? null : Date.valueOf(LocalDate.now().minusMonths(edatMin));
+    }
+
+    /**
+     * Data de naixement a partir de la qual es compleix {@code edatMax}: un animal té com a màxim
+     * {@code edatMax} mesos si va néixer després d'avui menys {@code edatMax + 1} mesos.
+     *
+     * @return la data límit (exclosa), o {@code null} si no hi ha edat màxima.
+     */
+    public Date nascutDespres() {
+        return edatMax == null ? null : Date.valueOf(LocalDate.now().minusMonths(edatMax + 1L));
+    }
+}
@@ -0,0 +1,31 @@
+package com.buscadorpelut.DTO;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO amb l'estat de l'índex en memòria d'animals i el resultat de comparar-lo amb la base de dades.
+ *
+ * <p>L'índex és consistent quan conté exactament els animals disponibles de la base de dades
+ * i amb les mateixes dades ({@code falten}, {@code sobren} i {@code diferents} buits).
+ *
+ * @see com.buscadorpelut.Service.IndexAnimals#comprovarConsistencia()
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class InformeIndexDTO {
+    private boolean preparat;// Si l'índex ja s'ha construït i respon les cerques.
+    private boolean consistent;// Si l'índex coincideix amb la base de dades.
+    private int animalsBD;// Animals disponibles a la base de dades.
+    private int animalsIndex;// Animals disponibles a l'índex.
+    private List<Long> falten;// Animals de la base de dades que no són a l'índex.
+    private List<Long> sobren;// Animals de l'índex que ja no són disponibles a la base de dades.
+    private List<Long> diferents;// Animals amb dades diferents a l'índex i a la base de dades.
+    private Instant ultimaReconstruccio;// Moment de l'última reconstrucció completa.
+    private long duradaReconstruccioMs;// Durada de l'última reconstrucció, en mil·lisegons.
+}
@@ -0,0 +1,27 @@
+package com.buscadorpelut.DTO;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO que representa una pàgina de resultats obtinguda amb paginació per cursor (keyset).
+ *
+ * <p>En lloc de fer servir un número de pàgina (OFFSET), el client envia el cursor
+ * {@code after} rebut a la resposta anterior i el servidor continua a partir d'aquell
+ * identificador. Així, obtenir la pàgina N costa el mateix que obtenir la primera.
+ *
+ * <p>Si {@code nextCursor} és {@code null}, no hi ha més resultats.
+ *
+ * @param <T> tipus dels elements de la pàgina.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PaginaDTO<T> {
+    private List<T> items;// Elements de la pàgina actual.
+    private Long nextCursor;// Cursor per demanar la pàgina següent (null si és l'última).
+    private int limit;// Nombre màxim d'elements per pàgina aplicat pel servidor.
+}
@@ -0,0 +1,20 @@
+package com.buscadorpelut.DTO;
+
+import com.buscadorpelut.Model.Protectora;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO d'una protectora trobada per proximitat, amb la seva distància al punt de la cerca.
+ *
+ * @see com.buscadorpelut.Service.IndexGeoProtectores#propers(double, double, double, int)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProtectoraDistanciaDTO {
+    private Protectora protectora;// Protectora trobada.
+    private double distanciaKm;// Distància en línia recta sobre la superfície de la Terra, en quilòmetres.
+}
@@ -0,0 +1,25 @@
+package com.buscadorpelut.DTO;
+
+import com.buscadorpelut.Model.TipusLocalitzacio;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO d'un suggeriment de l'autocompletat de localitzacions.
+ *
+ * <p>El text és el valor tal com està guardat a la protectora (amb accents i majúscules),
+ * i el tipus indica per quin paràmetre s'ha de cercar.
+ *
+ * @see com.buscadorpelut.Service.DiccionariLocalitzacions#suggerir(String, int)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggerimentLocalitzacioDTO {
+    private String text;// Valor suggerit (ex: "Girona", "08031" o el nom d'una protectora).
+    private TipusLocalitzacio tipus;// Província, localitat, codi postal o protectora.
+    private Long codiProt;// Codi de la protectora, només si el tipus és PROTECTORA.
+    private int protectores;// Nombre de protectores amb aquest valor.
+}
@@ -1,10 +1,13 @@
 package com.buscadorpelut.Model;
 import java.io.Serializable;
 import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.annotation.Nonnull;
@@ -13,9 +16,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
 /**
@@ -24,9 +30,32 @@ import jakarta.persistence.Table;
  * Mapeja la taula "animal" i conté els atributs persistents de l’animal.
  * Aquesta classe forma part del model de domini i s’utilitza tant en 
  * la capa de persistència i servei com en la capa de vista.
+ *
+ * Els índexs compostos comencen per "adoptat" perquè totes les cerques públiques
+ * filtren per animals disponibles, i acaben en "numId" per resoldre la paginació per cursor
+ * sense haver d'ordenar les files. Els filtres d'edat (edatMin/edatMax) es tradueixen a rangs
+ * sobre "dataNeix", que també té índex.
+ *
+ * Cada ordre de la cerca (vegeu {@link OrdreAnimals}) té els seus índexs (adoptat, camp, numId) i
+ * (adoptat, especie_clau, camp, numId), perquè ordenar i limitar sigui un recorregut de rang de l'índex
+ * i no una ordenació de tota la taula. Els ordres per "numId" fan servir el primer índex en un sentit o l'altre.
+ *
+ * Les cerques per espècie es fan sobre la columna "especie_clau" (vegeu {@link ClauCerca}),
+ * que es calcula automàticament abans de cada inserció o actualització.
+ *
+ * La data d'adopció ("dataAdopcio") la informa AnimalService quan l'animal passa a adoptat,
+ * i amb el seu índex les adopcions més recents es llegeixen sense ordenar tot l'historial.
  */
 @Entity
-@Table(name = "animal")
+@Table(name = "animal", indexes = {
+    @Index(name = "idx_animal_adoptat_especie_clau", columnList = "adoptat, especie_clau, numId"),
+    @Index(name = "idx_animal_adoptat_sexe", columnList = "adoptat, sexe, numId"),
+    @Index(name = "idx_animal_adoptat_dataNeix", columnList = "adoptat, dataNeix"),
+    @Index(name = "idx_animal_adoptat_especie_clau_dataNeix", columnList = "adoptat, especie_clau, dataNeix, numId"),
+    @Index(name = "idx_animal_adoptat_nomAn", columnList = "adoptat, nomAn, numId"),
+    @Index(name = "idx_animal_adoptat_especie_clau_nomAn", columnList = "adoptat, especie_clau, nomAn, numId"),
+    @Index(name = "idx_animal_adoptat_dataAdopcio", columnList = "adoptat, dataAdopcio")
+})
 public class Animal implements Serializable{
 
     private static final long serialVersionUID = 1L;
@@ -57,6 +86,10 @@ public class Animal implements Serializable{
     @Column(name = "especie")
     private String especie; /**Especie de l'animal. Camp obligatori.*/
 
+    @JsonIgnore
+    @Column(name = "especie_clau")
+    private String especieClau; /**Clau de cerca de l'espècie (sense accents ni majúscules). Es calcula en guardar.*/
+
     @Column(name = "numXip", unique = true)
     private String numXip; /**Nº d'identificació oficial de l'animal.*/
 
@@ -64,6 +97,10 @@ public class Animal implements Serializable{
     @Column(name = "adoptat")
     private boolean esAdoptat = false; /**Booleà per indicar si l'animal està adoptat o no. Per defecte té valor false (no)*/
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "dataAdopcio")
+    private Timestamp dataAdopcio; /**Moment en què es va registrar l'adopció. Null si no està adoptat o si es va adoptar abans de tenir aquest camp.*/
+
     @Lob
     @Nonnull
     @Column(name = "descripcio", columnDefinition = "LONGTEXT")
@@ -194,6 +231,31 @@ public class Animal implements Serializable{
         this.esAdoptat = esAdoptat;
     }
 
+    /**Data d'adopció (només de lectura a l'API: la informa AnimalService)*/
+    public Timestamp getDataAdopcio() {
+        return this.dataAdopcio;
+    }
+
+    public void setDataAdopcio(Timestamp dataAdopcio) {
+        this.dataAdopcio = dataAdopcio;
+    }
+
+    /**Clau de cerca de l'espècie*/
+    @JsonIgnore
+    public String getEspecieClau() {
+        return this.especieClau;
+    }
+
+    /**
+     * Recalcula les claus de cerca a partir dels valors actuals.
+     * JPA la crida automàticament abans d'inserir o actualitzar l'animal.
+     */
+    @PrePersist
+    @PreUpdate
+    public void actualitzarClaus() {
+        this.especieClau = ClauCerca.normalitzar(this.especie);
+    }
+
     /**URL on es troba la imatge de l'animal*/
     public String getFotoPerfil () {
         return this.fotoPerfil;
@@ -225,18 +287,41 @@ public class Animal implements Serializable{
     */
     @JsonProperty("edat")
         public Map<String, Integer> getEdat(){
-        if(this.dataNeix == null){
-            return Map.of("anys",0,"mesos",0, "dies",0);
+        return calcularEdat(this.dataNeix);
+    }
+
+    /*
+    * Calcula l'edat (anys, mesos i dies) a partir d'una data de naixement.
+    * És estàtic perquè també el fan servir les projeccions de llistat (AnimalCardDTO),
+    * que no carreguen l'entitat sencera.
+    *
+    * L'edat només canvia d'un dia per l'altre i molts animals comparteixen data de naixement,
+    * de manera que el resultat (immutable) es memoritza per data de naixement durant el dia:
+    * un llistat gran calcula cada edat diferent una sola vegada. En canviar de dia es descarta la memòria.
+    */
+    public static Map<String, Integer> calcularEdat(Date dataNeix){
+        if(dataNeix == null){
+            return EDAT_DESCONEGUDA;
+        }
+        LocalDate avui = LocalDate.now();
+        EdatsDelDia edats = edatsDelDia;
+        if (!edats.dia().equals(avui)) {
+            edats = new EdatsDelDia(avui, new ConcurrentHashMap<>());
+            edatsDelDia = edats;
         }
+        return edats.perDataNeix().computeIfAbsent(dataNeix.toLocalDate(), naixement -> {
+            Period periode= Period.between(naixement, avui);
+            return Map.of("anys",periode.getYears(),"mesos",periode.getMonths(), "dies",periode.getDays());
+        });
+    }
 
-        Period periode= Period.between(this.dataNeix.toLocalDate(), LocalDate.now());
+    /**Edat que es retorna si no es coneix la data de naixement.*/
+    private static final Map<String, Integer> EDAT_DESCONEGUDA = Map.of("anys",0,"mesos",0, "dies",0);
 
-        int anys= periode.getYears();
-        int mesos= periode.getMonths();
-        int dies= periode.getDays();
+    /**Edats ja calculades avui, per data de naixement.*/
+    private record EdatsDelDia(LocalDate dia, ConcurrentHashMap<LocalDate, Map<String, Integer>> perDataNeix) {}
 
-        return Map.of("anys",anys,"mesos",mesos, "dies",dies);
-    }
+    private static volatile EdatsDelDia edatsDelDia = new EdatsDelDia(LocalDate.now(), new ConcurrentHashMap<>());
 
     @JsonProperty("localitatProtectora")
         public String getLocalitatProtectora() {
@@ -0,0 +1,206 @@
+package com.buscadorpelut.Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Arbre k-d immutable de punts geogràfics (latitud i longitud en graus), per buscar els més propers a un punt.
+ *
+ * <p>Cada punt es guarda com a vector unitari (x, y, z) sobre l'esfera: la distància en línia recta entre
+ * dos vectors (la corda) creix amb la distància sobre la superfície de la Terra, i la distància a un pla
+ * de tall és una fita inferior exacta de la corda. Així es poden descartar branques senceres de l'arbre
+ * sense errors prop dels pols ni del meridià 180, i una cerca dels {@code k} més propers recorre
+ * de l'ordre de {@code log n + k} nodes.
+ *
+ * <p>Els nodes es guarden en arrays ordenats: el node d'un rang {@code [inici, fi)} és el del mig,
+ * i els dos subarbres són les dues meitats.
+ *
+ * @param <T> el tipus dels valors associats als punts.
+ */
+public final class ArbreKd<T> {
+
+    /** Radi mitjà de la Terra, en quilòmetres. */
+    public static final double RADI_TERRA_KM = 6371.0088;
+
+    /**
+     * Valor trobat i la seva distància al punt de la cerca (sobre la superfície, en quilòmetres).
+     */
+    public record Proper<T>(T valor, double distanciaKm) {}
+
+    private final Object[] valors;
+    private final double[][] punts;
+
+    private ArbreKd(Object[] valors, double[][] punts) {
+        this.valors = valors;
+        this.punts = punts;
+    }
+
+    /**
+     * Construeix l'arbre.
+     *
+     * @param valors els valors.
+     * @param latitud la latitud de cada valor, en graus.
+     * @param longitud la longitud de cada valor, en graus.
+     * @return l'arbre.
+     */
+    public static <T> ArbreKd<T> construir(List<T> valors, ToDoubleFunction<T> latitud, ToDoubleFunction<T> longitud) {
+        Integer[] ordre = new Integer[valors.size()];
+        double[][] vectors = new double[valors.size()][];
+        for (int i = 0; i < valors.size(); i++) {
+            ordre[i] = i;
+            vectors[i] = vector(latitud.applyAsDouble(valors.get(i)), longitud.applyAsDouble(valors.get(i)));
+        }
+        ordenar(ordre, vectors, 0, ordre.length, 0);
+
+        Object[] valorsArbre = new Object[ordre.length];
+        double[][] puntsArbre = new double[ordre.length][];
+        for (int i = 0; i < ordre.length; i++) {
+            valorsArbre[i] = valors.get(ordre[i]);
+            puntsArbre[i] = vectors[ordre[i]];
+        }
+        return new ArbreKd<>(valorsArbre, puntsArbre);
+    }
+
+    /**
+     * Ordena recursivament el rang perquè el punt del mig sigui la mediana de l'eix del nivell.
+     */
+    private static void ordenar(Integer[] ordre, double[][] vectors, int inici, int fi, int eix) {
+        if (fi - inici <= 1) {
+            return;
+        }
+        Arrays.sort(ordre, inici, fi, Comparator.comparingDouble(i -> vectors[i][eix]));
+        int mig = (inici + fi) >>> 1;
+        ordenar(ordre, vectors, inici, mig, (eix + 1) % 3);
+        ordenar(ordre, vectors, mig + 1, fi, (eix + 1) % 3);
+    }
+
+    /**
+     * Busca els valors més propers a un punt dins d'un radi.
+     *
+     * @param latitud latitud del punt, en graus.
+     * @param longitud longitud del punt, en graus.
+     * @param radiKm distància màxima, en quilòmetres.
+     * @param limit nombre màxim de resultats.
+     * @return els valors dins del radi, del més proper al més llunyà.
+     */
+    public List<Proper<T>> propers(double latitud, double longitud, double radiKm, int limit) {
+        if (limit <= 0 || radiKm < 0) {
+            return List.of();
+        }
+        Cerca cerca = new Cerca(vector(latitud, longitud), corda(radiKm), limit);
+        buscar(cerca, 0, punts.length, 0);
+
+        List<Proper<T>> resultat = new ArrayList<>(cerca.millors.size());
+        while (!cerca.millors.isEmpty()) {
+            Candidat candidat = cerca.millors.poll();
+            resultat.add(new Proper<>(valor(candidat.posicio()), distanciaKm(Math.sqrt(candidat.corda2()))));
+        }
+        return resultat.reversed();
+    }
+
+    /**
+     * Distància entre dos punts sobre la superfície de la Terra (com a esfera), en quilòmetres.
+     */
+    public static double distanciaKm(double latitud1, double longitud1, double latitud2, double longitud2) {
+        return distanciaKm(Math.sqrt(corda2(vector(latitud1, longitud1), vector(latitud2, longitud2))));
+    }
+
+    /**
+     * Nombre de punts de l'arbre.
+     */
+    public int mida() {
+        return punts.length;
+    }
+
+    private void buscar(Cerca cerca, int inici, int fi, int eix) {
+        if (inici >= fi) {
+            return;
+        }
+        int mig = (inici + fi) >>> 1;
+        double[] punt = punts[mig];
+        double corda2 = corda2(cerca.punt, punt);
+        if (corda2 <= cerca.limit2()) {
+            cerca.afegir(new Candidat(mig, corda2));
+        }
+
+        double diferencia = cerca.punt[eix] - punt[eix];
+        int seguent = (eix + 1) % 3;
+        if (diferencia < 0) {
+            buscar(cerca, inici, mig, seguent);
+            if (diferencia * diferencia <= cerca.limit2()) {
+                buscar(cerca, mig + 1, fi, seguent);
+            }
+        } else {
+            buscar(cerca, mig + 1, fi, seguent);
+            if (diferencia * diferencia <= cerca.limit2()) {
+                buscar(cerca, inici, mig, seguent);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T valor(int posicio) {
+        return (T) valors[posicio];
+    }
+
+    /**
+     * Punt candidat (posició a l'arbre) i quadrat de la corda fins al punt de la cerca.
+     */
+    private record Candidat(int posicio, double corda2) {}
+
+    /**
+     * Estat d'una cerca: els millors candidats en un heap amb el més llunyà al cap.
+     */
+    private static final class Cerca {
+        private final double[] punt;
+        private final double radi2;
+        private final int limit;
+        private final PriorityQueue<Candidat> millors =
+            new PriorityQueue<>(Comparator.comparingDouble(Candidat::corda2).reversed());
+
+        private Cerca(double[] punt, double corda, int limit) {
+            this.punt = punt;
+            this.radi2 = corda * corda;
+            this.limit = limit;
+        }
+
+        /** Quadrat de la corda màxima que encara pot entrar als resultats. */
+        private double limit2() {
+            return millors.size() < limit ? radi2 : millors.peek().corda2();
+        }
+
+        private void afegir(Candidat candidat) {
+            millors.add(candidat);
+            if (millors.size() > limit) {
+                millors.poll();
+            }
+        }
+    }
+
+    static double[] vector(double latitud, double longitud) {
+        double fi = Math.toRadians(latitud);
+        double lambda = Math.toRadians(longitud);
+        return new double[] {Math.cos(fi) * Math.cos(lambda), Math.cos(fi) * Math.sin(lambda), Math.sin(fi)};
+    }
+
+    static double corda2(double[] a, double[] b) {
+        double dx = a[0] - b[0];
+        double dy = a[1] - b[1];
+        double dz = a[2] - b[2];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /** Corda d'una distància sobre la superfície (com a màxim, el diàmetre). */
+    static double corda(double distanciaKm) {
+        return 2 * Math.sin(Math.min(distanciaKm / RADI_TERRA_KM, Math.PI) / 2);
+    }
+
+    /** Distància sobre la superfície d'una corda. */
+    static double distanciaKm(double corda) {
+        return 2 * RADI_TERRA_KM * Math.asin(Math.min(1, corda / 2));
+    }
+}
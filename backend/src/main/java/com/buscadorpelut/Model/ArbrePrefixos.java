@@ -0,0 +1,131 @@
+package com.buscadorpelut.Model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arbre de prefixos (<i>trie</i>) immutable que associa claus de text a valors, per a l'autocompletat.
+ *
+ * <p>Cada node guarda ja ordenats els millors valors de les claus que comencen pel seu prefix
+ * (com a màxim {@code maxim}), de manera que una consulta només recorre tants nodes com caràcters té
+ * el prefix i copia una llista curta, independentment del nombre de claus.
+ *
+ * <p>Un valor es pot afegir amb diverses claus (per exemple, una per cada paraula del nom). Els valors
+ * que comencen exactament pel prefix (clau d'inici) van davant dels que només hi coincideixen a partir
+ * d'una paraula; dins de cada grup, s'ordenen amb el comparador del {@link Constructor}.
+ *
+ * <p>Les claus han d'estar ja normalitzades (per exemple, amb {@link ClauCerca}).
+ *
+ * @param <T> el tipus dels valors.
+ */
+public final class ArbrePrefixos<T> {
+
+    private final Node<T> arrel;
+
+    private ArbrePrefixos(Node<T> arrel) {
+        this.arrel = arrel;
+    }
+
+    /**
+     * Crea un constructor d'arbres.
+     *
+     * @param ordre ordre dels valors amb el mateix tipus de coincidència.
+     * @param maxim nombre màxim de valors que es guarden per prefix.
+     * @return el constructor.
+     */
+    public static <T> Constructor<T> constructor(Comparator<? super T> ordre, int maxim) {
+        return new Constructor<>(ordre, maxim);
+    }
+
+    /**
+     * Retorna els millors valors amb alguna clau que comença pel prefix.
+     *
+     * @param prefix el prefix, normalitzat igual que les claus.
+     * @param limit nombre màxim de valors (com a molt, el màxim de l'arbre).
+     * @return els valors, ordenats; buida si cap clau comença pel prefix.
+     */
+    public List<T> buscar(String prefix, int limit) {
+        Node<T> node = arrel;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.fills.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        return node.millors.size() <= limit ? node.millors : node.millors.subList(0, limit);
+    }
+
+    /**
+     * Node de l'arbre. Mentre es construeix, {@code valors} acumula tots els valors del prefix;
+     * després només en queden els millors a {@code millors}.
+     */
+    private static final class Node<T> {
+        private final Map<Character, Node<T>> fills = new HashMap<>();
+        private Map<T, Boolean> valors = new LinkedHashMap<>();
+        private List<T> millors = List.of();
+    }
+
+    /**
+     * Constructor d'un {@link ArbrePrefixos}. No és segur entre fils; l'arbre resultant sí.
+     *
+     * @param <T> el tipus dels valors.
+     */
+    public static final class Constructor<T> {
+
+        private final Comparator<? super T> ordre;
+        private final int maxim;
+        private final Node<T> arrel = new Node<>();
+
+        private Constructor(Comparator<? super T> ordre, int maxim) {
+            this.ordre = ordre;
+            this.maxim = maxim;
+        }
+
+        /**
+         * Afegeix un valor a tots els prefixos d'una clau.
+         *
+         * @param clau la clau normalitzada (les claus {@code null} o buides s'ignoren).
+         * @param valor el valor.
+         * @param inici si la clau és el començament del valor (i no una paraula del mig).
+         * @return aquest constructor.
+         */
+        public Constructor<T> afegir(String clau, T valor, boolean inici) {
+            if (clau == null || clau.isEmpty()) {
+                return this;
+            }
+            Node<T> node = arrel;
+            for (int i = 0; i < clau.length(); i++) {
+                node = node.fills.computeIfAbsent(clau.charAt(i), c -> new Node<>());
+                node.valors.merge(valor, inici, Boolean::logicalOr);
+            }
+            return this;
+        }
+
+        /**
+         * Ordena els valors de cada prefix, en conserva els millors i retorna l'arbre.
+         * El constructor no es pot tornar a fer servir.
+         *
+         * @return l'arbre.
+         */
+        public ArbrePrefixos<T> construir() {
+            Comparator<Map.Entry<T, Boolean>> perInici = Map.Entry.comparingByValue(Comparator.reverseOrder());
+            Comparator<Map.Entry<T, Boolean>> comparador = perInici.thenComparing(Map.Entry.comparingByKey(ordre));
+            List<Node<T>> pendents = new ArrayList<>(List.of(arrel));
+            while (!pendents.isEmpty()) {
+                Node<T> node = pendents.remove(pendents.size() - 1);
+                node.millors = node.valors.entrySet().stream()
+                    .sorted(comparador)
+                    .limit(maxim)
+                    .map(Map.Entry::getKey)
+                    .toList();
+                node.valors = null;
+                pendents.addAll(node.fills.values());
+            }
+            return new ArbrePrefixos<>(arrel);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.buscadorpelut.Model;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * Franges d'edat dels animals que es mostren com a facetes a la cerca.
+ *
+ * <p>Els límits són en mesos i coincideixen amb els paràmetres {@code edatMin} i {@code edatMax}
+ * de la cerca, de manera que el frontend pot filtrar per una franja enviant-ne els límits.
+ */
+public enum BandaEdat {
+
+    CADELL(0, 11),// Menys d'un any.
+    JOVE(12, 35),// D'un a tres anys.
+    ADULT(36, 95),// De tres a vuit anys.
+    SENIOR(96, null);// Vuit anys o més.
+
+    private final int edatMin;
+    private final Integer edatMax;
+
+    BandaEdat(int edatMin, Integer edatMax) {
+        this.edatMin = edatMin;
+        this.edatMax = edatMax;
+    }
+
+    /**Edat mínima de la franja, en mesos (inclosa).*/
+    public int getEdatMin() {
+        return edatMin;
+    }
+
+    /**Edat màxima de la franja, en mesos (inclosa), o {@code null} si no té límit.*/
+    public Integer getEdatMax() {
+        return edatMax;
+    }
+
+    /**
+     * Calcula la franja d'edat d'un animal en un dia concret.
+     *
+     * @param dataNeix data de naixement de l'animal (pot ser {@code null}).
+     * @param avui el dia de referència.
+     * @return la franja, o {@code null} si la data de naixement és desconeguda o posterior a {@code avui}.
+     */
+    public static BandaEdat de(Date dataNeix, LocalDate avui) {
+        if (dataNeix == null || dataNeix.toLocalDate().isAfter(avui)) {
+            return null;
+        }
+        long mesos = Period.between(dataNeix.toLocalDate(), avui).toTotalMonths();
+        for (BandaEdat banda : values()) {
+            if (mesos >= banda.edatMin && (banda.edatMax == null || mesos <= banda.edatMax)) {
+                return banda;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,90 @@
+package com.buscadorpelut.Model;
+
+import java.util.Locale;
+
+/**
+ * Rectangle de coordenades geogràfiques (en graus), per filtrar protectores per zona.
+ *
+ * <p>Els límits són inclosos i la caixa no pot travessar el meridià 180 ({@code lonMin <= lonMax}).
+ *
+ * @param latMin latitud mínima (sud).
+ * @param lonMin longitud mínima (oest).
+ * @param latMax latitud màxima (nord).
+ * @param lonMax longitud màxima (est).
+ */
+public record CaixaGeo(double latMin, double lonMin, double latMax, double lonMax) {
+
+    /**
+     * Calcula la caixa més petita que conté el cercle d'un radi al voltant d'un punt.
+     *
+     * <p>L'amplada en longitud és l'exacta per a una esfera: {@code asin(sin(r / R) / cos(latitud))}.
+     *
+     * @param latitud latitud del centre, en graus.
+     * @param longitud longitud del centre, en graus.
+     * @param radiKm radi del cercle, en quilòmetres.
+     * @return la caixa, o {@code null} si el cercle inclou un pol o travessa el meridià 180
+     *         (i no es pot representar amb una sola caixa).
+     */
+    public static CaixaGeo alVoltant(double latitud, double longitud, double radiKm) {
+        double angle = radiKm / ArbreKd.RADI_TERRA_KM;
+        double dLat = Math.toDegrees(angle);
+        double sinus = Math.sin(angle) / Math.cos(Math.toRadians(latitud));
+        if (angle >= Math.PI / 2 || sinus >= 1 || latitud + dLat >= 90 || latitud - dLat <= -90) {
+            return null;
+        }
+        double dLon = Math.toDegrees(Math.asin(sinus));
+        if (longitud - dLon < -180 || longitud + dLon > 180) {
+            return null;
+        }
+        return new CaixaGeo(latitud - dLat, longitud - dLon, latitud + dLat, longitud + dLon);
+    }
+
+    /**
+     * Interpreta una zona del mapa en el format {@code oest,sud,est,nord} (en graus), el de
+     * {@code getBounds().toBBoxString()} de Leaflet.
+     *
+     * <p>Les longituds fora de [-180, 180] (quan el mapa s'ha desplaçat més enllà del meridià 180)
+     * es limiten a aquest interval.
+     *
+     * @param bbox la zona, per exemple {@code 0.15,40.52,3.33,42.86}.
+     * @return la caixa, o {@code null} si el text no té quatre nombres o la zona no és vàlida.
+     */
+    public static CaixaGeo bbox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            return null;
+        }
+        double[] valors = new double[4];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                valors[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        double oest = Math.max(-180, valors[0]);
+        double est = Math.min(180, valors[2]);
+        if (!(oest <= est) || !(-90 <= valors[1] && valors[1] <= valors[3] && valors[3] <= 90)) {
+            return null;
+        }
+        return new CaixaGeo(valors[1], oest, valors[3], est);
+    }
+
+    /**
+     * Indica si un punt és dins de la caixa.
+     */
+    public boolean conte(double latitud, double longitud) {
+        return latitud >= latMin && latitud <= latMax && longitud >= lonMin && longitud <= lonMax;
+    }
+
+    /**
+     * Representació WKT de la caixa com a polígon, amb l'ordre d'eixos longitud-latitud
+     * (per a {@code ST_GeomFromText(wkt, 4326, 'axis-order=long-lat')}).
+     *
+     * @return el polígon, per exemple {@code POLYGON((0.5000000 40.5000000, 3.3000000 40.5000000, ...))}.
+     */
+    public String wkt() {
+        return String.format(Locale.ROOT, "POLYGON((%1$.7f %2$.7f, %3$.7f %2$.7f, %3$.7f %4$.7f, %1$.7f %4$.7f, %1$.7f %2$.7f))",
+            lonMin, latMin, lonMax, latMax);
+    }
+}
@@ -0,0 +1,46 @@
+package com.buscadorpelut.Model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Normalització dels valors de text que es fan servir com a claus de cerca
+ * (espècie, província, localitat i codi postal).
+ *
+ * <p>La clau normalitzada no té accents ni majúscules, i els espais sobrants s'eliminen,
+ * de manera que "Exòtic", "exotic" i " EXÒTIC " donen la mateixa clau "exotic".
+ * Les entitats guarden aquestes claus en columnes pròpies amb índex, i les cerques
+ * comparen la clau de l'entrada de l'usuari amb igualtat exacta sobre aquestes columnes.
+ */
+public final class ClauCerca {
+
+    private ClauCerca() {
+    }
+
+    /**
+     * Calcula la clau de cerca d'un text.
+     *
+     * @param valor text original (pot ser {@code null}).
+     * @return el text sense accents, en minúscules i amb els espais compactats,
+     *         o {@code null} si el valor és {@code null} o en blanc.
+     */
+    public static String normalitzar(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        String senseAccents = Normalizer.normalize(valor.trim(), Normalizer.Form.NFD)
+            .replaceAll("\\p{M}", "");
+        return senseAccents.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Calcula la clau de cerca d'un codi postal: sense espais interns ("08 031" → "08031").
+     *
+     * @param codiPostal codi postal original (pot ser {@code null}).
+     * @return el codi postal normalitzat, o {@code null} si és {@code null} o en blanc.
+     */
+    public static String normalitzarCodiPostal(String codiPostal) {
+        String clau = normalitzar(codiPostal);
+        return clau == null ? null : clau.replace(" ", "");
+    }
+}
@@ -0,0 +1,101 @@
+package com.buscadorpelut.Model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Graella immutable de punts geogràfics (latitud i longitud en graus), per trobar el punt més proper
+ * a unes coordenades que poden no ser exactes (arrodonides o reprojectades), dins d'una tolerància.
+ *
+ * <p>Com a {@link ArbreKd}, cada punt es guarda com a vector unitari (x, y, z), i l'espai es divideix en
+ * cubs de costat igual a la corda de la tolerància. Un punt dins de la tolerància només pot ser al cub
+ * de la consulta o a un dels 26 veïns, de manera que una cerca són 27 consultes a un {@link HashMap},
+ * sigui quin sigui el nombre de punts, i sense casos especials prop dels pols ni del meridià 180.
+ *
+ * @param <T> el tipus dels valors associats als punts.
+ */
+public final class GraellaGeo<T> {
+
+    /** Índexs d'un cub de la graella. */
+    private record Cub(int x, int y, int z) {}
+
+    /** Valor, el seu vector unitari i la seva posició a la llista de construcció. */
+    private record Punt<T>(T valor, double[] vector, int ordre) {}
+
+    private final double costat;
+    private final Map<Cub, List<Punt<T>>> cubs;
+
+    private GraellaGeo(double costat, Map<Cub, List<Punt<T>>> cubs) {
+        this.costat = costat;
+        this.cubs = cubs;
+    }
+
+    /**
+     * Construeix la graella.
+     *
+     * @param valors els valors.
+     * @param latitud la latitud de cada valor, en graus.
+     * @param longitud la longitud de cada valor, en graus.
+     * @param toleranciaKm distància màxima entre unes coordenades i el punt trobat, en quilòmetres.
+     * @return la graella.
+     * @throws IllegalArgumentException si la tolerància no és positiva.
+     */
+    public static <T> GraellaGeo<T> construir(List<T> valors, ToDoubleFunction<T> latitud, ToDoubleFunction<T> longitud,
+            double toleranciaKm) {
+        if (!(toleranciaKm > 0)) {
+            throw new IllegalArgumentException("La tolerància ha de ser positiva: " + toleranciaKm);
+        }
+        double costat = ArbreKd.corda(toleranciaKm);
+        Map<Cub, List<Punt<T>>> cubs = new HashMap<>();
+        for (int i = 0; i < valors.size(); i++) {
+            T valor = valors.get(i);
+            double[] vector = ArbreKd.vector(latitud.applyAsDouble(valor), longitud.applyAsDouble(valor));
+            cubs.computeIfAbsent(cub(vector, costat, 0, 0, 0), cub -> new ArrayList<>()).add(new Punt<>(valor, vector, i));
+        }
+        cubs.replaceAll((cub, punts) -> List.copyOf(punts));
+        return new GraellaGeo<>(costat, Map.copyOf(cubs));
+    }
+
+    /**
+     * Busca el valor més proper a unes coordenades, dins de la tolerància.
+     *
+     * @param latitud latitud, en graus.
+     * @param longitud longitud, en graus.
+     * @return el valor més proper, o buit si no n'hi ha cap dins de la tolerància.
+     *         Entre dos valors a la mateixa distància, el primer de la llista de construcció.
+     */
+    public Optional<T> mesProper(double latitud, double longitud) {
+        double[] vector = ArbreKd.vector(latitud, longitud);
+        double limit2 = costat * costat;
+        Punt<T> millor = null;
+        double millor2 = Double.POSITIVE_INFINITY;
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    List<Punt<T>> punts = cubs.get(cub(vector, costat, dx, dy, dz));
+                    if (punts == null) {
+                        continue;
+                    }
+                    for (Punt<T> punt : punts) {
+                        double corda2 = ArbreKd.corda2(vector, punt.vector());
+                        if (corda2 <= limit2
+                                && (corda2 < millor2 || (corda2 == millor2 && punt.ordre() < millor.ordre()))) {
+                            millor = punt;
+                            millor2 = corda2;
+                        }
+                    }
+                }
+            }
+        }
+        return Optional.ofNullable(millor).map(Punt::valor);
+    }
+
+    private static Cub cub(double[] vector, double costat, int dx, int dy, int dz) {
+        return new Cub((int) Math.floor(vector[0] / costat) + dx, (int) Math.floor(vector[1] / costat) + dy,
+            (int) Math.floor(vector[2] / costat) + dz);
+    }
+}
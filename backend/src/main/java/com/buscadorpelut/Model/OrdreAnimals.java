@@ -0,0 +1,64 @@
+package com.buscadorpelut.Model;
+
+import java.util.Locale;
+
+/**
+ * Ordres de resultats que admet la cerca d'animals (paràmetre {@code sort}).
+ *
+ * <p>És la llista blanca de camps pels quals es pot ordenar: el valor del paràmetre mai arriba a la
+ * consulta, només el camp de l'entitat {@link Animal} associat a l'ordre. Cada ordre acaba en
+ * {@code numId} (en el mateix sentit) per desempatar i paginar per cursor, i té un índex compost
+ * {@code (adoptat, especie_clau, camp, numId)} a {@link Animal}, de manera que ordenar i limitar
+ * és un recorregut de rang de l'índex.
+ */
+public enum OrdreAnimals {
+
+    ARRIBADA("arribada", null, true),// Per ordre d'alta (numId ascendent). És l'ordre per defecte.
+    RECENTS("recents", null, false),// Les últimes altes primer (numId descendent).
+    JOVES("joves", "dataNeix", false),// Els més joves primer (dataNeix descendent).
+    NOM("nom", "nomAn", true);// Alfabètic pel nom de l'animal.
+
+    private final String parametre;
+    private final String camp;
+    private final boolean ascendent;
+
+    OrdreAnimals(String parametre, String camp, boolean ascendent) {
+        this.parametre = parametre;
+        this.camp = camp;
+        this.ascendent = ascendent;
+    }
+
+    /**Valor del paràmetre {@code sort} que selecciona aquest ordre.*/
+    public String getParametre() {
+        return parametre;
+    }
+
+    /**Camp de {@link Animal} pel qual s'ordena abans de {@code numId}, o {@code null} si només s'ordena per {@code numId}.*/
+    public String getCamp() {
+        return camp;
+    }
+
+    /**Si l'ordre és ascendent (també per a {@code numId}).*/
+    public boolean isAscendent() {
+        return ascendent;
+    }
+
+    /**
+     * Tradueix el paràmetre {@code sort} (sense distingir majúscules).
+     *
+     * @param sort el valor del paràmetre; si és {@code null} o buit, s'aplica {@link #ARRIBADA}.
+     * @return l'ordre, o {@code null} si el valor no és a la llista blanca.
+     */
+    public static OrdreAnimals de(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return ARRIBADA;
+        }
+        String valor = sort.strip().toLowerCase(Locale.ROOT);
+        for (OrdreAnimals ordre : values()) {
+            if (ordre.parametre.equals(valor)) {
+                return ordre;
+            }
+        }
+        return null;
+    }
+}
@@ -2,12 +2,17 @@ package com.buscadorpelut.Model;
 
 import java.io.Serializable;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import io.micrometer.common.lang.NonNull;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 
 /**
@@ -16,9 +21,17 @@ import jakarta.persistence.Table;
  * Mapeja la taula "protectora" i conté els atributs persistents de la protectora.
  * Aquesta classe forma part del model de domini i s’utilitza tant en 
  * la capa de persistència i servei com en la capa de vista.
+ *
+ * Les cerques per província, localitat i codi postal es fan sobre les columnes "*_clau"
+ * (vegeu {@link ClauCerca}), indexades i calculades automàticament abans de cada
+ * inserció o actualització.
  */
 @Entity
-@Table(name = "protectora")
+@Table(name = "protectora", indexes = {
+    @Index(name = "idx_protectora_provincia_clau", columnList = "provincia_clau"),
+    @Index(name = "idx_protectora_codiPostal_clau", columnList = "codiPostal_clau"),
+    @Index(name = "idx_protectora_localitat_clau", columnList = "localitat_clau")
+})
 public class Protectora implements Serializable{
     /** Atributs i mètodes de la classe Protectora*/
     private static final long serialVersionUID = 1L;
@@ -45,6 +58,18 @@ public class Protectora implements Serializable{
     @Column(name = "provincia")
     private String provincia; /**Provincia on es troba la protectora.*/
 
+    @JsonIgnore
+    @Column(name = "codiPostal_clau")
+    private String codiPostalClau; /**Clau de cerca del codi postal. Es calcula en guardar.*/
+
+    @JsonIgnore
+    @Column(name = "localitat_clau")
+    private String localitatClau; /**Clau de cerca de la localitat. Es calcula en guardar.*/
+
+    @JsonIgnore
+    @Column(name = "provincia_clau")
+    private String provinciaClau; /**Clau de cerca de la província. Es calcula en guardar.*/
+
     @Column(name = "url")
     private String url; /**Pàgina web de la protectora.*/
 
@@ -194,4 +219,32 @@ public class Protectora implements Serializable{
     public void setEmailProt(String emailProt) {
         this.emailProt = emailProt;
     }
-}
\ No newline at end of file
+
+    /**Claus de cerca*/
+    @JsonIgnore
+    public String getCodiPostalClau() {
+        return codiPostalClau;
+    }
+
+    @JsonIgnore
+    public String getLocalitatClau() {
+        return localitatClau;
+    }
+
+    @JsonIgnore
+    public String getProvinciaClau() {
+        return provinciaClau;
+    }
+
+    /**
+     * Recalcula les claus de cerca a partir dels valors actuals.
+     * JPA la crida automàticament abans d'inserir o actualitzar la protectora.
+     */
+    @PrePersist
+    @PreUpdate
+    public void actualitzarClaus() {
+        this.codiPostalClau = ClauCerca.normalitzarCodiPostal(this.codiPostal);
+        this.localitatClau = ClauCerca.normalitzar(this.localitat);
+        this.provinciaClau = ClauCerca.normalitzar(this.provincia);
+    }
+}
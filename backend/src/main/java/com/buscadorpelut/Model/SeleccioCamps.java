@@ -0,0 +1,119 @@
+package com.buscadorpelut.Model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Camps que demana el client amb el paràmetre {@code fields} (per exemple, {@code fields=nomAn,fotoPerfil}),
+ * per retornar només una part d'un {@link Animal} o d'una {@link Protectora}.
+ *
+ * <p>Com {@link OrdreAnimals}, és una llista blanca: els noms són les propietats JSON de l'entitat i
+ * mai arriben a la consulta tal com els escriu el client. La consulta només selecciona les columnes
+ * d'aquests camps i la resposta només els conté.
+ *
+ * <p>Per a un animal, {@code protectora} retorna tota la protectora i {@code protectora.<camp>} només
+ * els camps indicats (per exemple, {@code fields=nomAn,protectora.nomProt}).
+ */
+public final class SeleccioCamps {
+
+    /** Propietats JSON d'un {@link Animal} que es poden demanar. */
+    public static final List<String> CAMPS_ANIMAL = List.of("numId", "nomAn", "dataNeix", "edat", "sexe", "especie",
+        "numXip", "esAdoptat", "dataAdopcio", "descripcio", "fotoPerfil", "localitatProtectora", "protectora");
+
+    /** Propietats JSON d'una {@link Protectora} que es poden demanar. */
+    public static final List<String> CAMPS_PROTECTORA = List.of("codiProt", "nomProt", "adresa", "codiPostal",
+        "localitat", "provincia", "url", "longitud", "latitud", "tlfProt", "emailProt");
+
+    /** Prefix dels camps de la protectora d'un animal (ex: "protectora.nomProt"). */
+    private static final String PREFIX_PROTECTORA = "protectora.";
+
+    private final List<String> camps;
+    private final List<String> campsProtectora;
+
+    private SeleccioCamps(List<String> camps, List<String> campsProtectora) {
+        this.camps = camps;
+        this.campsProtectora = campsProtectora;
+    }
+
+    /**
+     * Tradueix el paràmetre {@code fields} d'un animal.
+     *
+     * @param fields noms separats per comes (es descarten els espais i els repetits).
+     * @return la selecció, o {@code null} si és buida o algun nom no és a {@link #CAMPS_ANIMAL}
+     *         (ni és {@code protectora.} seguit d'un camp de {@link #CAMPS_PROTECTORA}).
+     */
+    public static SeleccioCamps animal(String fields) {
+        Set<String> camps = new LinkedHashSet<>();
+        Set<String> campsProtectora = new LinkedHashSet<>();
+        for (String camp : separar(fields)) {
+            if (camp.startsWith(PREFIX_PROTECTORA)) {
+                String campProtectora = camp.substring(PREFIX_PROTECTORA.length());
+                if (!CAMPS_PROTECTORA.contains(campProtectora)) {
+                    return null;
+                }
+                camps.add("protectora");
+                campsProtectora.add(campProtectora);
+            } else if (CAMPS_ANIMAL.contains(camp)) {
+                camps.add(camp);
+                if (camp.equals("protectora")) {
+                    campsProtectora.addAll(CAMPS_PROTECTORA);
+                }
+            } else {
+                return null;
+            }
+        }
+        return camps.isEmpty() ? null : new SeleccioCamps(List.copyOf(camps), ordenar(campsProtectora));
+    }
+
+    /**
+     * Tradueix el paràmetre {@code fields} d'una protectora.
+     *
+     * @param fields noms separats per comes (es descarten els espais i els repetits).
+     * @return la selecció, o {@code null} si és buida o algun nom no és a {@link #CAMPS_PROTECTORA}.
+     */
+    public static SeleccioCamps protectora(String fields) {
+        Set<String> camps = new LinkedHashSet<>(separar(fields));
+        if (camps.isEmpty() || !CAMPS_PROTECTORA.containsAll(camps)) {
+            return null;
+        }
+        return new SeleccioCamps(List.copyOf(camps), List.of());
+    }
+
+    /**Camps demanats, en l'ordre del paràmetre (és l'ordre de les propietats a la resposta).*/
+    public List<String> getCamps() {
+        return camps;
+    }
+
+    /**Camps demanats de la protectora de l'animal, en l'ordre de {@link #CAMPS_PROTECTORA}. Buit si no se'n demana cap.*/
+    public List<String> getCampsProtectora() {
+        return campsProtectora;
+    }
+
+    /**
+     * Indica si la consulta ha d'arribar a la taula {@code protectora}.
+     *
+     * @return {@code true} si es demana la protectora o la seva localitat.
+     */
+    public boolean necessitaProtectora() {
+        return !campsProtectora.isEmpty() || camps.contains("localitatProtectora");
+    }
+
+    private static List<String> separar(String fields) {
+        List<String> camps = new ArrayList<>();
+        if (fields == null) {
+            return camps;
+        }
+        for (String camp : fields.split(",")) {
+            if (!camp.isBlank()) {
+                camps.add(camp.strip());
+            }
+        }
+        return camps;
+    }
+
+    private static List<String> ordenar(Set<String> campsProtectora) {
+        return CAMPS_PROTECTORA.stream().filter(campsProtectora::contains).toList();
+    }
+}
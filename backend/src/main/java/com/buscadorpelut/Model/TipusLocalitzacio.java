@@ -0,0 +1,16 @@
+package com.buscadorpelut.Model;
+
+/**
+ * Tipus de valor que pot suggerir l'autocompletat de localitzacions
+ * ({@code GET /api/localitzacions/suggest}).
+ *
+ * <p>L'ordre de declaració és el de preferència quan dos suggeriments tenen el mateix nombre de
+ * protectores, i cada tipus es correspon amb un paràmetre de cerca de {@code /api/protectores}.
+ */
+public enum TipusLocalitzacio {
+
+    PROVINCIA,// Província d'alguna protectora (paràmetre provincia).
+    LOCALITAT,// Localitat d'alguna protectora (paràmetre localitat).
+    CODI_POSTAL,// Codi postal d'alguna protectora (paràmetre codiPostal).
+    PROTECTORA;// Nom d'una protectora (el suggeriment porta el seu codiProt).
+}
@@ -1,14 +1,19 @@
 package com.buscadorpelut.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.AnimalIndexatDTO;
 import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.ClauCerca;
 
 /**
  * Repositori JPA per a l'entitat {@link Animal}.
@@ -21,167 +26,151 @@ import com.buscadorpelut.Model.Animal;
  * <p>Spring Data JPA genera automàticament la implementació d'aquests mètodes
  * en temps d'execució, basant-se en els noms dels mètodes i les anotacions.
  * 
+ * <p>Les cerques d'animals per criteris (espècie, sexe, edat, ubicació, protectora i estat
+ * d'adopció) es fan amb un únic mètode {@link AnimalRepositoryCustom#cercar} en lloc d'un
+ * mètode per cada combinació de filtres. Fa servir paginació per cursor (keyset) sobre
+ * {@code numId}: rep l'últim identificador ja retornat ({@code after}) i ordena sempre per
+ * {@code numId}, de manera que la base de dades salta directament a la posició del cursor.
+ * 
  * @author Luis Gil
  */
 @Repository
-public interface AnimalRepository extends JpaRepository<Animal,Long>{
+public interface AnimalRepository extends JpaRepository<Animal,Long>, AnimalRepositoryCustom{
 
     /**
      * Mètode per cercar tots els animals que pertanyen a una espècie específica.
      * 
-     * <p>La comparació és exacta, sensible a majúscules/minúscules i accents.
-     * Per exemple, {@code "gos"} no coincidirà amb {@code "Gos"}.
+     * <p>La comparació no distingeix majúscules ni accents: es fa sobre la columna indexada
+     * {@code especie_clau}. Per exemple, {@code "gos"} coincideix amb {@code "Gos"}.
      * 
      * @param especie el nom de l'espècie a cercar (ex: "Gos", "Gat", "Conill").
      * @return una llista d'objectes {@link Animal} que coincideixen amb l'espècie.
      *         La llista pot estar buida si no s'han trobat resultats.
      * 
+     * @see ClauCerca#normalitzar(String)
      */
-    List<Animal> findByEspecie(String especie);
+    default List<Animal> findByEspecie(String especie) {
+        return findByEspecieClau(ClauCerca.normalitzar(especie));
+    }
 
     /**
-     * Mètode per cercar tots els animals de les espècies que **no estan incloses**
-     * en la llista.
-     * 
-     * <p>S'utilitza per excloure certes espècies
-     * (per exemple, "Gos" i "Gat") i obtenir la resta (ex: animals exòtics).
-     * 
-     * @param especies una llista no buida de noms d'espècies a excloure.
-     * @return una llista d'animals que no pertanyen a cap de les espècies indicades.
-     *         Pot estar buida si tots els animals pertanyen a les espècies excloses.
+     * Mètode per cercar tots els animals per la clau de cerca normalitzada de l'espècie.
      * 
+     * @param especieClau l'espècie ja normalitzada amb {@link ClauCerca}.
+     * @return una llista d'objectes {@link Animal} amb aquesta clau. Pot estar buida.
      */
-    List<Animal> findByEspecieNotIn(List<String>especies);
+    List<Animal> findByEspecieClau(String especieClau);
 
     /**
-     * Mètode per mostrar tots els animals de les espècies Gat o Gos i que **no estan adoptats**.
+     * Mètode per cercar un animal per la seva ID i carregar també la seva protectora associada.
      * 
-     * @param especie el nom exacte de l'espècie a cercar (ex: "Gos", "Gat").
-     * @return una llista d'animals no adoptats de l'espècie seleccionada.
-     *         Pot estar buida si no n'hi ha cap disponible.
+     * @queryBy seleccionar un animal i la seva protectora segons la ID de l'animal.
+     * @param numId la ID única de l'animal.
+     * @ return un objecte {@link Optional} que conté l'animal amb la seva protectora si existeix,
+     *         o buit si no s'ha trobat cap animal amb aquesta ID.
      * 
+     * @see Animal#setProtectora(com.buscadorpelut.Model.Protectora)
      */
-    List<Animal> findByEspecieAndEsAdoptatFalse(String especie);
+    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora WHERE a.numId = :numId")
+    Optional<Animal> findByIdWithProtectora(@Param("numId") Long numId);
 
     /**
-     * Mètode per mostrar tots els animals amb les espècies que **no estan incloses** en la llista donada
-     * i que **no estan adoptats**.
+     * Mètode per carregar tots els animals disponibles (no adoptats) amb les claus de la seva protectora,
+     * per construir l'índex en memòria de cerca.
+     * 
+     * <p>És una projecció: no llegeix la descripció de l'animal.
      * 
-     * <p>Aquest mètode s'utilitza principalment per obtenir animals "exòtics"
-     * (és a dir, tot excepte "Gos" i "Gat") que estiguin disponibles per a adopció.
+     * @return una llista d'objectes {@link AnimalIndexatDTO}, un per cada animal disponible.
      * 
-     * @param especies una llista de noms d'espècies a excloure (ex: Arrays.asList("Gos", "Gat")).
-     * @return una llista d'animals no adoptats d'espècies diferents a les indicades.
-     *         Pot estar buida si no hi ha animals disponibles fora d'aquestes espècies.
+     * @see com.buscadorpelut.Service.IndexAnimals#reconstruir()
      */
-    List<Animal> findByEspecieNotInAndEsAdoptatFalse(List<String>especies);
+    @Query("SELECT new com.buscadorpelut.DTO.AnimalIndexatDTO(a.numId, a.nomAn, a.especie, a.sexe, a.dataNeix, a.fotoPerfil,"
+        + " a.especieClau, p.localitat, p.provincia, p.provinciaClau, p.codiPostalClau, p.codiProt)"
+        + " FROM Animal a LEFT JOIN a.protectora p WHERE a.esAdoptat = false")
+    List<AnimalIndexatDTO> findDisponiblesPerIndex();
 
     /**
-     * Mètode que retorna tots els animals del sistema que **no estan adoptats**.
+     * Mètode per carregar un animal disponible (no adoptat) amb les claus de la seva protectora,
+     * per actualitzar-lo a l'índex en memòria de cerca.
      * 
-     * <p>Aquest mètode s'utilitza per obtenir la llista completa d'animals disponibles
-     * per a adopció, independentment de l'espècie, edat o sexe.
+     * @param numId la ID única de l'animal.
+     * @return un objecte {@link Optional} amb l'animal si existeix i no està adoptat, o buit altrament.
      * 
-     * @return una llista d'animals no adoptats.
-     *         Pot estar buida si tots els animals ja han estat adoptats.
+     * @see com.buscadorpelut.Service.IndexAnimals#actualitzar(Long)
      */
-    List<Animal> findByEsAdoptatFalse();
+    @Query("SELECT new com.buscadorpelut.DTO.AnimalIndexatDTO(a.numId, a.nomAn, a.especie, a.sexe, a.dataNeix, a.fotoPerfil,"
+        + " a.especieClau, p.localitat, p.provincia, p.provinciaClau, p.codiPostalClau, p.codiProt)"
+        + " FROM Animal a LEFT JOIN a.protectora p WHERE a.esAdoptat = false AND a.numId = :numId")
+    Optional<AnimalIndexatDTO> findDisponiblePerIndex(@Param("numId") Long numId);
 
     /**
-     * Mètode que retorna tots els animals del sistema que **estan adoptats**.
+     * Mètode per comptar els animals disponibles (no adoptats) de cada protectora d'una llista,
+     * amb una sola consulta {@code GROUP BY}.
      * 
-     * <p>Aquest mètode s'utilitza per obtenir la llista completa d'animals que ja han estat adoptats.
+     * @param codisProt els codis de les protectores.
+     * @return una fila per cada protectora amb algun animal disponible: el codi ({@code Long}) i el nombre d'animals ({@code Long}).
      * 
-     * @return una llista d'animals adoptats.
-     *         Pot estar buida si cap animal ha estat adoptat encara.
+     * @see com.buscadorpelut.Service.MapaProtectores#clusters(com.buscadorpelut.Model.CaixaGeo, int)
      */
-    List<Animal> findByEsAdoptatTrue();
+    @Query("SELECT p.codiProt, COUNT(a) FROM Animal a JOIN a.protectora p"
+        + " WHERE a.esAdoptat = false AND p.codiProt IN :codisProt GROUP BY p.codiProt")
+    List<Object[]> countDisponiblesPerProtectora(@Param("codisProt") Collection<Long> codisProt);
 
     /**
-     * Mètode per cercar tots els animals que no estan adoptats i que pertanyen a protectores
-     * d'una determinada província.
-     * @queryBy selecionar animals no adoptats segons la província de la protectora.
-     * @param provincia la província de la protectora (ex: "Barcelona", "Madrid").
-     * @return una llista d'animals no adoptats de protectores en la província especificada.
-     *         La llista pot estar buida si no s'han trobat resultats.
+     * Mètode per carregar diversos animals pel seu identificador, amb la protectora, en una sola consulta {@code IN}.
      * 
-     * @see com.buscadorpelut.Model.Protectora#setProvincia(String)
-     */
-    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora p WHERE a.esAdoptat = false AND p.provincia = :provincia")
-    List<Animal> findNonAdoptedAnimalsByProtectoraProvincia(@Param("provincia") String provincia);
-    
-    /**
-     * Mètode per cercar tots els animals que no estan adoptats i que pertanyen a protectores
-     * d'un determinat codi postal.
+     * @param numIds els identificadors dels animals.
+     * @return els animals trobats, en qualsevol ordre. Els identificadors que no existeixen s'ignoren.
      * 
-     * @queryBy selecionar animals no adoptats segons el codi postal de la protectora.
-     * @param codiPostal el codi postal de la protectora (ex: "08001", "28013").
-     * @return una llista d'animals no adoptats de protectores en el codi postal especificat.
-     *         La llista pot estar buida si no s'han trobat resultats.
-     * 
-     * @see com.buscadorpelut.Model.Protectora#setCodiPostal(String)
+     * @see com.buscadorpelut.Service.AnimalService#getAnimalsByIds(List)
      */
-    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora p WHERE a.esAdoptat = false AND p.codiPostal = :codiPostal")
-    List<Animal> findNonAdoptedAnimalsByProtectoraCodiPostal(@Param("codiPostal") String codiPostal);
+    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora WHERE a.numId IN :numIds")
+    List<Animal> findAllByIdWithProtectora(@Param("numIds") Collection<Long> numIds);
 
     /**
-     * Mètode per cercar tots els animals que no estan adoptats i que pertanyen a protectores
-     * d'una determinada localització (província o codi postal).
-     * 
-     * @queryBy selecionar animals no adoptats segons la localització de la protectora, que pot ser 
-     * província o codi postal.
-     * @param localitzacio la localització de la protectora (pot ser província o codi postal).
-     * @return una llista d'animals no adoptats de protectores en la localització especificada.
-     *        La llista pot estar buida si no s'han trobat resultats.
-     *
-     * @see com.buscadorpelut.Model.Protectora#setProvincia(String)
+     * Mètode per obtenir les targetes dels animals adoptats més recentment.
+     * 
+     * <p>Ordena per {@code dataAdopcio} descendent (i {@code numId} en cas d'empat) i es resol recorrent
+     * l'índex {@code idx_animal_adoptat_dataAdopcio} des del final, de manera que el cost no depèn
+     * de la mida de l'historial d'adopcions. Els animals adoptats sense data queden al final.
+     * 
+     * @param limit el nombre màxim de targetes a retornar.
+     * @return les targetes {@link AnimalCardDTO} dels animals adoptats, de la més recent a la més antiga.
      */
-    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora p WHERE a.esAdoptat = false AND (p.provincia = :localitzacio OR p.codiPostal = :localitzacio)")
-    List<Animal> findNonAdoptedAnimalsByProtectoraLocalitzacio(@Param("localitzacio") String localitzacio);
+    @Query("SELECT new com.buscadorpelut.DTO.AnimalCardDTO(a.numId, a.nomAn, a.especie, a.sexe, a.dataNeix, a.fotoPerfil,"
+        + " coalesce(p.localitat, 'Desconeguda'))"
+        + " FROM Animal a LEFT JOIN a.protectora p WHERE a.esAdoptat = true"
+        + " ORDER BY a.dataAdopcio DESC, a.numId DESC")
+    List<AnimalCardDTO> findAdopcionsRecents(Limit limit);
 
     /**
-     * Mètode per cercar tots els animals que no estan adoptats, pertanyen a una espècie específica
-     * i que estan en protectores d'una determinada localització (província o codi postal).
-     * 
-     * @queryBy selecionar animals no adoptats segons l'espècie i la localització de la protectora,
-     * que pot ser província o codi postal.
-     * @param especie el nom exacte de l'espècie a cercar (ex: "Gos", "Gat").
-     * @param localitzacio la localització de la protectora (pot ser província o codi postal).
-     * @return una llista d'animals no adoptats de l'espècie seleccionada en la localització especificada.
-     *       La llista pot estar buida si no s'han trobat resultats.
-     * 
-     * @see com.buscadorpelut.Model.Protectora#setProvincia(String)
-     * @see com.buscadorpelut.Model.Protectora#setCodiPostal(String)
+     * Mètode per carregar tots els animals amb la seva protectora en una sola consulta,
+     * per construir l'índex de text lliure.
+     * 
+     * @return una llista de tots els animals amb la protectora carregada.
+     * 
+     * @see com.buscadorpelut.Service.CercaTextAnimals#reconstruir()
      */
-    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora p WHERE a.esAdoptat = false AND a.especie = :especie  AND (p.provincia = :localitzacio OR p.codiPostal = :localitzacio)")
-    List<Animal> findNonAdoptedAnimalsByEspecieAndLocalitzacio(@Param("especie") String especie, @Param("localitzacio") String localitzacio);
+    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora")
+    List<Animal> findAllWithProtectora();
 
     /**
-     * Mètode per cercar tots els animals d'espècies exòtiques (no Gos ni Gat) que no estan adoptats
-     * i que estan en protectores d'una determinada localització (província o codi postal).
+     * Mètode per carregar els animals d'una protectora, amb la protectora carregada.
      * 
-     * @queryBy selecionar animals exòtics no adoptats segons la localització de la protectora,
-     * que pot ser província o codi postal.
-     * @param localitzacio la localització de la protectora (pot ser província o codi postal).
-     * @return una llista d'animals exòtics no adoptats en la localització especificada.
-     *        La llista pot estar buida si no s'han trobat resultats.
+     * @param codiProt el codi de la protectora.
+     * @return una llista dels animals de la protectora. Pot estar buida.
      * 
-     * @see com.buscadorpelut.Model.Protectora#setProvincia(String)
-     * @see com.buscadorpelut.Model.Protectora#setCodiPostal(String)
+     * @see com.buscadorpelut.Service.CercaTextAnimals#indexarProtectora(Long)
      */
-    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora p WHERE a.esAdoptat = false AND a.especie NOT IN ('Gos','Gat')  AND (p.provincia = :localitzacio OR p.codiPostal = :localitzacio)")
-    List<Animal> findNonAdoptedExoticAnimalsByLocalitzacio(@Param("localitzacio") String localitzacio);
+    @Query("SELECT a FROM Animal a JOIN FETCH a.protectora p WHERE p.codiProt = :codiProt")
+    List<Animal> findByProtectoraWithProtectora(@Param("codiProt") Long codiProt);
 
     /**
-     * Mètode per cercar un animal per la seva ID i carregar també la seva protectora associada.
+     * Mètode per cercar els animals que encara no tenen calculada la clau de cerca de l'espècie
+     * (per exemple, files anteriors a la columna {@code especie_clau}).
      * 
-     * @queryBy seleccionar un animal i la seva protectora segons la ID de l'animal.
-     * @param numId la ID única de l'animal.
-     * @ return un objecte {@link Optional} que conté l'animal amb la seva protectora si existeix,
-     *         o buit si no s'ha trobat cap animal amb aquesta ID.
-     * 
-     * @see Animal#setProtectora(com.buscadorpelut.Model.Protectora)
+     * @return una llista d'animals sense clau. Buida si totes les claus estan calculades.
      */
-    @Query("SELECT a FROM Animal a LEFT JOIN FETCH a.protectora WHERE a.numId = :numId")
-    Optional<Animal> findByIdWithProtectora(@Param("numId") Long numId);
+    @Query("SELECT a FROM Animal a WHERE a.especieClau IS NULL AND a.especie IS NOT NULL")
+    List<Animal> findSenseClausCerca();
 }
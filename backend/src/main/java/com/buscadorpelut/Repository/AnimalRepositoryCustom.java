@@ -0,0 +1,67 @@
+package com.buscadorpelut.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FacetsDTO;
+import com.buscadorpelut.Model.SeleccioCamps;
+
+/**
+ * Fragment personalitzat de {@link AnimalRepository} per a la cerca d'animals per criteris.
+ *
+ * <p>Substitueix els antics mètodes amb un nom per cada combinació de filtres
+ * ({@code findByEspecieAndEsAdoptatFalse}, {@code findNonAdoptedExoticAnimalsByLocalitzacio}, etc.)
+ * per una única cerca que accepta qualsevol subconjunt de criteris.
+ *
+ * @see AnimalRepositoryCustomImpl
+ */
+public interface AnimalRepositoryCustom {
+
+    /**
+     * Cerca animals que compleixen tots els criteris informats del filtre, paginant per cursor.
+     *
+     * <p>Els resultats s'ordenen segons {@link FiltreAnimalsDTO#ordre()} i després per {@code numId}.
+     * El cursor sempre és el {@code numId} de l'últim animal retornat: si l'ordre és per un altre camp,
+     * es continua a partir del valor que aquest animal té en aquell camp.
+     *
+     * @param filtre criteris de cerca; els camps a {@code null} s'ignoren.
+     * @param after l'últim {@code numId} retornat a la pàgina anterior ({@code null} o 0 per a la primera pàgina).
+     * @param limit el nombre màxim d'animals a retornar.
+     * @return una llista de targetes d'animal (sense la descripció), en l'ordre demanat.
+     *         Pot estar buida si cap animal compleix els criteris o si l'animal del cursor ja no existeix.
+     */
+    List<AnimalCardDTO> cercar(FiltreAnimalsDTO filtre, Long after, int limit);
+
+    /**
+     * Compta els animals que compleixen tots els criteris informats del filtre, amb un {@code SELECT COUNT}
+     * que no llegeix les files (l'ordre i la paginació no hi intervenen).
+     *
+     * @param filtre criteris de cerca; els camps a {@code null} s'ignoren.
+     * @return el nombre d'animals que compleixen els criteris.
+     */
+    long comptar(FiltreAnimalsDTO filtre);
+
+    /**
+     * Llegeix només uns camps dels animals indicats (paràmetre {@code fields}), amb una sola consulta
+     * {@code IN} que selecciona les columnes d'aquests camps i cap més.
+     *
+     * @param numIds els identificadors dels animals.
+     * @param camps els camps a llegir.
+     * @return per a cada animal trobat, un map amb els camps demanats (noms de les propietats JSON i en l'ordre demanat).
+     *         Els animals que no existeixen no hi surten.
+     */
+    Map<Long, Map<String, Object>> llegirCamps(Collection<Long> numIds, SeleccioCamps camps);
+
+    /**
+     * Compta els animals que compleixen el filtre per espècie, província, sexe i franja d'edat.
+     *
+     * <p>Cada faceta és una única consulta {@code GROUP BY} (les franges d'edat, un {@code COUNT} per franja).
+     *
+     * @param filtre criteris de cerca que delimiten els recomptes.
+     * @return les facetes de la cerca.
+     */
+    FacetsDTO facets(FiltreAnimalsDTO filtre);
+}
@@ -0,0 +1,395 @@
+package com.buscadorpelut.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FacetsDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.BandaEdat;
+import com.buscadorpelut.Model.ClauCerca;
+import com.buscadorpelut.Model.OrdreAnimals;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Model.SeleccioCamps;
+import com.buscadorpelut.Service.DiccionariLocalitzacions;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Implementació amb l'API Criteria de JPA de {@link AnimalRepositoryCustom}.
+ *
+ * <p>La consulta es construeix afegint només els predicats dels criteris informats,
+ * sempre com a igualtats o rangs sobre columnes (mai funcions sobre la columna),
+ * i per als textos (espècie, província i codi postal) sobre les claus normalitzades amb {@link ClauCerca},
+ * i amb els valors com a paràmetres enllaçats. Així cada combinació de filtres genera
+ * una única sentència SQL estable que pot aprofitar els índexs de {@code animal} i
+ * {@code protectora}, i el nombre de plans diferents queda acotat pel nombre de combinacions.
+ *
+ * <p>Spring Data JPA detecta aquesta classe pel sufix {@code Impl} i la combina amb
+ * {@link AnimalRepository}.
+ */
+public class AnimalRepositoryCustomImpl implements AnimalRepositoryCustom {
+
+    /** Valor de {@code localitatProtectora} quan l'animal no té protectora (com {@link Animal#getLocalitatProtectora()}). */
+    private static final String LOCALITAT_DESCONEGUDA = "Desconeguda";
+
+    /** Prefix dels àlies de les columnes de la protectora a {@link #llegirCamps}. */
+    private static final String ALIES_PROTECTORA = "protectora_";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Es fa un {@code LEFT JOIN} simple (no {@code fetch}) i se seleccionen només les columnes
+     * de {@link AnimalCardDTO}, de manera que la sentència SQL no inclou {@code descripcio}.
+     *
+     * <p>Si l'ordre és per un camp ({@link OrdreAnimals#getCamp()}), primer es llegeix el valor d'aquest camp
+     * a l'animal del cursor (una consulta per clau primària) i la pàgina comença just després del parell
+     * (valor, {@code numId}). Com a MySQL, els valors {@code null} es consideren els més petits.
+     */
+    @Override
+    public List<AnimalCardDTO> cercar(FiltreAnimalsDTO filtre, Long after, int limit) {
+        OrdreAnimals ordre = filtre.ordre() == null ? OrdreAnimals.ARRIBADA : filtre.ordre();
+        boolean primeraPagina = after == null || after <= 0;
+        Object valorCursor = null;
+        if (!primeraPagina && ordre.getCamp() != null) {
+            List<Object> valors = valorCursor(ordre, after);
+            if (valors.isEmpty()) {
+                return List.of();
+            }
+            valorCursor = valors.get(0);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AnimalCardDTO> query = cb.createQuery(AnimalCardDTO.class);
+        Root<Animal> animal = query.from(Animal.class);
+        Join<Animal, Protectora> protectora = animal.join("protectora", JoinType.LEFT);
+
+        List<Predicate> predicats = predicats(cb, animal, protectora, filtre);
+        if (!primeraPagina) {
+            predicats.add(seguents(cb, animal, ordre, valorCursor, after));
+        }
+
+        query.select(cb.construct(AnimalCardDTO.class,
+                animal.get("numId"),
+                animal.get("nomAn"),
+                animal.get("especie"),
+                animal.get("sexe"),
+                animal.get("dataNeix"),
+                animal.get("fotoPerfil"),
+                cb.coalesce(protectora.<String>get("localitat"), LOCALITAT_DESCONEGUDA)))
+            .where(predicats.toArray(new Predicate[0]))
+            .orderBy(ordenacio(cb, animal, ordre));
+
+        return entityManager.createQuery(query)
+            .setMaxResults(limit)
+            .getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>La unió amb la protectora només s'afegeix si algun criteri la necessita, de manera que el recompte
+     * per espècie, sexe o edat es resol només amb els índexs de {@code animal}.
+     */
+    @Override
+    public long comptar(FiltreAnimalsDTO filtre) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Animal> animal = query.from(Animal.class);
+        Join<Animal, Protectora> protectora = necessitaProtectora(filtre) ? animal.join("protectora", JoinType.LEFT) : null;
+
+        query.select(cb.count(animal))
+            .where(predicats(cb, animal, protectora, filtre).toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Indica si algun criteri del filtre és sobre la protectora (i cal la unió amb {@code protectora}).
+     * La localització no la necessita: es resol als codis de protectora amb {@link DiccionariLocalitzacions}.
+     */
+    private static boolean necessitaProtectora(FiltreAnimalsDTO filtre) {
+        return ClauCerca.normalitzar(filtre.getProvincia()) != null
+            || ClauCerca.normalitzarCodiPostal(filtre.getCodiPostal()) != null
+            || filtre.getProtectora() != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Es fa una consulta de {@link Tuple} amb una columna per camp: {@code edat} llegeix {@code dataNeix},
+     * {@code localitatProtectora} la localitat de la protectora i {@code protectora} només les columnes de la
+     * protectora que s'han demanat. La unió amb {@code protectora} només s'afegeix si cal. Els camps calculats
+     * ({@code edat} i {@code localitatProtectora}) tenen el mateix valor que a {@link Animal}.
+     */
+    @Override
+    public Map<Long, Map<String, Object>> llegirCamps(Collection<Long> numIds, SeleccioCamps camps) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Animal> animal = query.from(Animal.class);
+        Join<Animal, Protectora> protectora = camps.necessitaProtectora() ? animal.join("protectora", JoinType.LEFT) : null;
+
+        Map<String, Path<?>> columnes = new LinkedHashMap<>();
+        columnes.put("numId", animal.get("numId"));
+        for (String camp : camps.getCamps()) {
+            switch (camp) {
+                case "edat" -> columnes.put("dataNeix", animal.get("dataNeix"));
+                case "localitatProtectora" -> columnes.put(ALIES_PROTECTORA + "localitat", protectora.get("localitat"));
+                case "protectora" -> {
+                    columnes.put(ALIES_PROTECTORA + "codiProt", protectora.get("codiProt"));
+                    camps.getCampsProtectora().forEach(c -> columnes.put(ALIES_PROTECTORA + c, protectora.get(c)));
+                }
+                default -> columnes.put(camp, animal.get(camp));
+            }
+        }
+        query.multiselect(columnes.entrySet().stream().<Selection<?>>map(e -> e.getValue().alias(e.getKey())).toList())
+            .where(animal.get("numId").in(numIds));
+
+        Map<Long, Map<String, Object>> perId = new LinkedHashMap<>();
+        for (Tuple fila : entityManager.createQuery(query).getResultList()) {
+            Map<String, Object> valors = new LinkedHashMap<>();
+            for (String camp : camps.getCamps()) {
+                valors.put(camp, switch (camp) {
+                    case "edat" -> Animal.calcularEdat(fila.get("dataNeix", Date.class));
+                    case "localitatProtectora" -> fila.get(ALIES_PROTECTORA + "localitat") == null
+                        ? LOCALITAT_DESCONEGUDA : fila.get(ALIES_PROTECTORA + "localitat");
+                    case "protectora" -> fila.get(ALIES_PROTECTORA + "codiProt") == null ? null : campsProtectora(fila, camps);
+                    default -> fila.get(camp);
+                });
+            }
+            perId.put(fila.get("numId", Long.class), valors);
+        }
+        return perId;
+    }
+
+    /**
+     * Camps demanats de la protectora d'una fila de {@link #llegirCamps}.
+     */
+    private static Map<String, Object> campsProtectora(Tuple fila, SeleccioCamps camps) {
+        Map<String, Object> valors = new LinkedHashMap<>();
+        for (String camp : camps.getCampsProtectora()) {
+            valors.put(camp, fila.get(ALIES_PROTECTORA + camp));
+        }
+        return valors;
+    }
+
+    /**
+     * Llegeix el valor del camp d'ordenació a l'animal del cursor.
+     *
+     * @return una llista amb el valor (que pot ser {@code null}), o buida si l'animal ja no existeix.
+     */
+    private List<Object> valorCursor(OrdreAnimals ordre, Long numId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> query = cb.createQuery(Object.class);
+        Root<Animal> animal = query.from(Animal.class);
+        query.select(animal.get(ordre.getCamp()))
+            .where(cb.equal(animal.get("numId"), numId));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Criteri d'ordenació: el camp de l'ordre (si en té) i {@code numId}, tots dos en el mateix sentit
+     * perquè la base de dades pugui recórrer l'índex {@code (adoptat, especie_clau, camp, numId)} en una sola direcció.
+     */
+    private List<Order> ordenacio(CriteriaBuilder cb, Root<Animal> animal, OrdreAnimals ordre) {
+        List<Order> ordenacio = new ArrayList<>();
+        if (ordre.getCamp() != null) {
+            Path<Object> camp = animal.get(ordre.getCamp());
+            ordenacio.add(ordre.isAscendent() ? cb.asc(camp) : cb.desc(camp));
+        }
+        Path<Long> numId = animal.get("numId");
+        ordenacio.add(ordre.isAscendent() ? cb.asc(numId) : cb.desc(numId));
+        return ordenacio;
+    }
+
+    /**
+     * Predicat de paginació per cursor (keyset): els animals que van després del cursor en l'ordre demanat.
+     *
+     * <p>Amb un camp d'ordenació és la comparació del parell (camp, {@code numId}) amb el del cursor,
+     * tenint en compte que els {@code null} van primer en ordre ascendent i al final en ordre descendent.
+     *
+     * @param valorCursor el valor del camp d'ordenació a l'animal del cursor (pot ser {@code null}).
+     * @param after el {@code numId} del cursor.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seguents(CriteriaBuilder cb, Root<Animal> animal, OrdreAnimals ordre, Object valorCursor, Long after) {
+        Path<Long> numId = animal.get("numId");
+        Predicate numIdSeguent = ordre.isAscendent() ? cb.greaterThan(numId, after) : cb.lessThan(numId, after);
+        if (ordre.getCamp() == null) {
+            return numIdSeguent;
+        }
+        Path<Comparable> camp = animal.get(ordre.getCamp());
+        if (valorCursor == null) {
+            Predicate mateixNull = cb.and(cb.isNull(camp), numIdSeguent);
+            return ordre.isAscendent() ? cb.or(mateixNull, cb.isNotNull(camp)) : mateixNull;
+        }
+        Comparable valor = (Comparable) valorCursor;
+        Predicate mateixValor = cb.and(cb.equal(camp, valor), numIdSeguent);
+        return ordre.isAscendent()
+            ? cb.or(cb.greaterThan(camp, valor), mateixValor)
+            : cb.or(cb.lessThan(camp, valor), mateixValor, cb.isNull(camp));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>L'espècie i la província s'agrupen per la clau normalitzada i es mostra un dels valors originals.
+     */
+    @Override
+    public FacetsDTO facets(FiltreAnimalsDTO filtre) {
+        Map<String, Long> edat = new LinkedHashMap<>();
+        for (BandaEdat banda : BandaEdat.values()) {
+            edat.put(banda.name(), comptarBanda(filtre, banda));
+        }
+        return new FacetsDTO(
+            comptarBanda(filtre, null),
+            agrupar(filtre, "especie", "especieClau", false),
+            agrupar(filtre, "provincia", "provinciaClau", true),
+            agrupar(filtre, "sexe", "sexe", false),
+            edat);
+    }
+
+    /**
+     * Compta els animals que compleixen el filtre agrupant per un camp.
+     *
+     * @param filtre criteris de cerca.
+     * @param etiqueta camp que es mostra com a valor de la faceta.
+     * @param clau camp pel qual s'agrupa.
+     * @param deProtectora si els camps són de la protectora en lloc de l'animal.
+     * @return recomptes per valor, de més a menys animals (sense els animals sense valor).
+     */
+    private Map<String, Long> agrupar(FiltreAnimalsDTO filtre, String etiqueta, String clau, boolean deProtectora) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Animal> animal = query.from(Animal.class);
+        Join<Animal, Protectora> protectora = animal.join("protectora", JoinType.LEFT);
+        Path<String> camp = deProtectora ? protectora.get(etiqueta) : animal.get(etiqueta);
+        Path<String> agrupacio = deProtectora ? protectora.get(clau) : animal.get(clau);
+        Expression<Long> recompte = cb.count(animal);
+
+        List<Predicate> predicats = predicats(cb, animal, protectora, filtre);
+        predicats.add(cb.isNotNull(agrupacio));
+        query.multiselect(cb.least(camp), recompte)
+            .where(predicats.toArray(new Predicate[0]))
+            .groupBy(agrupacio)
+            .orderBy(cb.desc(recompte));
+
+        Map<String, Long> recomptes = new LinkedHashMap<>();
+        for (Tuple fila : entityManager.createQuery(query).getResultList()) {
+            recomptes.merge(fila.get(0, String.class), fila.get(1, Long.class), Long::sum);
+        }
+        return recomptes;
+    }
+
+    /**
+     * Compta els animals que compleixen el filtre i, si s'indica, estan dins d'una franja d'edat.
+     *
+     * @param filtre criteris de cerca.
+     * @param banda franja d'edat, o {@code null} per comptar-los tots.
+     * @return el nombre d'animals.
+     */
+    private long comptarBanda(FiltreAnimalsDTO filtre, BandaEdat banda) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Animal> animal = query.from(Animal.class);
+        Join<Animal, Protectora> protectora = animal.join("protectora", JoinType.LEFT);
+
+        List<Predicate> predicats = predicats(cb, animal, protectora, filtre);
+        if (banda != null) {
+            LocalDate avui = LocalDate.now();
+            predicats.add(cb.lessThanOrEqualTo(animal.get("dataNeix"),
+                Date.valueOf(avui.minusMonths(banda.getEdatMin()))));
+            if (banda.getEdatMax() != null) {
+                predicats.add(cb.greaterThan(animal.get("dataNeix"),
+                    Date.valueOf(avui.minusMonths(banda.getEdatMax() + 1L))));
+            }
+        }
+        query.select(cb.count(animal)).where(predicats.toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Tradueix els criteris informats del filtre a predicats de la consulta.
+     *
+     * <p>L'edat es filtra sobre {@code dataNeix} amb els límits de
+     * {@link FiltreAnimalsDTO#nascutAbans()} i {@link FiltreAnimalsDTO#nascutDespres()}.
+     * La localització es resol primer als codis de les protectores ({@link DiccionariLocalitzacions})
+     * i es filtra amb un {@code IN} sobre la clau forana {@code animal.codiProt}, sense unió ni {@code OR}
+     * entre columnes de la protectora; si no correspon a cap protectora, la consulta no torna res.
+     *
+     * @param cb el constructor de criteris.
+     * @param animal l'arrel de la consulta.
+     * @param protectora la unió amb la protectora de l'animal (pot ser {@code null} si cap criteri és sobre la protectora).
+     * @param filtre els criteris de cerca.
+     * @return una llista modificable de predicats (buida si no hi ha cap criteri informat).
+     */
+    private List<Predicate> predicats(CriteriaBuilder cb, Root<Animal> animal,
+            Join<Animal, Protectora> protectora, FiltreAnimalsDTO filtre) {
+        List<Predicate> predicats = new ArrayList<>();
+
+        if (filtre.getAdoptat() != null) {
+            predicats.add(cb.equal(animal.get("esAdoptat"), filtre.getAdoptat()));
+        }
+        String especie = ClauCerca.normalitzar(filtre.getEspecie());
+        if (filtre.esExotic()) {
+            // Un animal sense espècie tampoc és comú (l'índex en memòria i el de text també l'inclouen)
+            predicats.add(cb.or(cb.isNull(animal.get("especieClau")),
+                cb.not(animal.get("especieClau").in(FiltreAnimalsDTO.clausEspeciesComunes()))));
+        } else if (especie != null) {
+            predicats.add(cb.equal(animal.get("especieClau"), especie));
+        }
+        if (filtre.getSexe() != null) {
+            predicats.add(cb.equal(animal.get("sexe"), filtre.getSexe()));
+        }
+        if (filtre.nascutAbans() != null) {
+            predicats.add(cb.lessThanOrEqualTo(animal.get("dataNeix"), filtre.nascutAbans()));
+        }
+        if (filtre.nascutDespres() != null) {
+            predicats.add(cb.greaterThan(animal.get("dataNeix"), filtre.nascutDespres()));
+        }
+        String provincia = ClauCerca.normalitzar(filtre.getProvincia());
+        if (provincia != null) {
+            predicats.add(cb.equal(protectora.get("provinciaClau"), provincia));
+        }
+        String codiPostal = ClauCerca.normalitzarCodiPostal(filtre.getCodiPostal());
+        if (codiPostal != null) {
+            predicats.add(cb.equal(protectora.get("codiPostalClau"), codiPostal));
+        }
+        if (filtre.teLocalitzacio()) {
+            Set<Long> protectoresLocalitzacio = diccionariLocalitzacions.protectores(filtre.getLocalitzacio());
+            predicats.add(protectoresLocalitzacio == null
+                ? cb.disjunction()
+                : animal.get("protectora").get("codiProt").in(protectoresLocalitzacio));
+        }
+        if (filtre.getProtectora() != null) {
+            predicats.add(cb.equal(protectora.get("codiProt"), filtre.getProtectora()));
+        }
+        return predicats;
+    }
+}
@@ -4,8 +4,12 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.buscadorpelut.Model.CaixaGeo;
+import com.buscadorpelut.Model.ClauCerca;
 import com.buscadorpelut.Model.Protectora;
 
 /**
@@ -18,21 +22,16 @@ import com.buscadorpelut.Model.Protectora;
  * <p>Spring Data JPA genera automàticament la implementació d'aquests mètodes
  * en temps d'execució, basant-se en els noms dels mètodes i les anotacions.
  * 
+ * <p>Les cerques de protectores per codi, nom, email, codi postal, localitat i província es responen
+ * en memòria des de {@link com.buscadorpelut.Service.DirectoriProtectores}; aquí queden la cerca
+ * per adreça, les consultes geogràfiques i les de manteniment de les claus de {@link ClauCerca}.
+ * 
+ * <p>Per llegir només una part dels camps (paràmetre {@code fields}), vegeu {@link ProtectoraRepositoryCustom}.
+ * 
  * @author Luis Gil
  */
 @Repository
-public interface ProtectoraRepository extends JpaRepository<Protectora,Long>{
-
-    /**
-     * Mètode per cercar una protectora pel seu codi únic.
-     * 
-     * @param codiProt el codi únic de la protectora.
-     * @return un objecte {@link Optional} que conté la protectora si existeix,
-     *         o buit si no s'ha trobat cap protectora amb aquest codi.
-     * 
-     * @see Protectora#setCodiProt(long)
-     */
-    Optional<Protectora> findByCodiProt(long codiProt);
+public interface ProtectoraRepository extends JpaRepository<Protectora,Long>, ProtectoraRepositoryCustom{
 
     /**
      * Mètode per cercar una protectora pel seu nom.
@@ -56,59 +55,68 @@ public interface ProtectoraRepository extends JpaRepository<Protectora,Long>{
     List<Protectora> findByAdresa(String adresa);
 
     /**
-     * Mètode per cercar protectores pel seu codi postal.
+     * Mètode per cercar les protectores que encara no tenen calculades les claus de cerca
+     * (per exemple, files anteriors a les columnes "*_clau").
      * 
-     * @param codiPostal el codi postal de la protectora.
-     * @return una llista de protectores que coincideixen amb el codi postal.
-     *         La llista pot estar buida si no s'han trobat resultats.
-     * @see Protectora#setCodiPostal(String)
+     * @return una llista de protectores sense alguna clau. Buida si totes estan calculades.
      */
-    List<Protectora> findByCodiPostal(String codiPostal);
+    @Query("SELECT p FROM Protectora p WHERE (p.provinciaClau IS NULL AND p.provincia IS NOT NULL)"
+        + " OR (p.localitatClau IS NULL AND p.localitat IS NOT NULL)"
+        + " OR (p.codiPostalClau IS NULL AND p.codiPostal IS NOT NULL)")
+    List<Protectora> findSenseClausCerca();
 
     /**
-     * Mètode per cercar protectores per la seva localitat.
+     * Mètode per cercar les protectores a menys d'una distància d'un punt, de la més propera a la més llunyana.
      * 
-     * @param localitat la localitat de la protectora.
-     * @return una llista de protectores que coincideixen amb la localitat.
-     *         La llista pot estar buida si no s'han trobat resultats.
-     * @see Protectora#setLocalitat(String)
-     */
-    List<Protectora> findByLocalitat(String localitat);
-
-    /**
-     * Mètode per cercar protectores per la seva província.
+     * <p>Consulta nativa de MySQL sobre la columna espacial {@code ubicacio} (vegeu
+     * {@link com.buscadorpelut.Config.ColumnaEspacialProtectora}): {@code MBRContains} amb la caixa que envolta
+     * el cercle fa servir l'índex {@code SPATIAL}, i {@code ST_Distance_Sphere} descarta les protectores
+     * de les cantonades de la caixa i ordena per distància. El punt s'escriu {@code POINT(latitud, longitud)},
+     * com la columna, perquè a l'SRID 4326 el primer eix és la latitud.
      * 
-     * @param provincia la província de la protectora.
-     * @return una llista de protectores que coincideixen amb la província.
-     *         La llista pot estar buida si no s'han trobat resultats.
-     * @see Protectora#setProvincia(String)
+     * @param latitud latitud del punt, en graus.
+     * @param longitud longitud del punt, en graus.
+     * @param radiMetres la distància màxima, en metres.
+     * @param caixa la caixa que conté el cercle, en WKT amb l'ordre longitud-latitud ({@link CaixaGeo#wkt()}).
+     * @param limit nombre màxim de protectores.
+     * @return les protectores dins del radi, ordenades per distància.
      */
-    List<Protectora> findByProvincia(String provincia);
+    @Query(value = "SELECT p.* FROM protectora p"
+        + " WHERE MBRContains(ST_GeomFromText(:caixa, 4326, 'axis-order=long-lat'), p.ubicacio)"
+        + " AND ST_Distance_Sphere(p.ubicacio, ST_SRID(POINT(:latitud, :longitud), 4326)) <= :radiMetres"
+        + " ORDER BY ST_Distance_Sphere(p.ubicacio, ST_SRID(POINT(:latitud, :longitud), 4326)), p.codiProt"
+        + " LIMIT :limit", nativeQuery = true)
+    List<Protectora> findDinsRadi(@Param("latitud") double latitud, @Param("longitud") double longitud,
+        @Param("radiMetres") double radiMetres, @Param("caixa") String caixa, @Param("limit") int limit);
 
     /**
-     * Mètode per cercar una protectora per la seva ubicació geogràfica (longitud i latitud).
+     * Mètode per cercar les protectores a menys d'una distància d'un punt quan el cercle no es pot envoltar
+     * amb una caixa (inclou un pol o travessa el meridià 180). Com {@link #findDinsRadi}, però sense l'índex.
      * 
-     * @param longitud la longitud geogràfica de la protectora.
-     * @param latitud la latitud geogràfica de la protectora.
-     * @return un objecte {@link Optional} que conté la protectora si existeix,
-     *         o buit si no s'ha trobat cap protectora amb aquesta ubicació.
-     * @see Protectora#setLongitud(double)
-     * @see Protectora#setLatitud(double)
+     * @param latitud latitud del punt, en graus.
+     * @param longitud longitud del punt, en graus.
+     * @param radiMetres la distància màxima, en metres.
+     * @param limit nombre màxim de protectores.
+     * @return les protectores dins del radi, ordenades per distància.
      */
-    Optional<Protectora> findByLongitudAndLatitud(double longitud, double latitud);
+    @Query(value = "SELECT p.* FROM protectora p"
+        + " WHERE ST_Distance_Sphere(p.ubicacio, ST_SRID(POINT(:latitud, :longitud), 4326)) <= :radiMetres"
+        + " ORDER BY ST_Distance_Sphere(p.ubicacio, ST_SRID(POINT(:latitud, :longitud), 4326)), p.codiProt"
+        + " LIMIT :limit", nativeQuery = true)
+    List<Protectora> findDinsRadiSenseCaixa(@Param("latitud") double latitud, @Param("longitud") double longitud,
+        @Param("radiMetres") double radiMetres, @Param("limit") int limit);
 
     /**
-     * Mètode per cercar una protectora pel seu email.
+     * Mètode per cercar les protectores d'una zona rectangular del mapa.
      * 
-     * @param emailProt l'email de la protectora.
-     * @return un objecte {@link Optional} que conté la protectora si existeix,
-     *         o buit si no s'ha trobat cap protectora amb aquest email.
-     * @see Protectora#setEmailProt(String)
+     * <p>Consulta nativa de MySQL que fa servir l'índex {@code SPATIAL} de la columna {@code ubicacio}.
+     * 
+     * @param caixa la zona, en WKT amb l'ordre longitud-latitud ({@link CaixaGeo#wkt()}).
+     * @return les protectores de la zona (la llista pot estar buida).
+     * 
+     * @see com.buscadorpelut.Service.MapaProtectores#clusters(CaixaGeo, int)
      */
-    Optional<Protectora> findByEmailProt(String emailProt);
-
-
-
-    
-
+    @Query(value = "SELECT p.* FROM protectora p"
+        + " WHERE MBRContains(ST_GeomFromText(:caixa, 4326, 'axis-order=long-lat'), p.ubicacio)", nativeQuery = true)
+    List<Protectora> findDinsCaixa(@Param("caixa") String caixa);
 }
@@ -0,0 +1,26 @@
+package com.buscadorpelut.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+import com.buscadorpelut.Model.SeleccioCamps;
+
+/**
+ * Fragment personalitzat de {@link ProtectoraRepository} per llegir només una part dels camps
+ * de les protectores (paràmetre {@code fields}).
+ *
+ * @see ProtectoraRepositoryCustomImpl
+ */
+public interface ProtectoraRepositoryCustom {
+
+    /**
+     * Llegeix només uns camps de les protectores indicades, amb una sola consulta que selecciona
+     * les columnes d'aquests camps i cap més.
+     *
+     * @param codisProt els codis de les protectores, o {@code null} per llegir-les totes.
+     * @param camps els camps a llegir.
+     * @return per a cada protectora trobada, un map amb els camps demanats (en l'ordre demanat).
+     *         Les protectores que no existeixen no hi surten.
+     */
+    Map<Long, Map<String, Object>> llegirCamps(Collection<Long> codisProt, SeleccioCamps camps);
+}
@@ -0,0 +1,58 @@
+package com.buscadorpelut.Repository;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Model.SeleccioCamps;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+/**
+ * Implementació amb l'API Criteria de JPA de {@link ProtectoraRepositoryCustom}.
+ *
+ * <p>Spring Data JPA detecta aquesta classe pel sufix {@code Impl} i la combina amb
+ * {@link ProtectoraRepository}.
+ */
+public class ProtectoraRepositoryCustomImpl implements ProtectoraRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Es fa una consulta de {@link Tuple} amb el codi de la protectora i una columna per camp demanat.
+     */
+    @Override
+    public Map<Long, Map<String, Object>> llegirCamps(Collection<Long> codisProt, SeleccioCamps camps) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Protectora> protectora = query.from(Protectora.class);
+
+        Map<String, Selection<?>> columnes = new LinkedHashMap<>();
+        columnes.put("codiProt", protectora.get("codiProt").alias("codiProt"));
+        camps.getCamps().forEach(camp -> columnes.putIfAbsent(camp, protectora.get(camp).alias(camp)));
+        query.multiselect(List.copyOf(columnes.values()))
+            .orderBy(cb.asc(protectora.get("codiProt")));
+        if (codisProt != null) {
+            query.where(protectora.get("codiProt").in(codisProt));
+        }
+
+        Map<Long, Map<String, Object>> perCodi = new LinkedHashMap<>();
+        for (Tuple fila : entityManager.createQuery(query).getResultList()) {
+            Map<String, Object> valors = new LinkedHashMap<>();
+            camps.getCamps().forEach(camp -> valors.put(camp, fila.get(camp)));
+            perCodi.put(fila.get("codiProt", Long.class), valors);
+        }
+        return perCodi;
+    }
+}
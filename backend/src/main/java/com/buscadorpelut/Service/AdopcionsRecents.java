@@ -0,0 +1,89 @@
+package com.buscadorpelut.Service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Repository.AnimalRepository;
+
+/**
+ * Instantània de les adopcions més recents, per al carrusel de la pàgina d'inici.
+ *
+ * <p>Guarda en memòria les targetes dels {@value #MAXIM} animals adoptats més recentment
+ * (vegeu {@link AnimalRepository#findAdopcionsRecents(Limit)}). Les peticions es responen
+ * des d'aquesta llista immutable, sense consultar la base de dades, i per tant el cost no depèn
+ * de quants animals s'hagin adoptat mai.
+ *
+ * <p>La llista es carrega en arrencar l'aplicació i es torna a llegir quan es guarda un animal
+ * adoptat, quan canvia o s'elimina un animal que hi surt, o quan canvia una protectora.
+ */
+@Component
+public class AdopcionsRecents {
+
+    /** Nombre màxim d'adopcions que es guarden (i que es poden demanar). */
+    public static final int MAXIM = 24;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    private volatile List<AnimalCardDTO> recents = List.of();
+
+    /**
+     * Carrega la instantània quan l'aplicació ja ha arrencat.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enArrencar() {
+        refrescar();
+    }
+
+    /**
+     * Torna a llegir les adopcions més recents de la base de dades.
+     */
+    public void refrescar() {
+        recents = List.copyOf(animalRepository.findAdopcionsRecents(Limit.of(MAXIM)));
+    }
+
+    /**
+     * Retorna les {@code n} adopcions més recents, de la més nova a la més antiga.
+     *
+     * @param n el nombre d'adopcions desitjat (entre 1 i {@value #MAXIM}).
+     * @return les targetes dels animals adoptats. Pot tenir menys de {@code n} elements.
+     */
+    public List<AnimalCardDTO> recents(int n) {
+        List<AnimalCardDTO> actuals = recents;
+        return actuals.subList(0, Math.min(Math.max(n, 1), actuals.size()));
+    }
+
+    /**
+     * Actualitza la instantània després de guardar un animal, si li afecta: l'animal està adoptat
+     * (pot ser una adopció nova) o ja era a la llista (pot haver canviat o deixat d'estar adoptat).
+     *
+     * @param animal l'animal guardat.
+     */
+    public void actualitzar(Animal animal) {
+        if (animal.getEsAdoptat() || conte(animal.getNumId())) {
+            refrescar();
+        }
+    }
+
+    /**
+     * Actualitza la instantània després d'eliminar un animal, si hi sortia.
+     *
+     * @param numId l'identificador de l'animal eliminat.
+     */
+    public void eliminar(Long numId) {
+        if (conte(numId)) {
+            refrescar();
+        }
+    }
+
+    private boolean conte(Long numId) {
+        return recents.stream().anyMatch(targeta -> targeta.getNumId().equals(numId));
+    }
+}
@@ -1,34 +1,82 @@
 package com.buscadorpelut.Service;
 
-import java.util.Arrays;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
+import com.buscadorpelut.Config.CacheConfig;
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FacetsDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.DTO.PaginaDTO;
 import com.buscadorpelut.Model.Animal;
 import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Model.SeleccioCamps;
 import com.buscadorpelut.Repository.AnimalRepository;
+import com.buscadorpelut.Repository.AnimalRepositoryCustom;
 
 /**
  * Servei per gestionar la lògica de negoci relacionada amb els animals.
  * 
  * <p>Aquesta classe actua com a intermediària entre el controlador REST i el repositori,
  * mostrant informació dels animals de diverses formes 
- * (total, per espècie, etc.).
+ * (total, per criteris de cerca, etc.).
  * 
  * <p>Totes les operacions deleguen en {@link AnimalRepository} per a l'accés a dades.
  * 
+ * <p>Els llistats es retornen paginats per cursor: cada cerca rep l'últim {@code numId}
+ * que el client ja ha rebut ({@code after}) i la mida de pàgina desitjada ({@code limit}),
+ * i retorna un {@link PaginaDTO} amb el cursor de la pàgina següent.
+ * 
+ * <p>Els llistats retornen {@link AnimalCardDTO} (sense la descripció); només el detall
+ * d'un animal carrega l'entitat {@link Animal} completa.
+ * 
+ * <p>Les consultes es guarden a les memòries cau de {@link CacheConfig}, amb la clau del filtre
+ * normalitzada ({@link FiltreAnimalsDTO#clauCache()}); {@link #save} i {@link #deleteById} les invaliden.
+ * 
  * @author Luis Gil
  */
 @Service
 public class AnimalService {
 
+  /** Mida de pàgina que s'aplica si el client no n'indica cap. */
+  public static final int LIMIT_PER_DEFECTE = 24;
+
+  /** Mida de pàgina màxima que accepta el servidor. */
+  public static final int LIMIT_MAXIM = 100;
+
+  /** Nombre màxim d'animals destacats que es poden demanar. */
+  public static final int MAXIM_DESTACATS = 24;
+
   @Autowired
   private AnimalRepository animalRepository;
 
+  @Autowired
+  private IndexAnimals indexAnimals;
+
+  @Autowired
+  private CercaTextAnimals cercaTextAnimals;
+
+  @Autowired
+  private CatalegVersio catalegVersio;
+
+  @Autowired
+  private AdopcionsRecents adopcionsRecents;
+
+  @Autowired
+  private MapaProtectores mapaProtectores;
+
   /**
      * Recupera una llista completa de tots els animals registrats al sistema.
      * 
@@ -42,26 +90,103 @@ public class AnimalService {
   }
 
   /**
-    * Recupera una llista completa de tots els animals registrats al sistema que no estan adoptats.
-    *  
-    * @return una llista d'objectes {@link Animal} que estan en situació d'adopció.
-    *         Pot estar buida si no hi ha cap animal a la base de dades.
-    *
-    * @see AnimalRepository#findByEsAdoptatFalse()     
+   * Cerca animals segons qualsevol combinació de criteris, paginant per cursor.
+   * 
+   * <p>Substitueix els antics mètodes per cada combinació de filtres (per espècie, per
+   * localització, exòtics per localització, etc.). L'espècie {@value FiltreAnimalsDTO#ESPECIE_EXOTIC}
+   * selecciona tots els animals que no són gossos ni gats.
+   * 
+   * <p>Les cerques d'animals disponibles es responen des de {@link IndexAnimals}, sense consultar
+   * la base de dades; la resta (per exemple, animals adoptats) van al repositori.
+   * 
+   * <p>Les cerques en un ordre diferent del per defecte ({@code sort}) sempre van al repositori, que ordena a la consulta.
+   * 
+   * <p>Si el filtre té text lliure ({@code q}), la cerca es fa a {@link CercaTextAnimals} i els
+   * resultats s'ordenen per rellevància. En aquest cas el cursor és la posició dins del rànquing
+   * (el nombre de resultats ja retornats) en lloc d'un {@code numId}.
+   * 
+   * @param filtre criteris de cerca; els camps a {@code null} no s'apliquen.
+   * @param after l'últim {@code numId} rebut pel client ({@code null} per a la primera pàgina).
+   * @param limit la mida de pàgina desitjada.
+   * @return una pàgina de targetes {@link AnimalCardDTO} dels animals que compleixen els criteris.
+   *         Pot estar buida si cap animal els compleix.
+   * 
+   * @see CercaTextAnimals#cercar(FiltreAnimalsDTO, int, int)
+   * @see IndexAnimals#cercar(FiltreAnimalsDTO, Long, int)
+   * @see AnimalRepositoryCustom#cercar(FiltreAnimalsDTO, Long, int)
+   */
+  @Cacheable(cacheNames = CacheConfig.CERCA_ANIMALS, key = "@catalegVersio.actual() + '|' + #filtre.clauCache() + '|' + #after + '|' + #limit")
+  public PaginaDTO<AnimalCardDTO>cercar(FiltreAnimalsDTO filtre, Long after, int limit){
+    int mida = midaPagina(limit);
+    if (filtre.teText()) {
+      int posicio = (int) Math.min(cursor(after), CercaTextAnimals.MAXIM_RESULTATS);
+      return paginaPerPosicio(cercaTextAnimals.cercar(filtre, posicio, mida + 1), posicio, mida);
+    }
+    List<AnimalCardDTO> animals = indexAnimals.cobreix(filtre)
+      ? indexAnimals.cercar(filtre, cursor(after), mida + 1)
+      : animalRepository.cercar(filtre, after, mida + 1);
+    return pagina(animals, mida);
+  }
+
+  /**
+   * Compta els animals que compleixen els criteris de cerca, sense retornar-los
+   * (per mostrar "N trobats" o calcular la paginació).
+   * 
+   * <p>Es resol pel mateix camí que {@link #cercar}: amb text lliure, a {@link CercaTextAnimals};
+   * si és d'animals disponibles, amb els bitmaps de {@link IndexAnimals}; i si no, amb un
+   * {@code SELECT COUNT} al repositori. L'ordre ({@code sort}) no hi intervé.
+   * 
+   * @param filtre criteris de cerca; els camps a {@code null} no s'apliquen.
+   * @return el nombre d'animals que compleixen els criteris.
+   * 
+   * @see AnimalRepositoryCustom#comptar(FiltreAnimalsDTO)
+   */
+  @Cacheable(cacheNames = CacheConfig.COMPTES_ANIMALS, key = "@catalegVersio.actual() + '|' + #filtre.perComptar().clauCache()")
+  public long comptar(FiltreAnimalsDTO filtre){
+    FiltreAnimalsDTO criteris = filtre.perComptar();
+    if (criteris.teText()) {
+      return cercaTextAnimals.comptar(criteris);
+    }
+    return indexAnimals.cobreix(criteris) ? indexAnimals.comptar(criteris) : animalRepository.comptar(criteris);
+  }
+
+  /**
+   * Compta els animals disponibles per espècie, província, sexe i franja d'edat (facetes de la cerca).
+   * 
+   * <p>Els recomptes es limiten als animals que compleixen la resta de criteris del filtre.
+   * Sempre són d'animals disponibles ({@code adoptat} s'ignora) i el text lliure {@code q} no s'aplica.
+   * Es calculen amb els bitmaps de {@link IndexAnimals}; mentre l'índex no està preparat,
+   * amb consultes {@code GROUP BY} a la base de dades.
+   * 
+   * @param filtre criteris de cerca actuals.
+   * @return les facetes de la cerca.
+   * 
+   * @see IndexAnimals#facets(FiltreAnimalsDTO)
+   * @see AnimalRepositoryCustom#facets(FiltreAnimalsDTO)
    */
-  public List<Animal>getAllAnimalsNoAdoptats(){
-    return animalRepository.findByEsAdoptatFalse();
+  @Cacheable(cacheNames = CacheConfig.FACETS_ANIMALS, key = "@catalegVersio.actual() + '|' + #filtre.perFacets().clauCache()")
+  public FacetsDTO facets(FiltreAnimalsDTO filtre){
+    FiltreAnimalsDTO criteris = filtre.perFacets();
+    return indexAnimals.cobreix(criteris) ? indexAnimals.facets(criteris) : animalRepository.facets(criteris);
   }
+
   /**
-   * Recupera una llista completa de tots els animals registrats al sistema que estan adoptats.
+   * Recupera, pàgina a pàgina, els animals registrats al sistema que estan adoptats.
    * 
-   * @return una llista d'objectes {@link Animal} que ja han estat adoptats.
+   * @param sort l'ordre dels resultats (vegeu {@link com.buscadorpelut.Model.OrdreAnimals}); {@code null} per a l'ordre per defecte.
+   * @param after l'últim {@code numId} rebut pel client ({@code null} per a la primera pàgina).
+   * @param limit la mida de pàgina desitjada.
+   * @return una pàgina de targetes {@link AnimalCardDTO} d'animals que ja han estat adoptats.
    *        Pot estar buida si no hi ha cap animal adoptat a la base de dades.
    * 
-   * @see AnimalRepository#findByEsAdoptatTrue()
+   * @see #cercar(FiltreAnimalsDTO, Long, int)
    */
-  public List<Animal>getAllAnimalsAdoptats(){
-    return animalRepository.findByEsAdoptatTrue();
+  @Cacheable(cacheNames = CacheConfig.ANIMALS_ADOPTATS, key = "@catalegVersio.actual() + '|' + T(com.buscadorpelut.Model.OrdreAnimals).de(#sort) + '|' + #after + '|' + #limit")
+  public PaginaDTO<AnimalCardDTO>getAllAnimalsAdoptats(String sort, Long after, int limit){
+    FiltreAnimalsDTO filtre = new FiltreAnimalsDTO();
+    filtre.setAdoptat(true);
+    filtre.setSort(sort);
+    return cercar(filtre, after, limit);
   }
 
   /**
@@ -81,182 +206,239 @@ public class AnimalService {
   }
 
   /**
-     * Mostra tots els animals que pertanyen a una espècie específica.
-     * 
-     * <p>La comparació és sensible a majúscules/minúscules i accents. 
-     * Per exemple, "gos" ≠ "Gos" ≠ "Gòs".
-     * 
-     * @param especie el nom exacte de l'espècie a cercar (ex: "Gos", "Gat", "Conill").
-     * @return una llista d'animals d'aquella espècie. Pot estar buida si no n'hi ha cap.
-     * 
-     * @see AnimalRepository#findByEspecie(String)
-     */
-  public List<Animal>getAnimalsByEspecie(String especie){
-    return animalRepository.findByEspecie(especie);
+   * Mostra els detalls d'un animal pel seu identificador únic numèric,
+   * incloent la informació de la protectora associada.
+   * 
+   * <p>Si l'ID proporcionat és {@code null}, es retorna un {@link Optional#empty()} 
+   * per evitar excepcions.
+   * 
+   * @param numId l'identificador únic de l'animal a cercar.
+   * @return un {@link Optional} que conté l'animal amb la seva protectora si es troba,
+   *         o buit si no existeix o si l'ID és {@code null}.
+   * 
+   * @see AnimalRepository#findByIdWithProtectora(Long)
+   */
+  @Cacheable(cacheNames = CacheConfig.ANIMAL, key = "@catalegVersio.actual() + '|' + #numId", condition = "#numId != null", unless = "#result == null")
+  public Optional<Animal>getAnimalByIdWithProtectora(Long numId){
+    if (numId == null) {
+        return Optional.empty();
+    }
+    return animalRepository.findByIdWithProtectora(numId);
   }
 
   /**
-     * Retorna tots els animals que **no pertanyen** a les espècies "Gos" ni "Gat".
-     * 
-     * <p>Aquest mètode s'utilitza per implementar la categoria "Exòtic" al frontend,
-     * incloent espècies com conills, aus, rèptils, cobaias, etc.
-     * 
-     * @return una llista d'animals d'espècies diferents a "Gos" i "Gat". 
-     *         Pot estar buida si només hi ha gossos i gats al sistema.
-     * 
-     * @see AnimalRepository#findByEspecieNotIn(List)
-     */
-  public List<Animal>getAnimalsExcluirGosGat(){
-    return animalRepository.findByEspecieNotIn(Arrays.asList("Gos","Gat"));
+   * Mostra els detalls de diversos animals a partir d'una llista d'identificadors (per exemple, els preferits).
+   * 
+   * <p>Tots es carreguen amb una sola consulta {@code IN}, incloent la protectora, i es retornen
+   * en el mateix ordre que {@code numIds}. Els identificadors repetits només surten un cop i
+   * els que no existeixen s'ometen.
+   * 
+   * @param numIds els identificadors dels animals (com a màxim {@link #LIMIT_MAXIM}, ho comprova el controlador).
+   * @return una llista amb els animals trobats. Pot estar buida.
+   * 
+   * @see AnimalRepository#findAllByIdWithProtectora(java.util.Collection)
+   */
+  public List<Animal>getAnimalsByIds(List<Long> numIds){
+    List<Long> unics = numIds.stream().filter(Objects::nonNull).distinct().toList();
+    if (unics.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, Animal> perId = animalRepository.findAllByIdWithProtectora(unics).stream()
+      .collect(Collectors.toMap(Animal::getNumId, Function.identity()));
+    return unics.stream().map(perId::get).filter(Objects::nonNull).toList();
   }
 
   /**
- * Retorna tots els animals d'una espècie específica que **encara no han estat adoptats**.
- * 
- * <p>Aquest mètode s'utilitza quan es vol filtrar la llista d'animals disponibles
- * per adopció segons la seva espècie (per exemple, només "Gos" o només "Gat").
- * 
- * @param especie el nom de l'espècie a cercar (ha de coincidir exactament amb el valor
- *                emmagatzemat a la base de dades, p. ex. "Gos", "Gat").
- * @return una llista d'animals {@link Animal} que pertanyen a l'espècie indicada
- *         i que tenen {@code esAdoptat = false}.
- *         La llista pot estar buida si no hi ha animals d'aquella espècie disponibles.
- * 
- * @see AnimalRepository#findByEspecieAndEsAdoptatFalse(String)
- */
-  public List<Animal>getAnimalsByEspecieNoAdoptats(String especie){
-    return animalRepository.findByEspecieAndEsAdoptatFalse(especie);
+   * Mostra només uns camps d'un animal (paràmetre {@code fields}), per exemple el nom i la foto.
+   * 
+   * <p>La consulta només llegeix les columnes d'aquests camps, i la protectora només si se'n demana algun camp.
+   * 
+   * @param numId l'identificador de l'animal.
+   * @param camps els camps a retornar.
+   * @return un {@link Optional} amb els camps demanats de l'animal, o buit si no existeix.
+   * 
+   * @see AnimalRepositoryCustom#llegirCamps(java.util.Collection, SeleccioCamps)
+   */
+  public Optional<Map<String, Object>>getCampsAnimal(Long numId, SeleccioCamps camps){
+    if (numId == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(animalRepository.llegirCamps(List.of(numId), camps).get(numId));
   }
 
   /**
- * Retorna tots els animals que no pertanyen a les espècies "Gos" ni "Gat" i que estan en situació d'adopció.
- * 
- * <p>Aquest mètode implementa la categoria "Exòtic",
- * incloent espècies com conills, aus, cobaias, rèptils, etc., sempre que estiguin
- * disponibles per a adopció ({@code esAdoptat = false}).
- * 
- * @return una llista d'animals d'espècies diferents a "Gos" i "Gat" i que estan en situació d'adopció.
- *         La llista pot estar buida si no hi ha animals "exòtics" disponibles.
- * 
- * @see AnimalRepository#findByEspecieNotInAndEsAdoptatFalse(List)
- */
-  public List<Animal>getAnimalsExcluirGosGatNoAdoptats(){
-    return animalRepository.findByEspecieNotInAndEsAdoptatFalse(Arrays.asList("Gos","Gat"));
+   * Mostra només uns camps de diversos animals, com {@link #getAnimalsByIds(List)}: en el mateix ordre que
+   * {@code numIds}, sense repetits i ometent els que no existeixen.
+   * 
+   * @param numIds els identificadors dels animals (com a màxim {@link #LIMIT_MAXIM}, ho comprova el controlador).
+   * @param camps els camps a retornar.
+   * @return una llista amb els camps demanats de cada animal trobat. Pot estar buida.
+   * 
+   * @see AnimalRepositoryCustom#llegirCamps(java.util.Collection, SeleccioCamps)
+   */
+  public List<Map<String, Object>>getCampsAnimals(List<Long> numIds, SeleccioCamps camps){
+    List<Long> unics = numIds.stream().filter(Objects::nonNull).distinct().toList();
+    if (unics.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, Map<String, Object>> perId = animalRepository.llegirCamps(unics, camps);
+    return unics.stream().map(perId::get).filter(Objects::nonNull).toList();
   }
 
   /**
-   * Retorna tots els animals que no estan adoptats i que pertanyen a protectores
-   * ubicades en una província específica.
+   * Guarda un animal en el sistema.
+   * 
+   * <p>Si el animal ya tiene un {@code numId} válido y existe en la base de datos,
+   * se actualizan los datos. Si no tiene {@code numId} o es nuevo,
+   * se crea un animal nuevo con su identificador autogenerado.
+   * 
+   * <p>Este métode gestiona automáticamente la relación con la protectora
+   * si se incluye el objeto {@link Protectora} completo dentro del animal.
    * 
-   * @param provincia la província on es troben les protectores.
-   * @return una llista d'animals no adoptats de protectores en la província indicada.
-   *         Pot estar buida si no hi ha animals disponibles en aquesta ubicació.
-   * @see AnimalRepository#findNonAdoptedAnimalsByProtectoraProvincia(String)
+   * <p>También actualiza el animal en los índices de búsqueda {@link IndexAnimals} y {@link CercaTextAnimals}
+   * y en el recuento de animales disponibles del mapa {@link MapaProtectores},
+   * y vacía las cachés de búsquedas y de detalles de animales (sus claves incluyen la versión del catálogo,
+   * {@link CatalegVersio}, que también se incrementa).
+   * 
+   * <p>Si el animal pasa a estar adoptado se guarda el momento de la adopción ({@code dataAdopcio}),
+   * que se conserva en las siguientes actualizaciones, y se refrescan las {@link AdopcionsRecents}.
+   * 
+   * @param animal entidad {@link Animal} con los datos a guardar.
+   * @return {@link Animal} guardado, añadiendo el identificador autogenerado si es nuevo.
    */
-  public List<Animal>getAnimalsNoAdoptatsByProvincia(String provincia){
-    return animalRepository.findNonAdoptedAnimalsByProtectoraProvincia(provincia);
+  @CacheEvict(cacheNames = {CacheConfig.CERCA_ANIMALS, CacheConfig.COMPTES_ANIMALS, CacheConfig.FACETS_ANIMALS,
+    CacheConfig.ANIMALS_ADOPTATS, CacheConfig.ANIMAL, CacheConfig.RESPOSTES_CATALEG}, allEntries = true)
+  public Animal save(Animal animal){
+      assignarDataAdopcio(animal);
+      Animal saved = animalRepository.save(animal);
+      indexAnimals.actualitzar(saved.getNumId());
+      cercaTextAnimals.indexar(saved.getNumId());
+      mapaProtectores.actualitzarAnimal(saved.getNumId());
+      adopcionsRecents.actualitzar(saved);
+      catalegVersio.incrementar();
+      return saved;
   }
 
   /**
-   * Retorna tots els animals que no estan adoptats i que pertanyen a protectores
-   * ubicades en un codi postal específic.
+   * Elimina un animal del sistema por su identificador.
+   * 
+   * <p>No lanza ninguna excepción si el animal no existe (comportamiento por defecto
+   * de {@link JpaRepository#deleteById}).
+   * 
+   * <p>Lo quita del recuento de animales disponibles del mapa {@link MapaProtectores}
+   * y vacía las cachés de búsquedas y de detalles de animales.
    * 
-   * @param codiPostal el codi postal on es troben les protectores.
-   * @return una llista d'animals no adoptats de protectores en el codi postal indicat.
-   *         Pot estar buida si no hi ha animals disponibles en aquesta ubicació.
-   * @see AnimalRepository#findNonAdoptedAnimalsByProtectoraCodiPostal(String)
+   * @param numId identificador del animal a eliminar.
    */
-  public List<Animal>getAnimalsNoAdoptatsByCodiPostal(String codiPostal){
-    return animalRepository.findNonAdoptedAnimalsByProtectoraCodiPostal(codiPostal);
+  @CacheEvict(cacheNames = {CacheConfig.CERCA_ANIMALS, CacheConfig.COMPTES_ANIMALS, CacheConfig.FACETS_ANIMALS,
+    CacheConfig.ANIMALS_ADOPTATS, CacheConfig.ANIMAL, CacheConfig.RESPOSTES_CATALEG}, allEntries = true)
+  public void deleteById(Long numId){
+      animalRepository.deleteById(numId);
+      indexAnimals.eliminar(numId);
+      cercaTextAnimals.eliminar(numId);
+      mapaProtectores.eliminarAnimal(numId);
+      adopcionsRecents.eliminar(numId);
+      catalegVersio.incrementar();
   }
 
   /**
-   * Retorna tots els animals que no estan adoptats i que pertanyen a protectores
-   * ubicades en una localització específica (adresa, ciutat, etc.).
+   * Tria a l'atzar animals disponibles per destacar-los a la pàgina d'inici.
    * 
-   * @param localitzacio la localització on es troben les protectores.
-   * @return una llista d'animals no adoptats de protectores en la localització indicada.
-   *         Pot estar buida si no hi ha animals disponibles en aquesta ubicació.
-   * @see AnimalRepository#findNonAdoptedAnimalsByProtectoraLocalitzacio(String)
+   * <p>La mostra es fa a {@link IndexAnimals#mostra(int)}, en memòria i sense {@code ORDER BY RAND()}.
+   * Mentre l'índex no està preparat (just en arrencar) es retornen els primers animals disponibles.
+   * 
+   * @param n el nombre d'animals desitjat; es limita entre 1 i {@link #MAXIM_DESTACATS}.
+   * @return les targetes {@link AnimalCardDTO} dels animals triats, en ordre aleatori.
    */
-  public List<Animal>getAnimalsNoAdoptatsByLocalitzacio(String localitzacio){
-    return animalRepository.findNonAdoptedAnimalsByProtectoraLocalitzacio(localitzacio);
+  public List<AnimalCardDTO>getDestacats(int n){
+    int mida = Math.max(1, Math.min(n, MAXIM_DESTACATS));
+    if (!indexAnimals.isPreparat()) {
+      return animalRepository.cercar(new FiltreAnimalsDTO(), null, mida);
+    }
+    return indexAnimals.mostra(mida);
   }
 
   /**
-   * Retorna tots els animals d'una espècie específica que no estan adoptats i que pertanyen a protectores
-   * ubicades en una localització específica (adresa, ciutat, etc.).
-   * 
-   * @param especie el nom de l'espècie a cercar (ha de coincidir exactament amb el valor
-   *                emmagatzemat a la base de dades, p. ex. "Gos", "Gat").
-   * @param localitzacio la localització on es troben les protectores.
-   * @return una llista d'animals no adoptats de l'espècie seleccionada en la localització indicada.
-   *         Pot estar buida si no hi ha animals disponibles que compleixin aquests criteris.
-   * @see AnimalRepository#findNonAdoptedAnimalsByEspecieAndLocalitzacio(String, String)
+   * Retorna les adopcions més recents per al carrusel de la pàgina d'inici.
+   * 
+   * <p>Es responen des de la instantània en memòria de {@link AdopcionsRecents}, sense consultar la base de dades.
+   * 
+   * @param n el nombre d'adopcions desitjat; es limita a {@link AdopcionsRecents#MAXIM}.
+   * @return les targetes {@link AnimalCardDTO} dels últims animals adoptats, de la més recent a la més antiga.
    */
-  public List<Animal>getAnimalsByEspecieNoAdoptatsByLocalitzacio(String especie, String localitzacio){
-    return animalRepository.findNonAdoptedAnimalsByEspecieAndLocalitzacio(especie, localitzacio);
+  public List<AnimalCardDTO>getAdopcionsRecents(int n){
+    return adopcionsRecents.recents(n);
   }
 
   /**
-   * Retorna tots els animals que no pertanyen a les espècies "Gos" ni "Gat" i que no estan adoptats,
-   * i que pertanyen a protectores ubicades en una localització específica (adresa, ciutat, etc.).
+   * Informa la data d'adopció abans de guardar: es buida si l'animal no està adoptat, es manté
+   * la que ja tenia a la base de dades si ja ho estava i, si és una adopció nova, és el moment actual.
    * 
-   * @param localitzacio la localització on es troben les protectores.
-   * @return una llista d'animals d'espècies diferents a "Gos" i "Gat" i que estan en situació d'adopció
-   *         en la localització indicada. Pot estar buida si no hi ha animals disponibles que compleixin aquests criteris.
-   * @see AnimalRepository#findNonAdoptedExoticAnimalsByLocalitzacio(String)
+   * @param animal l'animal que es guardarà.
    */
-  public List<Animal>getAnimalsExcluirGosGatNoAdoptatsByLocalitzacio(String localitzacio){
-    return animalRepository.findNonAdoptedExoticAnimalsByLocalitzacio(localitzacio);
+  private void assignarDataAdopcio(Animal animal){
+    if (!animal.getEsAdoptat()) {
+      animal.setDataAdopcio(null);
+      return;
+    }
+    if (animal.getDataAdopcio() != null) {
+      return;
+    }
+    Timestamp anterior = animal.getNumId() == null ? null
+      : animalRepository.findById(animal.getNumId()).map(Animal::getDataAdopcio).orElse(null);
+    animal.setDataAdopcio(anterior != null ? anterior : Timestamp.from(Instant.now()));
   }
 
   /**
-   * Mostra els detalls d'un animal pel seu identificador únic numèric,
-   * incloent la informació de la protectora associada.
-   * 
-   * <p>Si l'ID proporcionat és {@code null}, es retorna un {@link Optional#empty()} 
-   * per evitar excepcions.
+   * Normalitza la mida de pàgina demanada pel client entre 1 i {@link #LIMIT_MAXIM}.
    * 
-   * @param numId l'identificador únic de l'animal a cercar.
-   * @return un {@link Optional} que conté l'animal amb la seva protectora si es troba,
-   *         o buit si no existeix o si l'ID és {@code null}.
-   * 
-   * @see AnimalRepository#findByIdWithProtectora(Long)
+   * @param limit la mida de pàgina demanada.
+   * @return la mida de pàgina que s'aplicarà realment.
    */
-  public Optional<Animal>getAnimalByIdWithProtectora(Long numId){
-    if (numId == null) {
-        return Optional.empty();
-    }
-    return animalRepository.findByIdWithProtectora(numId);
+  private int midaPagina(int limit){
+    return Math.max(1, Math.min(limit, LIMIT_MAXIM));
   }
 
   /**
-   * Guarda un animal en el sistema.
-   * 
-   * <p>Si el animal ya tiene un {@code numId} válido y existe en la base de datos,
-   * se actualizan los datos. Si no tiene {@code numId} o es nuevo,
-   * se crea un animal nuevo con su identificador autogenerado.
+   * Converteix el cursor rebut del client en un {@code numId} de partida.
    * 
-   * <p>Este métode gestiona automáticamente la relación con la protectora
-   * si se incluye el objeto {@link Protectora} completo dentro del animal.
-   * 
-   * @param animal entidad {@link Animal} con los datos a guardar.
-   * @return {@link Animal} guardado, añadiendo el identificador autogenerado si es nuevo.
+   * @param after l'últim {@code numId} rebut, o {@code null} per començar des del principi.
+   * @return el {@code numId} a partir del qual s'han de cercar els animals.
    */
-  public Animal save(Animal animal){
-      return animalRepository.save(animal);
+  private Long cursor(Long after){
+    return after == null ? 0L : after;
   }
 
   /**
-   * Elimina un animal del sistema por su identificador.
+   * Construeix una pàgina a partir dels resultats d'una consulta que ha demanat
+   * un element més del necessari. Si aquest element extra existeix, hi ha pàgina següent
+   * i el cursor és el {@code numId} de l'últim element retornat.
    * 
-   * <p>No lanza ninguna excepción si el animal no existe (comportamiento por defecto
-   * de {@link JpaRepository#deleteById}).
+   * @param animals resultats de la consulta (com a màxim {@code mida + 1}).
+   * @param mida la mida de pàgina aplicada.
+   * @return la pàgina amb els animals i el cursor de la pàgina següent.
+   */
+  private PaginaDTO<AnimalCardDTO> pagina(List<AnimalCardDTO> animals, int mida){
+    if (animals.size() <= mida) {
+      return new PaginaDTO<>(animals, null, mida);
+    }
+    List<AnimalCardDTO> items = animals.subList(0, mida);
+    return new PaginaDTO<>(items, items.get(mida - 1).getNumId(), mida);
+  }
+
+  /**
+   * Construeix una pàgina de resultats ordenats per rellevància, on el cursor és la posició
+   * dins del rànquing en lloc d'un {@code numId}.
    * 
-   * @param numId identificador del animal a eliminar.
+   * @param animals resultats a partir de {@code posicio} (com a màxim {@code mida + 1}).
+   * @param posicio nombre de resultats ja retornats a les pàgines anteriors.
+   * @param mida la mida de pàgina aplicada.
+   * @return la pàgina amb els animals i la posició on comença la pàgina següent.
    */
-  public void deleteById(Long numId){
-      animalRepository.deleteById(numId);
+  private PaginaDTO<AnimalCardDTO> paginaPerPosicio(List<AnimalCardDTO> animals, int posicio, int mida){
+    if (animals.size() <= mida) {
+      return new PaginaDTO<>(animals, null, mida);
+    }
+    return new PaginaDTO<>(animals.subList(0, mida), (long) posicio + mida, mida);
   }
 }
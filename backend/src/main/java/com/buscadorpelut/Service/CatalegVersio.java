@@ -0,0 +1,62 @@
+package com.buscadorpelut.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Versió del catàleg públic (animals i protectores), que augmenta amb cada modificació.
+ *
+ * <p>Els serveis l'incrementen després de guardar o eliminar un animal o una protectora, i
+ * {@link com.buscadorpelut.Config.EtagCatalegFilter} la fa servir com a ETag de les respostes de
+ * {@code /api/animals} i {@code /api/protectores}. Si el client ja té la versió actual,
+ * rep un {@code 304 Not Modified} sense cos.
+ *
+ * <p>El valor inicial és l'instant d'arrencada en mil·lisegons, de manera que després d'un reinici
+ * (quan les dades poden haver canviat fora de l'aplicació) mai es reutilitza una versió anterior.
+ */
+@Component
+public class CatalegVersio {
+
+    private final AtomicLong versio = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Retorna la versió actual del catàleg.
+     *
+     * @return la versió actual.
+     */
+    public long actual() {
+        return versio.get();
+    }
+
+    /**
+     * Marca que el catàleg ha canviat.
+     *
+     * @return la nova versió.
+     */
+    public long incrementar() {
+        return versio.incrementAndGet();
+    }
+
+    /**
+     * Retorna l'ETag fort que correspon a una versió.
+     *
+     * @param versio la versió del catàleg.
+     * @return l'ETag entre cometes, per exemple {@code "v1712345678901"}.
+     */
+    public static String etag(long versio) {
+        return etag(versio, null);
+    }
+
+    /**
+     * Retorna l'ETag fort d'una variant de la resposta (per exemple, comprimida amb gzip) d'una versió.
+     * Cada variant té bytes diferents i, per tant, ha de tenir un ETag diferent.
+     *
+     * @param versio la versió del catàleg.
+     * @param variant el nom de la variant, o {@code null} per a la resposta JSON sense comprimir.
+     * @return l'ETag entre cometes, per exemple {@code "v1712345678901-gzip"}.
+     */
+    public static String etag(long versio, String variant) {
+        return "\"v" + versio + (variant == null ? "" : "-" + variant) + "\"";
+    }
+}
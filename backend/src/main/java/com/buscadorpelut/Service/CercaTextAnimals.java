@@ -0,0 +1,474 @@
+package com.buscadorpelut.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.ca.CatalanAnalyzer;
+import org.apache.lucene.analysis.es.SpanishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.ClauCerca;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.AnimalRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cerca de text lliure sobre el nom i la descripció dels animals, amb un índex Lucene al disc local.
+ *
+ * <p>Cada text s'indexa dues vegades, amb l'analitzador català i amb el castellà (eliminació de
+ * paraules buides i reducció a l'arrel), i la consulta es compara amb totes dues versions.
+ * Els resultats s'ordenen per rellevància i el nom pesa més que la descripció.
+ * Els criteris estructurats del {@link FiltreAnimalsDTO} s'apliquen com a filtres de la mateixa
+ * consulta Lucene, i les targetes es construeixen amb els camps guardats a l'índex,
+ * de manera que la cerca no consulta la base de dades.
+ *
+ * <p>L'índex es reconstrueix sencer en arrencar l'aplicació i s'actualitza en temps quasi real
+ * des de {@link AnimalService#save(Animal)}, {@link AnimalService#deleteById(Long)} i
+ * {@link ProtectoraService#save(Protectora)} i {@link ProtectoraService#deleteById(Long)}: cada canvi es fa visible a les cerques sense escriure'l
+ * al disc ({@link SearcherManager} sobre l'{@link IndexWriter} obert). Els canvis es fan durables
+ * ({@link IndexWriter#commit()}) periòdicament, cada {@code buscadorpelut.cerca.interval-commit-ms}
+ * mil·lisegons, i en aturar l'aplicació; si l'aplicació s'atura de cop, es recuperen igualment
+ * perquè l'índex es reconstrueix en arrencar.
+ *
+ * <p>El directori de l'índex es configura amb la propietat {@code buscadorpelut.cerca.directori}.
+ */
+@Component
+public class CercaTextAnimals {
+
+    /** Nombre màxim de resultats ordenats per rellevància que es poden recórrer paginant. */
+    public static final int MAXIM_RESULTATS = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(CercaTextAnimals.class);
+
+    private static final float PES_NOM = 3.0f;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    @Value("${buscadorpelut.cerca.directori:data/index-animals}")
+    private String directori;
+
+    private final Analyzer analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(), Map.of(
+        "nomAn_ca", new CatalanAnalyzer(),
+        "nomAn_es", new SpanishAnalyzer(),
+        "descripcio_ca", new CatalanAnalyzer(),
+        "descripcio_es", new SpanishAnalyzer()));
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    /**
+     * Obre (o crea) l'índex al directori configurat.
+     *
+     * @throws IOException si no es pot obrir el directori de l'índex.
+     */
+    @PostConstruct
+    public void obrir() throws IOException {
+        directory = FSDirectory.open(Path.of(directori));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+            .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    /**
+     * Tanca l'índex en aturar l'aplicació.
+     *
+     * @throws IOException si falla el tancament.
+     */
+    @PreDestroy
+    public void tancar() throws IOException {
+        writer.commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Fa durables al disc els canvis pendents de l'índex, si n'hi ha.
+     *
+     * @throws IOException si falla l'escriptura.
+     */
+    @Scheduled(fixedDelayString = "${buscadorpelut.cerca.interval-commit-ms:60000}")
+    public void confirmar() throws IOException {
+        if (writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    /**
+     * Reconstrueix l'índex quan l'aplicació ja ha arrencat, per recollir canvis fets fora de l'aplicació.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enArrencar() {
+        reconstruir();
+    }
+
+    /**
+     * Torna a indexar tots els animals de la base de dades.
+     *
+     * <p>Les cerques concurrents continuen veient l'índex anterior fins que acaba.
+     */
+    public void reconstruir() {
+        long inici = System.nanoTime();
+        List<Animal> animals = animalRepository.findAllWithProtectora();
+        try {
+            writer.deleteAll();
+            for (Animal animal : animals) {
+                writer.addDocument(document(animal));
+            }
+            publicar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'ha pogut reconstruir l'índex de text", e);
+        }
+        log.info("Índex de text d'animals reconstruït: {} animals en {} ms",
+            animals.size(), (System.nanoTime() - inici) / 1_000_000);
+    }
+
+    /**
+     * Torna a indexar un animal després de guardar-lo.
+     *
+     * @param numId identificador de l'animal guardat.
+     */
+    public void indexar(Long numId) {
+        if (numId == null) {
+            return;
+        }
+        try {
+            Animal animal = animalRepository.findByIdWithProtectora(numId).orElse(null);
+            if (animal == null) {
+                writer.deleteDocuments(new Term("numId", numId.toString()));
+            } else {
+                writer.updateDocument(new Term("numId", numId.toString()), document(animal));
+            }
+            publicar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'ha pogut indexar l'animal " + numId, e);
+        }
+    }
+
+    /**
+     * Torna a indexar tots els animals d'una protectora (per exemple, si n'ha canviat la ubicació).
+     *
+     * @param codiProt codi de la protectora.
+     */
+    public void indexarProtectora(Long codiProt) {
+        if (codiProt == null) {
+            return;
+        }
+        try {
+            for (Animal animal : animalRepository.findByProtectoraWithProtectora(codiProt)) {
+                writer.updateDocument(new Term("numId", animal.getNumId().toString()), document(animal));
+            }
+            publicar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'han pogut indexar els animals de la protectora " + codiProt, e);
+        }
+    }
+
+    /**
+     * Treu de l'índex els animals d'una protectora després d'eliminar-la.
+     *
+     * <p>Els animals que encara existeixen a la base de dades (si la clau forana s'ha posat a {@code null})
+     * es tornen a indexar sense protectora.
+     *
+     * @param codiProt codi de la protectora eliminada.
+     */
+    public void eliminarProtectora(Long codiProt) {
+        if (codiProt == null) {
+            return;
+        }
+        Term protectora = new Term("protectora", codiProt.toString());
+        try {
+            List<Long> numIds = new ArrayList<>();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                Query query = new TermQuery(protectora);
+                int total = searcher.count(query);
+                if (total > 0) {
+                    for (ScoreDoc hit : searcher.search(query, total).scoreDocs) {
+                        numIds.add(Long.valueOf(searcher.storedFields().document(hit.doc).get("numId")));
+                    }
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+
+            writer.deleteDocuments(protectora);
+            for (Long numId : numIds) {
+                Animal animal = animalRepository.findByIdWithProtectora(numId).orElse(null);
+                if (animal != null) {
+                    writer.updateDocument(new Term("numId", numId.toString()), document(animal));
+                }
+            }
+            publicar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'han pogut treure els animals de la protectora " + codiProt, e);
+        }
+    }
+
+    /**
+     * Treu un animal de l'índex després d'eliminar-lo.
+     *
+     * @param numId identificador de l'animal eliminat.
+     */
+    public void eliminar(Long numId) {
+        if (numId == null) {
+            return;
+        }
+        try {
+            writer.deleteDocuments(new Term("numId", numId.toString()));
+            publicar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'ha pogut eliminar l'animal " + numId + " de l'índex", e);
+        }
+    }
+
+    /**
+     * Cerca animals pel text {@code q} del filtre, aplicant la resta de criteris com a filtres.
+     *
+     * @param filtre criteris de cerca; {@code q} ha d'estar informat.
+     * @param posicio nombre de resultats ja retornats (0 per a la primera pàgina).
+     * @param limit el nombre màxim d'animals a retornar.
+     * @return una llista de targetes ordenada per rellevància. Buida si cap paraula de {@code q}
+     *         és significativa o si {@code posicio} supera {@link #MAXIM_RESULTATS}.
+     */
+    public List<AnimalCardDTO> cercar(FiltreAnimalsDTO filtre, int posicio, int limit) {
+        List<AnimalCardDTO> resultat = new ArrayList<>();
+        Query query = query(filtre);
+        if (query == null || posicio >= MAXIM_RESULTATS) {
+            return resultat;
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, Math.min(posicio + limit, MAXIM_RESULTATS));
+                for (int i = posicio; i < top.scoreDocs.length; i++) {
+                    ScoreDoc hit = top.scoreDocs[i];
+                    resultat.add(targeta(searcher.storedFields().document(hit.doc)));
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'ha pogut fer la cerca de text", e);
+        }
+        return resultat;
+    }
+
+    /**
+     * Compta els animals que coincideixen amb el text {@code q} i la resta de criteris del filtre.
+     *
+     * <p>Lucene compta les coincidències sense puntuar-les ni llegir els documents.
+     *
+     * @param filtre criteris de cerca; {@code q} ha d'estar informat.
+     * @return el nombre total de coincidències (sense el límit de {@link #MAXIM_RESULTATS}),
+     *         o 0 si cap paraula de {@code q} és significativa.
+     */
+    public long comptar(FiltreAnimalsDTO filtre) {
+        Query query = query(filtre);
+        if (query == null) {
+            return 0;
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return searcher.count(query);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'ha pogut comptar la cerca de text", e);
+        }
+    }
+
+    /**
+     * Construeix la consulta Lucene: el text com a part obligatòria (amb rellevància)
+     * i cada criteri estructurat com a filtre (sense rellevància).
+     *
+     * @return la consulta, o {@code null} si el text no conté cap paraula significativa.
+     */
+    private Query query(FiltreAnimalsDTO filtre) {
+        QueryBuilder builder = new QueryBuilder(analyzer);
+        BooleanQuery.Builder text = new BooleanQuery.Builder();
+        boolean teParaules = false;
+        for (String camp : List.of("nomAn_ca", "nomAn_es", "descripcio_ca", "descripcio_es")) {
+            Query query = builder.createBooleanQuery(camp, filtre.getQ());
+            if (query != null) {
+                text.add(camp.startsWith("nomAn") ? new BoostQuery(query, PES_NOM) : query, Occur.SHOULD);
+                teParaules = true;
+            }
+        }
+        if (!teParaules) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(text.build(), Occur.MUST);
+        if (filtre.getAdoptat() != null) {
+            query.add(new TermQuery(new Term("adoptat", filtre.getAdoptat().toString())), Occur.FILTER);
+        }
+        String especie = ClauCerca.normalitzar(filtre.getEspecie());
+        if (filtre.esExotic()) {
+            for (String comuna : FiltreAnimalsDTO.clausEspeciesComunes()) {
+                query.add(new TermQuery(new Term("especieClau", comuna)), Occur.MUST_NOT);
+            }
+        } else if (especie != null) {
+            query.add(new TermQuery(new Term("especieClau", especie)), Occur.FILTER);
+        }
+        if (filtre.getSexe() != null) {
+            query.add(new TermQuery(new Term("sexe", filtre.getSexe())), Occur.FILTER);
+        }
+        if (filtre.nascutAbans() != null) {
+            query.add(LongPoint.newRangeQuery("dataNeix", Long.MIN_VALUE,
+                filtre.nascutAbans().toLocalDate().toEpochDay()), Occur.FILTER);
+        }
+        if (filtre.nascutDespres() != null) {
+            query.add(LongPoint.newRangeQuery("dataNeix",
+                filtre.nascutDespres().toLocalDate().toEpochDay() + 1, Long.MAX_VALUE), Occur.FILTER);
+        }
+        String provincia = ClauCerca.normalitzar(filtre.getProvincia());
+        if (provincia != null) {
+            query.add(new TermQuery(new Term("provinciaClau", provincia)), Occur.FILTER);
+        }
+        String codiPostal = ClauCerca.normalitzarCodiPostal(filtre.getCodiPostal());
+        if (codiPostal != null) {
+            query.add(new TermQuery(new Term("codiPostalClau", codiPostal)), Occur.FILTER);
+        }
+        if (filtre.teLocalitzacio()) {
+            Set<Long> protectoresLocalitzacio = diccionariLocalitzacions.protectores(filtre.getLocalitzacio());
+            query.add(protectoresLocalitzacio == null ? new MatchNoDocsQuery()
+                : new TermInSetQuery("protectora", protectoresLocalitzacio.stream()
+                    .map(codiProt -> new BytesRef(codiProt.toString())).toList()), Occur.FILTER);
+        }
+        if (filtre.getProtectora() != null) {
+            query.add(new TermQuery(new Term("protectora", filtre.getProtectora().toString())), Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    /**
+     * Construeix el document Lucene d'un animal: camps de text analitzats, claus per filtrar
+     * i camps guardats per construir la targeta.
+     */
+    private Document document(Animal animal) {
+        Document doc = new Document();
+        doc.add(new StringField("numId", animal.getNumId().toString(), Field.Store.YES));
+        doc.add(new StringField("adoptat", Boolean.toString(animal.getEsAdoptat()), Field.Store.NO));
+        if (animal.getNomAn() != null) {
+            doc.add(new TextField("nomAn_ca", animal.getNomAn(), Field.Store.NO));
+            doc.add(new TextField("nomAn_es", animal.getNomAn(), Field.Store.NO));
+            doc.add(new StoredField("nomAn", animal.getNomAn()));
+        }
+        if (animal.getDescripcio() != null) {
+            doc.add(new TextField("descripcio_ca", animal.getDescripcio(), Field.Store.NO));
+            doc.add(new TextField("descripcio_es", animal.getDescripcio(), Field.Store.NO));
+        }
+        if (animal.getEspecie() != null) {
+            doc.add(new StoredField("especie", animal.getEspecie()));
+        }
+        String especie = ClauCerca.normalitzar(animal.getEspecie());
+        if (especie != null) {
+            doc.add(new StringField("especieClau", especie, Field.Store.NO));
+        }
+        if (animal.getSexe() != null) {
+            doc.add(new StringField("sexe", animal.getSexe(), Field.Store.YES));
+        }
+        if (animal.getDataNeix() != null) {
+            long dies = animal.getDataNeix().toLocalDate().toEpochDay();
+            doc.add(new LongPoint("dataNeix", dies));
+            doc.add(new StoredField("dataNeix", dies));
+        }
+        if (animal.getFotoPerfil() != null) {
+            doc.add(new StoredField("fotoPerfil", animal.getFotoPerfil()));
+        }
+        doc.add(new StoredField("localitat", animal.getLocalitatProtectora()));
+
+        Protectora protectora = animal.getProtectora();
+        if (protectora != null) {
+            String provincia = ClauCerca.normalitzar(protectora.getProvincia());
+            if (provincia != null) {
+                doc.add(new StringField("provinciaClau", provincia, Field.Store.NO));
+            }
+            String codiPostal = ClauCerca.normalitzarCodiPostal(protectora.getCodiPostal());
+            if (codiPostal != null) {
+                doc.add(new StringField("codiPostalClau", codiPostal, Field.Store.NO));
+            }
+            if (protectora.getCodiProt() != null) {
+                doc.add(new StringField("protectora", protectora.getCodiProt().toString(), Field.Store.NO));
+            }
+        }
+        return doc;
+    }
+
+    /**
+     * Construeix la targeta d'un animal a partir dels camps guardats del seu document.
+     */
+    private AnimalCardDTO targeta(Document doc) {
+        Number dataNeix = doc.getField("dataNeix") != null ? doc.getField("dataNeix").numericValue() : null;
+        return new AnimalCardDTO(
+            Long.valueOf(doc.get("numId")),
+            doc.get("nomAn"),
+            doc.get("especie"),
+            doc.get("sexe"),
+            dataNeix != null ? Date.valueOf(LocalDate.ofEpochDay(dataNeix.longValue())) : null,
+            doc.get("fotoPerfil"),
+            doc.get("localitat"));
+    }
+
+    /**
+     * Fa visibles els canvis a les cerques següents. No els escriu al disc: ho fa {@link #confirmar()}.
+     */
+    private void publicar() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+}
@@ -0,0 +1,209 @@
+package com.buscadorpelut.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.Config.FormatsBinarisConfig;
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.ComparativaFormatDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.AnimalRepository;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Compara els formats de resposta de l'API (JSON, CBOR i Smile) sobre les dades actuals del catàleg.
+ *
+ * <p>Per a cada mostra (les targetes dels animals disponibles, el detall d'animals amb la seva protectora
+ * i el directori de protectores) mesura la mida del cos, sense comprimir i amb gzip, i el temps mitjà
+ * d'escriure-la i de tornar-la a llegir amb els mateixos tipus. Els mappers es construeixen igual que
+ * els convertidors de {@link FormatsBinarisConfig}, de manera que els bytes són els que rep el client.
+ *
+ * <p>La comparació fa servir CPU durant segons, així que no s'executa al fil de la petició: {@link #iniciar(int)}
+ * l'encarrega a un fil propi (una sola alhora) i {@link #resultat()} retorna la darrera que ha acabat.
+ */
+@Component
+public class ComparativaFormats {
+
+    /** Nombre màxim de targetes de la mostra. */
+    public static final int MAXIM_TARGETES = 5000;
+
+    /** Nombre màxim d'iteracions que es poden demanar. */
+    public static final int MAXIM_ITERACIONS = 1000;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private ProtectoraRepository protectoraRepository;
+
+    @Autowired
+    private ObjectProvider<Jackson2ObjectMapperBuilder> constructors;
+
+    private static final Logger log = LoggerFactory.getLogger(ComparativaFormats.class);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(tasca -> {
+        Thread fil = new Thread(tasca, "comparativa-formats");
+        fil.setDaemon(true);
+        return fil;
+    });
+
+    private final AtomicBoolean enCurs = new AtomicBoolean();
+
+    private volatile List<ComparativaFormatDTO> resultat;
+
+    /**
+     * Mostra del catàleg i tipus amb què es torna a llegir.
+     */
+    private record Mostra(String nom, List<?> elements, Class<?> tipus) {}
+
+    /**
+     * Comença una comparació en segon pla, si no n'hi ha cap en curs.
+     *
+     * @param iteracions iteracions mesurades per mostra i format (entre 1 i {@link #MAXIM_ITERACIONS}).
+     * @return {@code true} si s'ha començat, o {@code false} si ja n'hi havia una en curs.
+     */
+    public boolean iniciar(int iteracions) {
+        if (!enCurs.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    resultat = List.copyOf(comparar(iteracions));
+                } catch (RuntimeException e) {
+                    log.warn("No s'ha pogut comparar els formats de resposta", e);
+                } finally {
+                    enCurs.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            enCurs.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Indica si hi ha una comparació en curs.
+     *
+     * @return {@code true} si n'hi ha una en curs.
+     */
+    public boolean enCurs() {
+        return enCurs.get();
+    }
+
+    /**
+     * Retorna el resultat de la darrera comparació acabada.
+     *
+     * @return una fila per mostra i format, o buit si encara no n'ha acabat cap.
+     */
+    public Optional<List<ComparativaFormatDTO>> resultat() {
+        return Optional.ofNullable(resultat);
+    }
+
+    /**
+     * Atura el fil de les comparacions en aturar l'aplicació.
+     */
+    @PreDestroy
+    public void tancar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Serialitza i llegeix cada mostra del catàleg en cada format, al fil actual.
+     *
+     * <p>Abans de mesurar es fan tantes iteracions d'escalfament com iteracions mesurades (perquè el JIT
+     * compili el codi de cada format), i l'ordre dels formats és sempre el mateix.
+     *
+     * @param iteracions iteracions mesurades per mostra i format (entre 1 i {@link #MAXIM_ITERACIONS}).
+     * @return una fila per mostra i format.
+     */
+    public List<ComparativaFormatDTO> comparar(int iteracions) {
+        int n = Math.max(1, Math.min(iteracions, MAXIM_ITERACIONS));
+        Map<String, ObjectMapper> formats = Map.of(
+            MediaType.APPLICATION_JSON_VALUE, FormatsBinarisConfig.mapper(constructors, new JsonFactory()),
+            FormatsBinarisConfig.CBOR, FormatsBinarisConfig.mapper(constructors, new CBORFactory()),
+            FormatsBinarisConfig.SMILE, FormatsBinarisConfig.mapper(constructors, new SmileFactory()));
+
+        List<ComparativaFormatDTO> resultats = new ArrayList<>();
+        for (Mostra mostra : mostres()) {
+            for (String format : List.of(MediaType.APPLICATION_JSON_VALUE, FormatsBinarisConfig.CBOR, FormatsBinarisConfig.SMILE)) {
+                resultats.add(mesurar(mostra, format, formats.get(format), n));
+            }
+        }
+        return resultats;
+    }
+
+    private List<Mostra> mostres() {
+        List<AnimalCardDTO> targetes = animalRepository.cercar(new FiltreAnimalsDTO(), null, MAXIM_TARGETES);
+        List<Long> ids = targetes.stream().limit(AnimalService.LIMIT_MAXIM).map(AnimalCardDTO::getNumId).toList();
+        List<Animal> animals = ids.isEmpty() ? List.of() : animalRepository.findAllByIdWithProtectora(ids);
+        List<Protectora> protectores = protectoraRepository.findAll();
+        return List.of(
+            new Mostra("targetes", targetes, AnimalCardDTO.class),
+            new Mostra("animals", animals, Animal.class),
+            new Mostra("protectores", protectores, Protectora.class));
+    }
+
+    private static ComparativaFormatDTO mesurar(Mostra mostra, String format, ObjectMapper mapper, int iteracions) {
+        JavaType tipus = mapper.getTypeFactory().constructCollectionType(List.class, mostra.tipus());
+        try {
+            byte[] cos = mapper.writeValueAsBytes(mostra.elements());
+            for (int i = 0; i < iteracions; i++) {
+                mapper.readValue(mapper.writeValueAsBytes(mostra.elements()), tipus);
+            }
+
+            long inici = System.nanoTime();
+            for (int i = 0; i < iteracions; i++) {
+                cos = mapper.writeValueAsBytes(mostra.elements());
+            }
+            long escriure = System.nanoTime() - inici;
+
+            inici = System.nanoTime();
+            for (int i = 0; i < iteracions; i++) {
+                mapper.readValue(cos, tipus);
+            }
+            long llegir = System.nanoTime() - inici;
+
+            return new ComparativaFormatDTO(mostra.nom(), mostra.elements().size(), format, cos.length, gzip(cos).length,
+                escriure / 1000.0 / iteracions, llegir / 1000.0 / iteracions);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No s'ha pogut serialitzar la mostra " + mostra.nom() + " en " + format, e);
+        }
+    }
+
+    private static byte[] gzip(byte[] cos) throws IOException {
+        ByteArrayOutputStream sortida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(sortida)) {
+            gzip.write(cos);
+        }
+        return sortida.toByteArray();
+    }
+}
@@ -0,0 +1,220 @@
+package com.buscadorpelut.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.DTO.SuggerimentLocalitzacioDTO;
+import com.buscadorpelut.Model.ArbrePrefixos;
+import com.buscadorpelut.Model.ClauCerca;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Model.TipusLocalitzacio;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+/**
+ * Diccionari en memòria de les localitzacions de les protectores (codi postal, província i localitat),
+ * per resoldre el filtre {@code localitzacio} de la cerca d'animals.
+ *
+ * <p>En lloc de comparar el text amb diverses columnes alhora ({@code provincia = :x OR codiPostal = :x},
+ * que no pot aprofitar cap índex), primer es classifica: si només té xifres és un codi postal, i si no,
+ * el nom d'una província o d'una localitat (o de totes dues, com "Girona"). El resultat són els codis de
+ * les protectores d'aquesta localització (la unió, si el nom és ambigu), i les cerques filtren per
+ * {@code codiProt}, que està indexat a la taula {@code animal}, a {@link IndexAnimals} i a {@link CercaTextAnimals}.
+ *
+ * <p>També manté un arbre de prefixos ({@link ArbrePrefixos}) amb les províncies, localitats, codis postals
+ * i noms de protectora diferents, sense accents ni majúscules, per a l'autocompletat ({@link #suggerir}).
+ *
+ * <p>Es construeix amb totes les protectores en el primer ús i {@link ProtectoraService} el reconstrueix
+ * quan guarda o elimina una protectora.
+ */
+@Component
+public class DiccionariLocalitzacions {
+
+    /** Nombre màxim de suggeriments per prefix. */
+    public static final int MAXIM_SUGGERIMENTS = 10;
+
+    /**
+     * Ordre dels suggeriments: primer els valors de més protectores, després per tipus
+     * ({@link TipusLocalitzacio}) i alfabèticament.
+     */
+    private static final Comparator<SuggerimentLocalitzacioDTO> ORDRE_SUGGERIMENTS =
+        Comparator.comparingInt(SuggerimentLocalitzacioDTO::getProtectores).reversed()
+            .thenComparing(SuggerimentLocalitzacioDTO::getTipus)
+            .thenComparing(suggeriment -> ClauCerca.normalitzar(suggeriment.getText()));
+
+    /**
+     * Codis de protectora per clau de cerca de cada tipus de localització, i arbre de suggeriments.
+     */
+    private record Diccionari(Map<String, Set<Long>> perCodiPostal, Map<String, Set<Long>> perProvincia,
+        Map<String, Set<Long>> perLocalitat, ArbrePrefixos<SuggerimentLocalitzacioDTO> suggeriments) {}
+
+    /**
+     * Valor diferent d'un tipus de localització, per la seva clau de cerca.
+     */
+    private record Valor(TipusLocalitzacio tipus, String clau) {}
+
+    @Autowired
+    private ProtectoraRepository protectoraRepository;
+
+    private volatile Diccionari diccionari;
+
+    /**
+     * Torna a llegir totes les protectores i substitueix el diccionari.
+     */
+    public void reconstruir() {
+        Map<String, Set<Long>> perCodiPostal = new HashMap<>();
+        Map<String, Set<Long>> perProvincia = new HashMap<>();
+        Map<String, Set<Long>> perLocalitat = new HashMap<>();
+        List<Protectora> protectores = protectoraRepository.findAll();
+        for (Protectora protectora : protectores) {
+            afegir(perCodiPostal, ClauCerca.normalitzarCodiPostal(protectora.getCodiPostal()), protectora.getCodiProt());
+            afegir(perProvincia, ClauCerca.normalitzar(protectora.getProvincia()), protectora.getCodiProt());
+            afegir(perLocalitat, ClauCerca.normalitzar(protectora.getLocalitat()), protectora.getCodiProt());
+        }
+        diccionari = new Diccionari(congelar(perCodiPostal), congelar(perProvincia), congelar(perLocalitat),
+            suggeriments(protectores));
+    }
+
+    /**
+     * Resol el text del filtre {@code localitzacio} als codis de les protectores que hi corresponen.
+     *
+     * <p>Si el text només té xifres (ignorant els espais, per exemple "08 031"), es busca com a codi postal;
+     * si no, com a província i com a localitat, sense distingir majúscules ni accents.
+     *
+     * @param localitzacio el text de l'usuari (codi postal, província o localitat).
+     * @return els codis de les protectores d'aquesta localització (mai buit),
+     *         o {@code null} si el text és buit o no correspon a cap protectora.
+     * @see com.buscadorpelut.DTO.FiltreAnimalsDTO#teLocalitzacio()
+     */
+    public Set<Long> protectores(String localitzacio) {
+        String codiPostal = ClauCerca.normalitzarCodiPostal(localitzacio);
+        if (codiPostal == null) {
+            return null;
+        }
+        Diccionari actual = diccionari();
+        if (esCodiPostal(codiPostal)) {
+            return actual.perCodiPostal().get(codiPostal);
+        }
+        String nom = ClauCerca.normalitzar(localitzacio);
+        Set<Long> perProvincia = actual.perProvincia().get(nom);
+        Set<Long> perLocalitat = actual.perLocalitat().get(nom);
+        if (perLocalitat == null) {
+            return perProvincia;
+        }
+        if (perProvincia == null) {
+            return perLocalitat;
+        }
+        Set<Long> totes = new HashSet<>(perProvincia);
+        totes.addAll(perLocalitat);
+        return Set.copyOf(totes);
+    }
+
+    /**
+     * Retorna els valors de localització (i noms de protectora) que comencen pel text de l'usuari,
+     * sense distingir majúscules ni accents. Als noms de diverses paraules també es busca a partir
+     * de cada paraula ("gossos" suggereix "Protectora de Gossos"), però aquests van darrere.
+     *
+     * <p>Els suggeriments de cada prefix estan calculats i ordenats quan es construeix el diccionari:
+     * primer els valors de més protectores, després per tipus i alfabèticament.
+     *
+     * @param prefix el text escrit per l'usuari.
+     * @param limit nombre màxim de suggeriments (entre 1 i {@link #MAXIM_SUGGERIMENTS}).
+     * @return els suggeriments, buida si el prefix és buit o no coincideix amb res.
+     */
+    public List<SuggerimentLocalitzacioDTO> suggerir(String prefix, int limit) {
+        String clau = ClauCerca.normalitzar(prefix);
+        if (clau == null) {
+            return List.of();
+        }
+        String codiPostal = ClauCerca.normalitzarCodiPostal(prefix);
+        if (esCodiPostal(codiPostal)) {
+            clau = codiPostal;
+        }
+        return diccionari().suggeriments().buscar(clau, Math.max(1, Math.min(limit, MAXIM_SUGGERIMENTS)));
+    }
+
+    private static ArbrePrefixos<SuggerimentLocalitzacioDTO> suggeriments(List<Protectora> protectores) {
+        Map<Valor, SuggerimentLocalitzacioDTO> perValor = new LinkedHashMap<>();
+        ArbrePrefixos.Constructor<SuggerimentLocalitzacioDTO> arbre =
+            ArbrePrefixos.constructor(ORDRE_SUGGERIMENTS, MAXIM_SUGGERIMENTS);
+        for (Protectora protectora : protectores) {
+            comptar(perValor, TipusLocalitzacio.PROVINCIA, protectora.getProvincia(), ClauCerca.normalitzar(protectora.getProvincia()));
+            comptar(perValor, TipusLocalitzacio.LOCALITAT, protectora.getLocalitat(), ClauCerca.normalitzar(protectora.getLocalitat()));
+            comptar(perValor, TipusLocalitzacio.CODI_POSTAL, protectora.getCodiPostal(),
+                ClauCerca.normalitzarCodiPostal(protectora.getCodiPostal()));
+            String nom = ClauCerca.normalitzar(protectora.getNomProt());
+            if (nom != null) {
+                afegirParaules(arbre, nom,
+                    new SuggerimentLocalitzacioDTO(protectora.getNomProt().trim(), TipusLocalitzacio.PROTECTORA, protectora.getCodiProt(), 1));
+            }
+        }
+        perValor.forEach((valor, suggeriment) -> {
+            if (valor.tipus() == TipusLocalitzacio.CODI_POSTAL) {
+                arbre.afegir(valor.clau(), suggeriment, true);
+            } else {
+                afegirParaules(arbre, valor.clau(), suggeriment);
+            }
+        });
+        return arbre.construir();
+    }
+
+    /**
+     * Suma una protectora al suggeriment del valor (el text que es mostra és el de la primera protectora).
+     */
+    private static void comptar(Map<Valor, SuggerimentLocalitzacioDTO> perValor, TipusLocalitzacio tipus,
+            String text, String clau) {
+        if (clau != null) {
+            SuggerimentLocalitzacioDTO suggeriment = perValor.computeIfAbsent(new Valor(tipus, clau),
+                valor -> new SuggerimentLocalitzacioDTO(text.trim(), tipus, null, 0));
+            suggeriment.setProtectores(suggeriment.getProtectores() + 1);
+        }
+    }
+
+    /**
+     * Afegeix el suggeriment amb la clau sencera i a partir de cada paraula (després d'un espai, guió o apòstrof).
+     */
+    private static void afegirParaules(ArbrePrefixos.Constructor<SuggerimentLocalitzacioDTO> arbre, String clau,
+            SuggerimentLocalitzacioDTO suggeriment) {
+        arbre.afegir(clau, suggeriment, true);
+        for (int i = 1; i < clau.length(); i++) {
+            if (!Character.isLetterOrDigit(clau.charAt(i - 1)) && Character.isLetterOrDigit(clau.charAt(i))) {
+                arbre.afegir(clau.substring(i), suggeriment, false);
+            }
+        }
+    }
+
+    private Diccionari diccionari() {
+        Diccionari actual = diccionari;
+        if (actual == null) {
+            synchronized (this) {
+                if (diccionari == null) {
+                    reconstruir();
+                }
+                actual = diccionari;
+            }
+        }
+        return actual;
+    }
+
+    private static boolean esCodiPostal(String clau) {
+        return clau.chars().allMatch(Character::isDigit);
+    }
+
+    private static Map<String, Set<Long>> congelar(Map<String, Set<Long>> perClau) {
+        perClau.replaceAll((clau, codis) -> Set.copyOf(codis));
+        return Map.copyOf(perClau);
+    }
+
+    private static void afegir(Map<String, Set<Long>> perClau, String clau, Long codiProt) {
+        if (clau != null && codiProt != null) {
+            perClau.computeIfAbsent(clau, c -> new HashSet<>()).add(codiProt);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.buscadorpelut.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.Model.ClauCerca;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+/**
+ * Còpia en memòria de totes les protectores, amb un índex per cada camp de cerca, per respondre
+ * les consultes de {@link ProtectoraService} sense anar a la base de dades.
+ *
+ * <p>La taula de protectores és petita i gairebé només es llegeix. La còpia és immutable i es guarda
+ * en una sola referència {@code volatile}: {@link ProtectoraService} la reconstrueix sencera quan guarda
+ * o elimina una protectora i la substitueix de cop, de manera que les lectures no necessiten cap bloqueig
+ * i sempre veuen una còpia completa, l'anterior o la nova.
+ *
+ * <p>Els noms, les localitats i les províncies es comparen per la seva clau de {@link ClauCerca}
+ * (sense accents ni majúscules, com les columnes {@code *_clau} i la col·lació de MySQL), el codi postal
+ * per la clau sense espais i l'email sense majúscules.
+ *
+ * <p>Es construeix quan l'aplicació ja ha arrencat (o en el primer ús, si és abans). En construir-la es copien
+ * les protectores llegides, de manera que no queden lligades a cap context de persistència, i les consultes
+ * retornen aquestes mateixes instàncies, compartides per totes les peticions i sense copiar-les: són només
+ * per llegir. Per modificar una protectora s'ha de llegir del repositori (com fa
+ * {@link ProtectoraService#findById(Long)}).
+ */
+@Component
+public class DirectoriProtectores {
+
+    @Autowired
+    private ProtectoraRepository protectoraRepository;
+
+    /**
+     * Contingut de la còpia: totes les protectores, ordenades per codi, i un índex per camp.
+     */
+    private record Directori(List<Protectora> totes, Map<Long, Protectora> perCodi, Map<String, Protectora> perNom,
+            Map<String, Protectora> perEmail, Map<String, List<Protectora>> perCodiPostal,
+            Map<String, List<Protectora>> perLocalitat, Map<String, List<Protectora>> perProvincia) {}
+
+    private volatile Directori directori;
+
+    /**
+     * Construeix la còpia quan l'aplicació ja ha arrencat, perquè la primera consulta no l'hagi d'esperar.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enArrencar() {
+        reconstruir();
+    }
+
+    /**
+     * Torna a llegir totes les protectores i substitueix la còpia.
+     */
+    public void reconstruir() {
+        List<Protectora> totes = protectoraRepository.findAll().stream()
+            .map(DirectoriProtectores::copia)
+            .sorted(Comparator.comparing(Protectora::getCodiProt))
+            .toList();
+
+        Map<Long, Protectora> perCodi = new HashMap<>();
+        Map<String, Protectora> perNom = new HashMap<>();
+        Map<String, Protectora> perEmail = new HashMap<>();
+        for (Protectora protectora : totes) {
+            perCodi.put(protectora.getCodiProt(), protectora);
+            // Si es repeteix un nom o un email, es queda la protectora més antiga
+            afegirSiNoHiEs(perNom, ClauCerca.normalitzar(protectora.getNomProt()), protectora);
+            afegirSiNoHiEs(perEmail, clauEmail(protectora.getEmailProt()), protectora);
+        }
+        directori = new Directori(totes, Map.copyOf(perCodi), Map.copyOf(perNom), Map.copyOf(perEmail),
+            agrupar(totes, p -> ClauCerca.normalitzarCodiPostal(p.getCodiPostal())),
+            agrupar(totes, p -> ClauCerca.normalitzar(p.getLocalitat())),
+            agrupar(totes, p -> ClauCerca.normalitzar(p.getProvincia())));
+    }
+
+    /**
+     * Retorna totes les protectores.
+     *
+     * @return les protectores, ordenades per codi (llista immutable; les protectores no s'han de modificar).
+     */
+    public List<Protectora> totes() {
+        return directori().totes();
+    }
+
+    /**
+     * Retorna una protectora pel seu codi.
+     *
+     * @param codiProt el codi de la protectora (pot ser {@code null}).
+     * @return la protectora (no s'ha de modificar), o buit si no existeix.
+     */
+    public Optional<Protectora> perCodi(Long codiProt) {
+        return codiProt == null ? Optional.empty()
+            : Optional.ofNullable(directori().perCodi().get(codiProt));
+    }
+
+    /**
+     * Retorna una protectora pel seu nom (sense distingir majúscules ni accents).
+     *
+     * @param nomProt el nom de la protectora.
+     * @return la protectora (no s'ha de modificar), o buit si no n'hi ha cap amb aquest nom.
+     */
+    public Optional<Protectora> perNom(String nomProt) {
+        String clau = ClauCerca.normalitzar(nomProt);
+        return clau == null ? Optional.empty()
+            : Optional.ofNullable(directori().perNom().get(clau));
+    }
+
+    /**
+     * Retorna una protectora pel seu email (sense distingir majúscules).
+     *
+     * @param emailProt l'email de la protectora.
+     * @return la protectora (no s'ha de modificar), o buit si no n'hi ha cap amb aquest email.
+     */
+    public Optional<Protectora> perEmail(String emailProt) {
+        String clau = clauEmail(emailProt);
+        return clau == null ? Optional.empty()
+            : Optional.ofNullable(directori().perEmail().get(clau));
+    }
+
+    /**
+     * Retorna les protectores d'un codi postal (s'ignoren els espais).
+     *
+     * @param codiPostal el codi postal.
+     * @return les protectores, ordenades per codi (llista immutable; les protectores no s'han de modificar).
+     *         Pot estar buida.
+     */
+    public List<Protectora> perCodiPostal(String codiPostal) {
+        return buscar(directori().perCodiPostal(), ClauCerca.normalitzarCodiPostal(codiPostal));
+    }
+
+    /**
+     * Retorna les protectores d'una localitat (sense distingir majúscules ni accents).
+     *
+     * @param localitat la localitat.
+     * @return les protectores, ordenades per codi (llista immutable; les protectores no s'han de modificar).
+     *         Pot estar buida.
+     */
+    public List<Protectora> perLocalitat(String localitat) {
+        return buscar(directori().perLocalitat(), ClauCerca.normalitzar(localitat));
+    }
+
+    /**
+     * Retorna les protectores d'una província (sense distingir majúscules ni accents).
+     *
+     * @param provincia la província.
+     * @return les protectores, ordenades per codi (llista immutable; les protectores no s'han de modificar).
+     *         Pot estar buida.
+     */
+    public List<Protectora> perProvincia(String provincia) {
+        return buscar(directori().perProvincia(), ClauCerca.normalitzar(provincia));
+    }
+
+    /**
+     * Compta les protectores d'un codi postal, una localitat o una província (el primer criteri informat),
+     * o totes si no se n'indica cap.
+     *
+     * @param codiPostal el codi postal (pot ser {@code null}).
+     * @param localitat la localitat (pot ser {@code null}).
+     * @param provincia la província (pot ser {@code null}).
+     * @return el nombre de protectores que compleixen el criteri.
+     */
+    public int comptar(String codiPostal, String localitat, String provincia) {
+        Directori actual = directori();
+        if (codiPostal != null) {
+            return buscar(actual.perCodiPostal(), ClauCerca.normalitzarCodiPostal(codiPostal)).size();
+        }
+        if (localitat != null) {
+            return buscar(actual.perLocalitat(), ClauCerca.normalitzar(localitat)).size();
+        }
+        if (provincia != null) {
+            return buscar(actual.perProvincia(), ClauCerca.normalitzar(provincia)).size();
+        }
+        return actual.totes().size();
+    }
+
+    private static List<Protectora> buscar(Map<String, List<Protectora>> index, String clau) {
+        return clau == null ? List.of() : index.getOrDefault(clau, List.of());
+    }
+
+    private static void afegirSiNoHiEs(Map<String, Protectora> index, String clau, Protectora protectora) {
+        if (clau != null) {
+            index.putIfAbsent(clau, protectora);
+        }
+    }
+
+    /**
+     * Agrupa les protectores per una clau, mantenint l'ordre per codi. Les que no tenen clau no s'indexen.
+     */
+    private static Map<String, List<Protectora>> agrupar(List<Protectora> protectores, Function<Protectora, String> clau) {
+        Map<String, List<Protectora>> grups = new HashMap<>();
+        for (Protectora protectora : protectores) {
+            String valor = clau.apply(protectora);
+            if (valor != null) {
+                grups.computeIfAbsent(valor, v -> new ArrayList<>()).add(protectora);
+            }
+        }
+        grups.replaceAll((valor, grup) -> List.copyOf(grup));
+        return Map.copyOf(grups);
+    }
+
+    private static Protectora copia(Protectora protectora) {
+        Protectora copia = new Protectora(protectora.getCodiProt(), protectora.getNomProt(), protectora.getAdresa(),
+            protectora.getCodiPostal(), protectora.getLocalitat(), protectora.getProvincia(), protectora.getUrl(),
+            protectora.getLongitud(), protectora.getLatitud(), protectora.getTlfProt(), protectora.getEmailProt());
+        copia.actualitzarClaus();
+        return copia;
+    }
+
+    private static String clauEmail(String emailProt) {
+        return emailProt == null || emailProt.isBlank() ? null : emailProt.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Directori directori() {
+        Directori actual = directori;
+        if (actual == null) {
+            synchronized (this) {
+                if (directori == null) {
+                    reconstruir();
+                }
+                actual = directori;
+            }
+        }
+        return actual;
+    }
+}
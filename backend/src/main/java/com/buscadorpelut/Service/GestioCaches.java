@@ -0,0 +1,77 @@
+package com.buscadorpelut.Service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.Config.CacheConfig;
+import com.buscadorpelut.DTO.EstadistiquesCacheDTO;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Consulta i buida les memòries cau de consultes definides a {@link CacheConfig}.
+ *
+ * <p>Les invalidacions habituals es fan amb {@code @CacheEvict} als mètodes d'escriptura dels
+ * serveis; aquesta classe és per a la consola d'administració (estadístiques i buidat manual).
+ */
+@Component
+public class GestioCaches {
+
+    /** Caches amb dades d'animals, que cal buidar quan canvia l'índex de cerca. */
+    private static final List<String> CACHES_ANIMALS = List.of(
+        CacheConfig.CERCA_ANIMALS, CacheConfig.COMPTES_ANIMALS, CacheConfig.FACETS_ANIMALS, CacheConfig.ANIMALS_ADOPTATS, CacheConfig.ANIMAL,
+        CacheConfig.RESPOSTES_CATALEG);
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Retorna les estadístiques (encerts, fallades i desallotjaments) de cada cache.
+     *
+     * @return una llista amb les estadístiques de cada cache, ordenada pel nom.
+     */
+    public List<EstadistiquesCacheDTO> estadistiques() {
+        return cacheManager.getCacheNames().stream()
+            .sorted()
+            .map(cacheManager::getCache)
+            .filter(CaffeineCache.class::isInstance)
+            .map(cache -> estadistiques((CaffeineCache) cache))
+            .toList();
+    }
+
+    /**
+     * Buida les caches amb dades d'animals (cerques, facetes, adoptats, detall i respostes del catàleg).
+     */
+    public void buidarAnimals() {
+        CACHES_ANIMALS.forEach(this::buidar);
+    }
+
+    /**
+     * Buida totes les caches.
+     */
+    public void buidarTot() {
+        cacheManager.getCacheNames().forEach(this::buidar);
+    }
+
+    private void buidar(String nom) {
+        Cache cache = cacheManager.getCache(nom);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private static EstadistiquesCacheDTO estadistiques(CaffeineCache cache) {
+        CacheStats stats = cache.getNativeCache().stats();
+        return new EstadistiquesCacheDTO(
+            cache.getName(),
+            cache.getNativeCache().estimatedSize(),
+            stats.hitCount(),
+            stats.missCount(),
+            stats.evictionCount(),
+            stats.hitRate());
+    }
+}
@@ -0,0 +1,643 @@
+package com.buscadorpelut.Service;
+
+import java.sql.Date;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.AnimalIndexatDTO;
+import com.buscadorpelut.DTO.FacetsDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.DTO.InformeIndexDTO;
+import com.buscadorpelut.Model.BandaEdat;
+import com.buscadorpelut.Model.ClauCerca;
+import com.buscadorpelut.Model.OrdreAnimals;
+import com.buscadorpelut.Repository.AnimalRepository;
+
+/**
+ * Índex en memòria dels animals disponibles (no adoptats) per respondre la cerca pública sense consultar MySQL.
+ *
+ * <p>Per cada valor d'espècie, sexe, província, codi postal i protectora es guarda un {@link RoaringBitmap}
+ * (les claus de text són les normalitzades amb {@link ClauCerca})
+ * on el bit {@code numId} està actiu si l'animal té aquest valor. Una cerca és la intersecció
+ * dels bitmaps dels criteris informats; els resultats es recorren en ordre de {@code numId}
+ * a partir del cursor ({@link PeekableIntIterator#advanceIfNeeded(int)}), de manera que la paginació
+ * per cursor surt de forma natural.
+ *
+ * <p>Els bitmaps són comprimits (Roaring): cada bloc de 65.536 identificadors es guarda com a llista ordenada
+ * si té pocs animals i com a bitmap si en té molts. Així un valor amb pocs animals (una protectora o un codi
+ * postal) ocupa uns pocs bytes per animal, i no un bit per cada {@code numId} fins al més alt, com
+ * passaria amb un {@link java.util.BitSet}.
+ *
+ * <p>L'índex es construeix en arrencar l'aplicació, s'actualitza animal a animal des de
+ * {@link AnimalService#save(com.buscadorpelut.Model.Animal)} i {@link AnimalService#deleteById(Long)},
+ * i es reconstrueix sencer quan canvia una protectora (la seva ubicació afecta tots els seus animals).
+ *
+ * <p>Els canvis (actualitzacions, eliminacions i reconstruccions) s'apliquen d'un en un: cada actualització
+ * llegeix l'animal de la base de dades i l'aplica abans que comenci la següent, de manera que dues
+ * actualitzacions del mateix animal no es poden aplicar en l'ordre invers. Les cerques només esperen
+ * mentre es modifiquen els bitmaps, no mentre es llegeix la base de dades.
+ *
+ * <p>Les cerques d'animals adoptats no són a l'índex: {@link #cobreix(FiltreAnimalsDTO)} indica
+ * quan s'ha de fer servir la base de dades.
+ *
+ * <p>Per triar animals a l'atzar ({@link #mostra(int)}) es demana al bitmap d'animals disponibles l'identificador
+ * d'una posició ({@link RoaringBitmap#select(int)}), que no recorre el bitmap: no cal cap còpia dels identificadors.
+ */
+@Component
+public class IndexAnimals {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAnimals.class);
+
+    private static final RoaringBitmap BUIT = new RoaringBitmap();// Per als valors sense animals; no es modifica mai.
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Autowired
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock canvis = new ReentrantLock();// Ordena les actualitzacions entre elles.
+    private final ReentrantLock reconstruccio = new ReentrantLock();
+
+    private Map<Long, AnimalIndexatDTO> animals = new HashMap<>();
+    private RoaringBitmap disponibles = new RoaringBitmap();
+    private Map<String, RoaringBitmap> perEspecie = new HashMap<>();
+    private Map<String, RoaringBitmap> perSexe = new HashMap<>();
+    private Map<String, RoaringBitmap> perProvincia = new HashMap<>();
+    private Map<String, RoaringBitmap> perCodiPostal = new HashMap<>();
+    private Map<Long, RoaringBitmap> perProtectora = new HashMap<>();
+    private Map<BandaEdat, RoaringBitmap> perBandaEdat = new EnumMap<>(BandaEdat.class);
+    private Set<Long> pendents;// Animals modificats durant una reconstrucció (null si no se n'està fent cap).
+    private volatile LocalDate diaBandes = LocalDate.now();// Dia per al qual s'han calculat les franges d'edat (es consulta sense bloqueig).
+
+    private volatile boolean preparat = false;
+    private volatile Instant ultimaReconstruccio;
+    private volatile long duradaReconstruccioMs;
+
+    /**
+     * Construeix l'índex quan l'aplicació ja ha arrencat.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enArrencar() {
+        reconstruir();
+    }
+
+    /**
+     * Torna a construir l'índex sencer a partir de la base de dades.
+     *
+     * <p>L'índex nou es prepara a part i se substitueix de cop, de manera que les cerques
+     * concurrents veuen l'índex antic o el nou, mai un de mig construït.
+     * Els animals que s'actualitzen o s'eliminen mentre es carrega l'índex nou es tornen a llegir
+     * de la base de dades després de la substitució, perquè la càrrega pot ser anterior al canvi.
+     * La durada es registra al log i a l'informe de {@link #comprovarConsistencia()}.
+     */
+    public void reconstruir() {
+        reconstruccio.lock();
+        try {
+            long inici = System.nanoTime();
+            canvis.lock();
+            try {
+                pendents = new HashSet<>();
+            } finally {
+                canvis.unlock();
+            }
+            List<AnimalIndexatDTO> carregats;
+            try {
+                carregats = animalRepository.findDisponiblesPerIndex();
+            } catch (RuntimeException e) {
+                canvis.lock();
+                try {
+                    pendents = null;
+                } finally {
+                    canvis.unlock();
+                }
+                throw e;
+            }
+
+            // Instància auxiliar (no és un bean) només per omplir les estructures noves amb afegir()
+            IndexAnimals nou = new IndexAnimals();
+            for (AnimalIndexatDTO animal : carregats) {
+                nou.afegir(animal);
+            }
+
+            canvis.lock();
+            try {
+                lock.writeLock().lock();
+                try {
+                    animals = nou.animals;
+                    disponibles = nou.disponibles;
+                    perEspecie = nou.perEspecie;
+                    perSexe = nou.perSexe;
+                    perProvincia = nou.perProvincia;
+                    perCodiPostal = nou.perCodiPostal;
+                    perProtectora = nou.perProtectora;
+                    perBandaEdat = nou.perBandaEdat;
+                    diaBandes = nou.diaBandes;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                Set<Long> modificats = pendents;
+                pendents = null;
+                for (Long numId : modificats) {
+                    aplicar(numId);
+                }
+            } finally {
+                canvis.unlock();
+            }
+
+            duradaReconstruccioMs = (System.nanoTime() - inici) / 1_000_000;
+            ultimaReconstruccio = Instant.now();
+            preparat = true;
+            log.info("Índex d'animals reconstruït: {} animals disponibles en {} ms", carregats.size(), duradaReconstruccioMs);
+        } finally {
+            reconstruccio.unlock();
+        }
+    }
+
+    /**
+     * Actualitza un animal a l'índex després de guardar-lo.
+     *
+     * <p>Si l'animal ja no és disponible (s'ha adoptat o no existeix), se'n treu.
+     *
+     * @param numId identificador de l'animal guardat.
+     */
+    public void actualitzar(Long numId) {
+        if (numId == null) {
+            return;
+        }
+        canvis.lock();
+        try {
+            if (pendents != null) {
+                pendents.add(numId);
+            }
+            aplicar(numId);
+        } finally {
+            canvis.unlock();
+        }
+    }
+
+    /**
+     * Treu un animal de l'índex després d'eliminar-lo.
+     *
+     * @param numId identificador de l'animal eliminat.
+     */
+    public void eliminar(Long numId) {
+        if (numId == null) {
+            return;
+        }
+        canvis.lock();
+        try {
+            if (pendents != null) {
+                pendents.add(numId);
+            }
+            lock.writeLock().lock();
+            try {
+                treure(numId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            canvis.unlock();
+        }
+    }
+
+    /**
+     * Indica si l'índex ja s'ha construït.
+     *
+     * @return {@code true} després de la primera reconstrucció.
+     */
+    public boolean isPreparat() {
+        return preparat;
+    }
+
+    /**
+     * Tria {@code n} animals disponibles a l'atzar (sense repeticions), per als destacats de la pàgina d'inici.
+     *
+     * <p>Les posicions dins del bitmap d'animals disponibles es trien amb l'algorisme de Floyd,
+     * que fa exactament {@code n} extraccions aleatòries sigui quin sigui el nombre d'animals,
+     * i les targetes es llegeixen de l'índex, sense consultar la base de dades.
+     *
+     * @param n el nombre d'animals desitjat.
+     * @return fins a {@code n} targetes en ordre aleatori (menys si no hi ha prou animals disponibles).
+     */
+    public List<AnimalCardDTO> mostra(int n) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<AnimalCardDTO> resultat = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int total = disponibles.getCardinality();
+            int mida = Math.max(0, Math.min(n, total));
+            Set<Integer> triades = new HashSet<>();
+            for (int j = total - mida; j < total; j++) {
+                int posicio = random.nextInt(j + 1);
+                triades.add(triades.contains(posicio) ? j : posicio);
+            }
+            for (int posicio : triades) {
+                resultat.add(animals.get((long) disponibles.select(posicio)).toTargeta());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Collections.shuffle(resultat, random);
+        return resultat;
+    }
+
+    /**
+     * Indica si l'índex pot respondre una cerca amb aquest filtre.
+     *
+     * @param filtre criteris de cerca.
+     * @return {@code true} si l'índex està construït i la cerca és només d'animals disponibles,
+     *         sense text lliure i en l'ordre per defecte ({@code numId}).
+     */
+    public boolean cobreix(FiltreAnimalsDTO filtre) {
+        return preparat && Boolean.FALSE.equals(filtre.getAdoptat()) && !filtre.teText()
+            && filtre.ordre() == OrdreAnimals.ARRIBADA;
+    }
+
+    /**
+     * Cerca animals disponibles a l'índex, amb el mateix resultat que
+     * {@link com.buscadorpelut.Repository.AnimalRepositoryCustom#cercar(FiltreAnimalsDTO, Long, int)}.
+     *
+     * @param filtre criteris de cerca; els camps a {@code null} no s'apliquen.
+     * @param after l'últim {@code numId} ja retornat (0 per a la primera pàgina).
+     * @param limit el nombre màxim d'animals a retornar.
+     * @return una llista de targetes ordenada per {@code numId}.
+     */
+    public List<AnimalCardDTO> cercar(FiltreAnimalsDTO filtre, Long after, int limit) {
+        Date nascutAbans = filtre.nascutAbans();
+        Date nascutDespres = filtre.nascutDespres();
+        List<AnimalCardDTO> resultat = new ArrayList<>();
+
+        if (after >= Integer.MAX_VALUE) {
+            return resultat;
+        }
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidats = candidats(filtre);
+            PeekableIntIterator ids = candidats.getIntIterator();
+            ids.advanceIfNeeded((int) Math.max(after + 1, 0));
+            while (ids.hasNext() && resultat.size() < limit) {
+                AnimalIndexatDTO animal = animals.get((long) ids.next());
+                if (compleixEdat(animal, nascutAbans, nascutDespres)) {
+                    resultat.add(animal.toTargeta());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return resultat;
+    }
+
+    /**
+     * Compta els animals disponibles que compleixen el filtre, amb el mateix resultat que
+     * {@link com.buscadorpelut.Repository.AnimalRepositoryCustom#comptar(FiltreAnimalsDTO)}.
+     *
+     * <p>Sense criteris d'edat és la cardinalitat de la intersecció de bitmaps; amb edat es comprova
+     * la data de naixement de cada candidat.
+     *
+     * @param filtre criteris de cerca; els camps a {@code null} no s'apliquen.
+     * @return el nombre d'animals que compleixen els criteris.
+     */
+    public long comptar(FiltreAnimalsDTO filtre) {
+        Date nascutAbans = filtre.nascutAbans();
+        Date nascutDespres = filtre.nascutDespres();
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidats = candidats(filtre);
+            if (nascutAbans == null && nascutDespres == null) {
+                return candidats.getLongCardinality();
+            }
+            long total = 0;
+            for (IntIterator ids = candidats.getIntIterator(); ids.hasNext();) {
+                if (compleixEdat(animals.get((long) ids.next()), nascutAbans, nascutDespres)) {
+                    total++;
+                }
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compta els animals disponibles que compleixen el filtre per cada valor d'espècie, província,
+     * sexe i franja d'edat.
+     *
+     * <p>Cada recompte és la cardinalitat de la intersecció entre el bitmap de la cerca i el del valor,
+     * que es compta sense construir la intersecció ({@link RoaringBitmap#andCardinality}), de manera que el cost depèn del nombre de valors de cada faceta i no es recorre cap animal
+     * (excepte si el filtre té edat mínima o màxima, que s'aplica animal a animal).
+     * Les franges d'edat es recalculen una vegada al dia.
+     *
+     * @param filtre criteris de cerca que delimiten els recomptes.
+     * @return les facetes de la cerca.
+     */
+    public FacetsDTO facets(FiltreAnimalsDTO filtre) {
+        actualitzarBandes();
+        Date nascutAbans = filtre.nascutAbans();
+        Date nascutDespres = filtre.nascutDespres();
+
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidats = candidats(filtre);
+            if (nascutAbans != null || nascutDespres != null) {
+                RoaringBitmap perEdat = new RoaringBitmap();
+                for (IntIterator ids = candidats.getIntIterator(); ids.hasNext();) {
+                    int i = ids.next();
+                    if (compleixEdat(animals.get((long) i), nascutAbans, nascutDespres)) {
+                        perEdat.add(i);
+                    }
+                }
+                candidats = perEdat;
+            }
+
+            Map<String, Long> edat = new LinkedHashMap<>();
+            for (BandaEdat banda : BandaEdat.values()) {
+                edat.put(banda.name(), interseccio(candidats, bitmap(perBandaEdat, banda)));
+            }
+            return new FacetsDTO(candidats.getLongCardinality(),
+                recomptes(candidats, perEspecie, AnimalIndexatDTO::getEspecie),
+                recomptes(candidats, perProvincia, AnimalIndexatDTO::getProvincia),
+                recomptes(candidats, perSexe, AnimalIndexatDTO::getSexe),
+                edat);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compara l'índex amb els animals disponibles de la base de dades.
+     *
+     * @return un {@link InformeIndexDTO} amb els animals que falten, sobren o tenen dades diferents,
+     *         i les dades de l'última reconstrucció.
+     */
+    public InformeIndexDTO comprovarConsistencia() {
+        List<AnimalIndexatDTO> bd = animalRepository.findDisponiblesPerIndex();
+        List<Long> falten = new ArrayList<>();
+        List<Long> diferents = new ArrayList<>();
+        List<Long> sobren = new ArrayList<>();
+        int animalsIndex;
+
+        lock.readLock().lock();
+        try {
+            animalsIndex = animals.size();
+            Set<Long> vistos = new HashSet<>();
+            for (AnimalIndexatDTO animal : bd) {
+                vistos.add(animal.getNumId());
+                AnimalIndexatDTO indexat = animals.get(animal.getNumId());
+                if (indexat == null) {
+                    falten.add(animal.getNumId());
+                } else if (!indexat.equals(animal)) {
+                    diferents.add(animal.getNumId());
+                }
+            }
+            for (Long numId : animals.keySet()) {
+                if (!vistos.contains(numId)) {
+                    sobren.add(numId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        boolean consistent = falten.isEmpty() && sobren.isEmpty() && diferents.isEmpty();
+        if (!consistent) {
+            log.warn("Índex d'animals inconsistent: {} falten, {} sobren, {} diferents",
+                falten.size(), sobren.size(), diferents.size());
+        }
+        return new InformeIndexDTO(preparat, consistent, bd.size(), animalsIndex,
+            falten, sobren, diferents, ultimaReconstruccio, duradaReconstruccioMs);
+    }
+
+    /**
+     * Calcula el bitmap dels animals que compleixen els criteris indexats del filtre
+     * (tots excepte l'edat, que es comprova animal a animal).
+     *
+     * <p>Els bitmaps de cada valor ja són subconjunts de {@code disponibles}: amb un sol criteri es retorna
+     * el seu bitmap tal qual, i amb més d'un es fa una única intersecció nova (començant pel més petit)
+     * que després es redueix sobre ella mateixa.
+     *
+     * @param filtre criteris de cerca.
+     * @return el bitmap dels candidats. Pot ser un dels bitmaps de l'índex: no es pot modificar.
+     */
+    private RoaringBitmap candidats(FiltreAnimalsDTO filtre) {
+        List<RoaringBitmap> criteris = new ArrayList<>();
+        String especie = ClauCerca.normalitzar(filtre.getEspecie());
+        if (!filtre.esExotic() && especie != null) {
+            criteris.add(bitmap(perEspecie, especie));
+        }
+        if (filtre.getSexe() != null) {
+            criteris.add(bitmap(perSexe, filtre.getSexe()));
+        }
+        String provincia = ClauCerca.normalitzar(filtre.getProvincia());
+        if (provincia != null) {
+            criteris.add(bitmap(perProvincia, provincia));
+        }
+        String codiPostal = ClauCerca.normalitzarCodiPostal(filtre.getCodiPostal());
+        if (codiPostal != null) {
+            criteris.add(bitmap(perCodiPostal, codiPostal));
+        }
+        if (filtre.teLocalitzacio()) {
+            // Una localització desconeguda no té cap protectora: el bitmap queda buit
+            Set<Long> protectoresLocalitzacio = diccionariLocalitzacions.protectores(filtre.getLocalitzacio());
+            criteris.add(protectoresLocalitzacio == null ? BUIT : FastAggregation.or(
+                protectoresLocalitzacio.stream().map(codiProt -> bitmap(perProtectora, codiProt)).iterator()));
+        }
+        if (filtre.getProtectora() != null) {
+            criteris.add(bitmap(perProtectora, filtre.getProtectora()));
+        }
+        criteris.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+
+        RoaringBitmap candidats = disponibles;
+        boolean propi = false;// Si candidats és un bitmap nou, que es pot reduir sense copiar-lo.
+        for (RoaringBitmap criteri : criteris) {
+            if (criteri.isEmpty()) {
+                return BUIT;
+            }
+            if (candidats == disponibles) {
+                candidats = criteri;
+            } else if (propi) {
+                candidats.and(criteri);
+            } else {
+                candidats = RoaringBitmap.and(candidats, criteri);
+                propi = true;
+            }
+        }
+        if (filtre.esExotic()) {
+            for (String comuna : FiltreAnimalsDTO.clausEspeciesComunes()) {
+                RoaringBitmap bitmap = bitmap(perEspecie, comuna);
+                if (propi) {
+                    candidats.andNot(bitmap);
+                } else if (RoaringBitmap.intersects(candidats, bitmap)) {
+                    candidats = RoaringBitmap.andNot(candidats, bitmap);
+                    propi = true;
+                }
+            }
+        }
+        return candidats;
+    }
+
+    /**
+     * Recalcula els bitmaps de franges d'edat si ha canviat el dia (els animals es fan grans).
+     */
+    private void actualitzarBandes() {
+        LocalDate avui = LocalDate.now();
+        if (avui.equals(diaBandes)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (avui.equals(diaBandes)) {
+                return;
+            }
+            Map<BandaEdat, RoaringBitmap> bandes = new EnumMap<>(BandaEdat.class);
+            for (AnimalIndexatDTO animal : animals.values()) {
+                marcar(bandes, BandaEdat.de(animal.getDataNeix(), avui), bit(animal.getNumId()));
+            }
+            perBandaEdat = bandes;
+            diaBandes = avui;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compta, per cada valor d'una faceta, quants candidats el tenen.
+     *
+     * @param candidats bitmap dels animals que compleixen el filtre.
+     * @param bitmaps bitmaps de la faceta, per clau normalitzada.
+     * @param etiqueta valor a mostrar per a la clau (es pren d'un animal qualsevol amb aquesta clau).
+     * @return recomptes diferents de zero, de més a menys animals.
+     */
+    private Map<String, Long> recomptes(RoaringBitmap candidats, Map<String, RoaringBitmap> bitmaps,
+            Function<AnimalIndexatDTO, String> etiqueta) {
+        Map<String, Long> recomptes = new LinkedHashMap<>();
+        bitmaps.values().stream()
+            .map(bitmap -> Map.entry(bitmap, interseccio(candidats, bitmap)))
+            .filter(entrada -> entrada.getValue() > 0)
+            .sorted(Map.Entry.<RoaringBitmap, Long>comparingByValue().reversed())
+            .forEach(entrada -> recomptes.merge(
+                etiqueta.apply(animals.get((long) entrada.getKey().first())), entrada.getValue(), Long::sum));
+        return recomptes;
+    }
+
+    /**
+     * Comprova els límits d'edat del filtre sobre un animal (amb la mateixa semàntica que la consulta SQL).
+     */
+    private static boolean compleixEdat(AnimalIndexatDTO animal, Date nascutAbans, Date nascutDespres) {
+        Date dataNeix = animal.getDataNeix();
+        if (nascutAbans != null && (dataNeix == null || dataNeix.after(nascutAbans))) {
+            return false;
+        }
+        return nascutDespres == null || (dataNeix != null && dataNeix.after(nascutDespres));
+    }
+
+    private static long interseccio(RoaringBitmap a, RoaringBitmap b) {
+        return RoaringBitmap.andCardinality(a, b);
+    }
+
+    /**
+     * Llegeix un animal de la base de dades i el substitueix a l'índex (o el treu si ja no és disponible).
+     * S'ha de cridar amb {@code canvis} bloquejat, perquè la lectura i l'aplicació no s'intercalin
+     * amb les d'una altra actualització.
+     */
+    private void aplicar(Long numId) {
+        AnimalIndexatDTO animal = animalRepository.findDisponiblePerIndex(numId).orElse(null);
+        lock.writeLock().lock();
+        try {
+            treure(numId);
+            if (animal != null) {
+                afegir(animal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Afegeix un animal a l'índex. S'ha de cridar amb el bloqueig d'escriptura (o sobre un índex nou).
+     */
+    private void afegir(AnimalIndexatDTO animal) {
+        int bit = bit(animal.getNumId());
+        animals.put(animal.getNumId(), animal);
+        disponibles.add(bit);
+        marcar(perEspecie, animal.getEspecieClau(), bit);
+        marcar(perSexe, animal.getSexe(), bit);
+        marcar(perProvincia, animal.getProvinciaClau(), bit);
+        marcar(perCodiPostal, animal.getCodiPostalClau(), bit);
+        marcar(perProtectora, animal.getCodiProt(), bit);
+        marcar(perBandaEdat, BandaEdat.de(animal.getDataNeix(), diaBandes), bit);
+    }
+
+    /**
+     * Treu un animal de l'índex, si hi és. S'ha de cridar amb el bloqueig d'escriptura.
+     */
+    private void treure(Long numId) {
+        AnimalIndexatDTO animal = animals.remove(numId);
+        if (animal == null) {
+            return;
+        }
+        int bit = bit(numId);
+        disponibles.remove(bit);
+        desmarcar(perEspecie, animal.getEspecieClau(), bit);
+        desmarcar(perSexe, animal.getSexe(), bit);
+        desmarcar(perProvincia, animal.getProvinciaClau(), bit);
+        desmarcar(perCodiPostal, animal.getCodiPostalClau(), bit);
+        desmarcar(perProtectora, animal.getCodiProt(), bit);
+        desmarcar(perBandaEdat, BandaEdat.de(animal.getDataNeix(), diaBandes), bit);
+    }
+
+    private static <K> void marcar(Map<K, RoaringBitmap> bitmaps, K clau, int bit) {
+        if (clau != null) {
+            bitmaps.computeIfAbsent(clau, k -> new RoaringBitmap()).add(bit);
+        }
+    }
+
+    private static <K> void desmarcar(Map<K, RoaringBitmap> bitmaps, K clau, int bit) {
+        if (clau == null) {
+            return;
+        }
+        RoaringBitmap bitmap = bitmaps.get(clau);
+        if (bitmap != null) {
+            bitmap.remove(bit);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(clau);
+            }
+        }
+    }
+
+    private static <K> RoaringBitmap bitmap(Map<K, RoaringBitmap> bitmaps, K clau) {
+        return bitmaps.getOrDefault(clau, BUIT);
+    }
+
+    private static int bit(Long numId) {
+        return Math.toIntExact(numId);
+    }
+}
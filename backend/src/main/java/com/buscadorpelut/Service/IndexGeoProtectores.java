@@ -0,0 +1,156 @@
+package com.buscadorpelut.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.Config.ColumnaEspacialProtectora;
+import com.buscadorpelut.DTO.ProtectoraDistanciaDTO;
+import com.buscadorpelut.Model.ArbreKd;
+import com.buscadorpelut.Model.CaixaGeo;
+import com.buscadorpelut.Model.GraellaGeo;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+/**
+ * Índex espacial de les protectores, per a la cerca per proximitat.
+ *
+ * <p>Les coordenades ({@code latitud} i {@code longitud}) de totes les protectores es guarden en un
+ * {@link ArbreKd}, de manera que les protectores més properes a un punt es troben recorrent només una
+ * part de l'arbre i ja surten ordenades per distància, sense llegir tot el directori.
+ *
+ * <p>Per trobar la protectora d'unes coordenades concretes (per exemple, les d'un marcador del mapa, que
+ * poden arribar arrodonides o reprojectades) es fa servir una {@link GraellaGeo}: la protectora més propera
+ * dins de {@code buscadorpelut.geo.tolerancia-metres}, amb un nombre fix de consultes a un {@code HashMap}.
+ *
+ * <p>Es construeix amb totes les protectores en el primer ús i {@link ProtectoraService} el reconstrueix
+ * quan guarda o elimina una protectora. L'arbre i la graella són immutables i se substitueixen junts,
+ * de manera que les cerques no necessiten cap bloqueig.
+ *
+ * <p>Amb {@code buscadorpelut.geo.mode=mysql} les cerques es resolen a la base de dades, amb la columna
+ * espacial {@code ubicacio} i el seu índex {@code SPATIAL} ({@link ColumnaEspacialProtectora}), i no es
+ * manté cap arbre en memòria: és l'opció per a desplegaments amb diversos nodes, on cada node hauria de
+ * reconstruir el seu índex quan un altre modifica una protectora.
+ */
+@Component
+public class IndexGeoProtectores {
+
+    /** Radi de cerca per defecte, en quilòmetres. */
+    public static final double RADI_PER_DEFECTE_KM = 50;
+
+    /** Nombre màxim de protectores que es poden demanar d'una vegada. */
+    public static final int LIMIT_MAXIM = 100;
+
+    /** Valor de {@code buscadorpelut.geo.mode} per resoldre les cerques a MySQL en lloc de fer-ho en memòria. */
+    public static final String MODE_MYSQL = "mysql";
+
+    @Autowired
+    private ProtectoraRepository protectoraRepository;
+
+    @Value("${buscadorpelut.geo.mode:memoria}")
+    private String mode;
+
+    @Value("${buscadorpelut.geo.tolerancia-metres:25}")
+    private double toleranciaMetres;
+
+    /**
+     * Contingut de l'índex: l'arbre per a les cerques per proximitat i la graella per a les coordenades concretes.
+     */
+    private record Index(ArbreKd<Protectora> arbre, GraellaGeo<Protectora> graella) {}
+
+    private volatile Index index;
+
+    /**
+     * Torna a llegir totes les protectores i substitueix l'índex (no fa res si les cerques es resolen a MySQL).
+     */
+    public void reconstruir() {
+        if (esMysql()) {
+            return;
+        }
+        List<Protectora> protectores = protectoraRepository.findAll();
+        index = new Index(
+            ArbreKd.construir(protectores, Protectora::getLatitud, Protectora::getLongitud),
+            GraellaGeo.construir(protectores, Protectora::getLatitud, Protectora::getLongitud, toleranciaMetres / 1000));
+    }
+
+    /**
+     * Retorna les protectores més properes a un punt dins d'un radi.
+     *
+     * @param latitud latitud del punt, en graus.
+     * @param longitud longitud del punt, en graus.
+     * @param radiKm distància màxima, en quilòmetres.
+     * @param limit nombre màxim de protectores (entre 1 i {@link #LIMIT_MAXIM}).
+     * @return les protectores amb la seva distància, de la més propera a la més llunyana.
+     */
+    public List<ProtectoraDistanciaDTO> propers(double latitud, double longitud, double radiKm, int limit) {
+        int n = Math.max(1, Math.min(limit, LIMIT_MAXIM));
+        if (esMysql()) {
+            return propersMysql(latitud, longitud, radiKm, n);
+        }
+        return index().arbre().propers(latitud, longitud, radiKm, n).stream()
+            .map(proper -> new ProtectoraDistanciaDTO(proper.valor(), proper.distanciaKm()))
+            .toList();
+    }
+
+    /**
+     * Retorna la protectora situada en unes coordenades, admetent-hi una petita diferència.
+     *
+     * @param latitud latitud, en graus.
+     * @param longitud longitud, en graus.
+     * @return la protectora més propera a menys de {@code buscadorpelut.geo.tolerancia-metres},
+     *         o buit si no n'hi ha cap.
+     */
+    public Optional<Protectora> protectora(double latitud, double longitud) {
+        if (esMysql()) {
+            return propersMysql(latitud, longitud, toleranciaMetres / 1000, 1).stream()
+                .map(ProtectoraDistanciaDTO::getProtectora)
+                .findFirst();
+        }
+        return index().graella().mesProper(latitud, longitud);
+    }
+
+    /**
+     * Cerca per proximitat a MySQL. Si el cercle no es pot envoltar amb una caixa, es fa sense l'índex espacial.
+     */
+    private List<ProtectoraDistanciaDTO> propersMysql(double latitud, double longitud, double radiKm, int limit) {
+        CaixaGeo caixa = CaixaGeo.alVoltant(latitud, longitud, radiKm);
+        List<Protectora> protectores = caixa == null
+            ? protectoraRepository.findDinsRadiSenseCaixa(latitud, longitud, radiKm * 1000, limit)
+            : protectoraRepository.findDinsRadi(latitud, longitud, radiKm * 1000, caixa.wkt(), limit);
+        return protectores.stream()
+            .map(protectora -> new ProtectoraDistanciaDTO(protectora,
+                ArbreKd.distanciaKm(latitud, longitud, protectora.getLatitud(), protectora.getLongitud())))
+            .toList();
+    }
+
+    /**
+     * Indica si un valor de {@code buscadorpelut.geo.mode} demana resoldre les cerques a MySQL,
+     * sense distingir majúscules ni espais. Tots els components que depenen del mode el comproven igual.
+     *
+     * @param mode el valor de la propietat (pot ser {@code null}).
+     * @return {@code true} si és {@value #MODE_MYSQL}.
+     */
+    public static boolean esModeMysql(String mode) {
+        return mode != null && MODE_MYSQL.equalsIgnoreCase(mode.trim());
+    }
+
+    private boolean esMysql() {
+        return esModeMysql(mode);
+    }
+
+    private Index index() {
+        Index actual = index;
+        if (actual == null) {
+            synchronized (this) {
+                if (index == null) {
+                    reconstruir();
+                }
+                actual = index;
+            }
+        }
+        return actual;
+    }
+}
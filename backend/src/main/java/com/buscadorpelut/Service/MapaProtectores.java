@@ -0,0 +1,415 @@
+package com.buscadorpelut.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.buscadorpelut.DTO.AnimalIndexatDTO;
+import com.buscadorpelut.DTO.ClusterMapaDTO;
+import com.buscadorpelut.Model.CaixaGeo;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.AnimalRepository;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+/**
+ * Agrupacions de protectores per dibuixar-les al mapa sense enviar-les totes al navegador.
+ *
+ * <p>Per cada nivell de zoom (de 0 a {@link #ZOOM_MAXIM}, com les tessel·les d'OpenStreetMap) el món
+ * es divideix en cel·les de 64 píxels en projecció Web Mercator, i per cada cel·la ocupada es guarda
+ * un grup amb les seves protectores, el seu centre (la mitjana de les coordenades) i el total d'animals
+ * disponibles. Una consulta només recorre les cel·les de la zona visible
+ * del nivell demanat.
+ *
+ * <p>Es construeix en arrencar l'aplicació, i després s'actualitza de manera incremental: quan es guarda
+ * o s'elimina una protectora es mou a la cel·la nova de cada nivell ({@link ProtectoraService}), i quan
+ * es guarda o s'elimina un animal se suma o es resta als grups de la seva protectora ({@link AnimalService}).
+ * El centre de cada grup afectat es torna a calcular a partir de les coordenades de les seves protectores,
+ * en lloc de sumar i restar, de manera que no acumula errors d'arrodoniment i és el mateix que
+ * després de reconstruir-lo.
+ *
+ * <p>Amb {@code buscadorpelut.geo.mode=mysql} (vegeu {@link IndexGeoProtectores}) no es manté cap agrupació
+ * en memòria: cada consulta llegeix les protectores de la zona amb l'índex {@code SPATIAL}
+ * ({@link ProtectoraRepository#findDinsCaixa(String)}), compta els seus animals disponibles amb una consulta
+ * {@code GROUP BY} i les agrupa per cel·les del nivell demanat. En aquest mode els grups de les vores només
+ * compten les protectores de dins de la zona.
+ */
+@Component
+public class MapaProtectores {
+
+    /** Nivell de zoom més detallat. Els nivells superiors fan servir les cel·les d'aquest. */
+    public static final int ZOOM_MAXIM = 18;
+
+    /** Cel·les per costat d'una tessel·la de 256 píxels, en potència de 2 (4 cel·les de 64 píxels). */
+    private static final int CELLES_PER_TESSELLA_LOG2 = 2;
+
+    /** Latitud màxima de la projecció Web Mercator, en graus. */
+    private static final double LATITUD_MAXIMA = 85.05112878;
+
+    private static final Logger log = LoggerFactory.getLogger(MapaProtectores.class);
+
+    @Autowired
+    private ProtectoraRepository protectoraRepository;
+
+    @Autowired
+    private AnimalRepository animalRepository;
+
+    @Value("${buscadorpelut.geo.mode:memoria}")
+    private String mode;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Coordenades d'una protectora.
+     */
+    private record Ubicacio(double latitud, double longitud) {}
+
+    /**
+     * Grup de protectores d'una cel·la.
+     */
+    private static final class Grup {
+        private final Set<Long> protectores = new TreeSet<>();// Codis, en ordre perquè el centre sempre se sumi igual.
+        private double latitud;// Centre del grup.
+        private double longitud;
+        private long animals;
+
+        /**
+         * Calcula el centre com la mitjana de les coordenades de les protectores del grup.
+         */
+        private void centrar(Map<Long, Ubicacio> ubicacions) {
+            double sumaLatitud = 0;
+            double sumaLongitud = 0;
+            for (Long codiProt : protectores) {
+                Ubicacio ubicacio = ubicacions.get(codiProt);
+                sumaLatitud += ubicacio.latitud();
+                sumaLongitud += ubicacio.longitud();
+            }
+            latitud = sumaLatitud / protectores.size();
+            longitud = sumaLongitud / protectores.size();
+        }
+    }
+
+    private Map<Long, Ubicacio> ubicacions = new HashMap<>();// codiProt -> coordenades.
+    private Map<Long, Long> protectoraAnimal = new HashMap<>();// numId d'un animal disponible -> codiProt.
+    private Map<Long, Integer> animalsPerProtectora = new HashMap<>();// codiProt -> animals disponibles.
+    private List<Map<Long, Grup>> nivells = nivellsBuits();// Per cada zoom, clau de la cel·la -> grup.
+
+    private volatile boolean preparat = false;
+
+    /**
+     * Construeix les agrupacions quan l'aplicació ja ha arrencat.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void enArrencar() {
+        if (!esMysql()) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Torna a construir totes les agrupacions a partir de la base de dades.
+     *
+     * <p>Les estructures noves es preparen a part i se substitueixen de cop.
+     */
+    public void reconstruir() {
+        long inici = System.nanoTime();
+        List<Protectora> protectores = protectoraRepository.findAll();
+        List<AnimalIndexatDTO> animals = animalRepository.findDisponiblesPerIndex();
+
+        // Instància auxiliar (no és un bean) només per omplir les estructures noves
+        MapaProtectores nou = new MapaProtectores();
+        for (AnimalIndexatDTO animal : animals) {
+            nou.canviarAnimal(animal.getNumId(), animal.getCodiProt());
+        }
+        for (Protectora protectora : protectores) {
+            // Els centres es calculen al final, un cop per grup
+            Ubicacio ubicacio = new Ubicacio(protectora.getLatitud(), protectora.getLongitud());
+            nou.ubicacions.put(protectora.getCodiProt(), ubicacio);
+            nou.afegirAlsGrups(protectora.getCodiProt(), ubicacio,
+                nou.animalsPerProtectora.getOrDefault(protectora.getCodiProt(), 0), false);
+        }
+        nou.nivells.forEach(celles -> celles.values().forEach(grup -> grup.centrar(nou.ubicacions)));
+
+        lock.writeLock().lock();
+        try {
+            ubicacions = nou.ubicacions;
+            protectoraAnimal = nou.protectoraAnimal;
+            animalsPerProtectora = nou.animalsPerProtectora;
+            nivells = nou.nivells;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        preparat = true;
+        log.info("Mapa de protectores reconstruït: {} protectores i {} animals disponibles en {} ms",
+            protectores.size(), animals.size(), (System.nanoTime() - inici) / 1_000_000);
+    }
+
+    /**
+     * Mou una protectora a les cel·les de les seves coordenades després de guardar-la.
+     *
+     * @param protectora la protectora guardada.
+     */
+    public void actualitzarProtectora(Protectora protectora) {
+        if (!preparat) {
+            return;
+        }
+        modificar(() -> canviarProtectora(protectora.getCodiProt(),
+            new Ubicacio(protectora.getLatitud(), protectora.getLongitud())));
+    }
+
+    /**
+     * Treu una protectora del mapa després d'eliminar-la, amb el recompte dels seus animals.
+     *
+     * @param codiProt codi de la protectora eliminada.
+     */
+    public void eliminarProtectora(Long codiProt) {
+        if (!preparat) {
+            return;
+        }
+        modificar(() -> {
+            canviarProtectora(codiProt, null);
+            protectoraAnimal.values().removeIf(codiProt::equals);
+            animalsPerProtectora.remove(codiProt);
+        });
+    }
+
+    /**
+     * Actualitza el recompte d'animals disponibles després de guardar un animal
+     * (si s'ha adoptat o ha canviat de protectora, es resta de l'anterior).
+     *
+     * @param numId identificador de l'animal guardat.
+     */
+    public void actualitzarAnimal(Long numId) {
+        if (!preparat) {
+            return;
+        }
+        Long codiProt = animalRepository.findDisponiblePerIndex(numId).map(AnimalIndexatDTO::getCodiProt).orElse(null);
+        modificar(() -> canviarAnimal(numId, codiProt));
+    }
+
+    /**
+     * Resta un animal del recompte de la seva protectora després d'eliminar-lo.
+     *
+     * @param numId identificador de l'animal eliminat.
+     */
+    public void eliminarAnimal(Long numId) {
+        if (!preparat) {
+            return;
+        }
+        modificar(() -> canviarAnimal(numId, null));
+    }
+
+    /**
+     * Retorna els grups de protectores d'una zona del mapa.
+     *
+     * @param caixa la zona visible.
+     * @param zoom el nivell de zoom del mapa (es limita entre 0 i {@link #ZOOM_MAXIM}).
+     * @return un grup per cada cel·la ocupada que talla la zona, d'oest a est i de nord a sud.
+     */
+    public List<ClusterMapaDTO> clusters(CaixaGeo caixa, int zoom) {
+        if (esMysql()) {
+            return clustersMysql(caixa, Math.max(0, Math.min(zoom, ZOOM_MAXIM)));
+        }
+        if (!preparat) {
+            synchronized (this) {
+                if (!preparat) {
+                    reconstruir();
+                }
+            }
+        }
+        int nivell = Math.max(0, Math.min(zoom, ZOOM_MAXIM));
+        int columnaMin = columna(nivell, caixa.lonMin());
+        int columnaMax = columna(nivell, caixa.lonMax());
+        int filaMin = fila(nivell, caixa.latMax());
+        int filaMax = fila(nivell, caixa.latMin());
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Grup> celles = nivells.get(nivell);
+            List<Long> claus = new ArrayList<>();
+            long area = (long) (columnaMax - columnaMin + 1) * (filaMax - filaMin + 1);
+            if (area <= celles.size()) {
+                for (int columna = columnaMin; columna <= columnaMax; columna++) {
+                    for (int fila = filaMin; fila <= filaMax; fila++) {
+                        if (celles.containsKey(clau(columna, fila))) {
+                            claus.add(clau(columna, fila));
+                        }
+                    }
+                }
+            } else {
+                // Zona més gran que les cel·les ocupades: és més ràpid recórrer-les totes
+                for (Long clau : celles.keySet()) {
+                    int columna = (int) (clau >>> 32);
+                    int fila = (int) (long) clau;
+                    if (columna >= columnaMin && columna <= columnaMax && fila >= filaMin && fila <= filaMax) {
+                        claus.add(clau);
+                    }
+                }
+                claus.sort(null);
+            }
+
+            List<ClusterMapaDTO> resultat = new ArrayList<>(claus.size());
+            for (Long clau : claus) {
+                resultat.add(cluster(celles.get(clau)));
+            }
+            return resultat;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Agrupa les protectores de la zona a la base de dades (mode {@code mysql}).
+     */
+    private List<ClusterMapaDTO> clustersMysql(CaixaGeo caixa, int nivell) {
+        List<Protectora> protectores = protectoraRepository.findDinsCaixa(caixa.wkt());
+        if (protectores.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Long> animals = new HashMap<>();
+        for (Object[] fila : animalRepository.countDisponiblesPerProtectora(
+                protectores.stream().map(Protectora::getCodiProt).toList())) {
+            animals.put((Long) fila[0], (Long) fila[1]);
+        }
+
+        // Les claus ordenades són l'ordre d'oest a est i de nord a sud, com en memòria
+        Map<Long, Ubicacio> zona = new HashMap<>();
+        Map<Long, Grup> celles = new TreeMap<>();
+        for (Protectora protectora : protectores) {
+            Ubicacio ubicacio = new Ubicacio(protectora.getLatitud(), protectora.getLongitud());
+            zona.put(protectora.getCodiProt(), ubicacio);
+            Grup grup = celles.computeIfAbsent(clau(nivell, ubicacio), c -> new Grup());
+            grup.protectores.add(protectora.getCodiProt());
+            grup.animals += animals.getOrDefault(protectora.getCodiProt(), 0L);
+        }
+        celles.values().forEach(grup -> grup.centrar(zona));
+        return celles.values().stream().map(MapaProtectores::cluster).toList();
+    }
+
+    private static ClusterMapaDTO cluster(Grup grup) {
+        return new ClusterMapaDTO(grup.latitud, grup.longitud, grup.protectores.size(), grup.animals);
+    }
+
+    private boolean esMysql() {
+        return IndexGeoProtectores.esModeMysql(mode);
+    }
+
+    private void modificar(Runnable canvi) {
+        lock.writeLock().lock();
+        try {
+            canvi.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Assigna un animal disponible a una protectora, o el treu si {@code codiProt} és null.
+     */
+    private void canviarAnimal(Long numId, Long codiProt) {
+        Long anterior = codiProt == null ? protectoraAnimal.remove(numId) : protectoraAnimal.put(numId, codiProt);
+        if (Objects.equals(anterior, codiProt)) {
+            return;
+        }
+        sumarAnimals(anterior, -1);
+        sumarAnimals(codiProt, 1);
+    }
+
+    private void sumarAnimals(Long codiProt, int diferencia) {
+        if (codiProt == null) {
+            return;
+        }
+        animalsPerProtectora.merge(codiProt, diferencia, (actual, suma) -> actual + suma == 0 ? null : actual + suma);
+        Ubicacio ubicacio = ubicacions.get(codiProt);
+        if (ubicacio != null) {
+            for (int nivell = 0; nivell <= ZOOM_MAXIM; nivell++) {
+                nivells.get(nivell).get(clau(nivell, ubicacio)).animals += diferencia;
+            }
+        }
+    }
+
+    /**
+     * Mou una protectora a unes coordenades noves, o la treu si {@code ubicacio} és null.
+     */
+    private void canviarProtectora(Long codiProt, Ubicacio ubicacio) {
+        Ubicacio anterior = ubicacio == null ? ubicacions.remove(codiProt) : ubicacions.put(codiProt, ubicacio);
+        int animals = animalsPerProtectora.getOrDefault(codiProt, 0);
+        if (anterior != null) {
+            treureDelsGrups(codiProt, anterior, animals);
+        }
+        if (ubicacio != null) {
+            afegirAlsGrups(codiProt, ubicacio, animals, true);
+        }
+    }
+
+    private void afegirAlsGrups(Long codiProt, Ubicacio ubicacio, int animals, boolean centrar) {
+        for (int nivell = 0; nivell <= ZOOM_MAXIM; nivell++) {
+            Grup grup = nivells.get(nivell).computeIfAbsent(clau(nivell, ubicacio), c -> new Grup());
+            grup.protectores.add(codiProt);
+            grup.animals += animals;
+            if (centrar) {
+                grup.centrar(ubicacions);
+            }
+        }
+    }
+
+    private void treureDelsGrups(Long codiProt, Ubicacio ubicacio, int animals) {
+        for (int nivell = 0; nivell <= ZOOM_MAXIM; nivell++) {
+            Map<Long, Grup> celles = nivells.get(nivell);
+            long clau = clau(nivell, ubicacio);
+            Grup grup = celles.get(clau);
+            grup.protectores.remove(codiProt);
+            grup.animals -= animals;
+            if (grup.protectores.isEmpty()) {
+                celles.remove(clau);
+            } else {
+                grup.centrar(ubicacions);
+            }
+        }
+    }
+
+    private static List<Map<Long, Grup>> nivellsBuits() {
+        List<Map<Long, Grup>> nivells = new ArrayList<>(ZOOM_MAXIM + 1);
+        for (int nivell = 0; nivell <= ZOOM_MAXIM; nivell++) {
+            nivells.add(new HashMap<>());
+        }
+        return nivells;
+    }
+
+    private static long clau(int nivell, Ubicacio ubicacio) {
+        return clau(columna(nivell, ubicacio.longitud()), fila(nivell, ubicacio.latitud()));
+    }
+
+    private static long clau(int columna, int fila) {
+        return ((long) columna << 32) | fila;
+    }
+
+    /** Columna de la cel·la (d'oest a est) d'una longitud. */
+    private static int columna(int nivell, double longitud) {
+        int celles = 1 << (nivell + CELLES_PER_TESSELLA_LOG2);
+        int columna = (int) Math.floor((longitud + 180) / 360 * celles);
+        return Math.max(0, Math.min(columna, celles - 1));
+    }
+
+    /** Fila de la cel·la (de nord a sud) d'una latitud, en projecció Web Mercator. */
+    private static int fila(int nivell, double latitud) {
+        int celles = 1 << (nivell + CELLES_PER_TESSELLA_LOG2);
+        double fi = Math.toRadians(Math.max(-LATITUD_MAXIMA, Math.min(latitud, LATITUD_MAXIMA)));
+        double y = (1 - Math.log(Math.tan(fi) + 1 / Math.cos(fi)) / Math.PI) / 2;
+        int fila = (int) Math.floor(y * celles);
+        return Math.max(0, Math.min(fila, celles - 1));
+    }
+}
@@ -1,15 +1,24 @@
 package com.buscadorpelut.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
 
+import com.buscadorpelut.Config.CacheConfig;
+import com.buscadorpelut.DTO.ClusterMapaDTO;
+import com.buscadorpelut.DTO.ProtectoraDistanciaDTO;
+import com.buscadorpelut.Model.CaixaGeo;
 import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Model.SeleccioCamps;
 
 import com.buscadorpelut.Repository.ProtectoraRepository;
+import com.buscadorpelut.Repository.ProtectoraRepositoryCustom;
 
 /**
  * Servei per a l'entitat {@link Protectora}.
@@ -18,24 +27,56 @@ import com.buscadorpelut.Repository.ProtectoraRepository;
  * les operacions relacionades amb les protectores, utilitzant
  * el {@link ProtectoraRepository} per accedir a les dades.
  * 
+ * <p>Les consultes per codi, nom, email, codi postal, localitat i província es resolen amb la còpia
+ * en memòria de {@link DirectoriProtectores}, sense consultar la base de dades. {@link #save} i
+ * {@link #deleteById} la reconstrueixen i invaliden les memòries cau d'animals de {@link CacheConfig}
+ * (les targetes i el detall d'un animal inclouen dades de la seva protectora).
+ * 
  * @author Luis Gil
  */
 @Service
 public class ProtectoraService {
 
+    /** Nombre màxim de protectores que es poden demanar d'una vegada amb {@link #getProtectoresByIds(List)}. */
+    public static final int LIMIT_IDS = 100;
+
     
     @Autowired
     private ProtectoraRepository protectoraRepository;
 
+    @Autowired
+    private IndexAnimals indexAnimals;
+
+    @Autowired
+    private CercaTextAnimals cercaTextAnimals;
+
+    @Autowired
+    private CatalegVersio catalegVersio;
+
+    @Autowired
+    private AdopcionsRecents adopcionsRecents;
+
+    @Autowired
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    @Autowired
+    private IndexGeoProtectores indexGeoProtectores;
+
+    @Autowired
+    private MapaProtectores mapaProtectores;
+
+    @Autowired
+    private DirectoriProtectores directoriProtectores;
+
     /**
      * Retorna totes les protectores registrades a la base de dades.
      * 
-     * @return una llista de totes les protectores.
+     * @return una llista immutable de totes les protectores, ordenades per codi.
      *       Pot estar buida si no hi ha protectores registrades.
-     * @see ProtectoraRepository#findAll()
+     * @see DirectoriProtectores#totes()
      */
     public List<Protectora>getAllProtectores(){
-        return protectoraRepository.findAll();
+        return directoriProtectores.totes();
     }
 
     /**
@@ -55,13 +96,72 @@ public class ProtectoraService {
      * @param codiProt el codi únic de la protectora, si és null, retorna un Optional buit.
      * @return un objecte {@link Optional} que conté la protectora si existeix,
      *         o buit si no s'ha trobat cap protectora amb aquest codi.
-     * @see ProtectoraRepository#findByCodiProt(long)
+     * @see DirectoriProtectores#perCodi(Long)
      */
     public Optional<Protectora>getProtectoraByCodiProt(Long codiProt){
-        if(codiProt == null){
+        return directoriProtectores.perCodi(codiProt);
+    }
+
+    /**
+     * Retorna diverses protectores a partir d'una llista de codis.
+     * 
+     * <p>Les protectores es retornen en el mateix ordre que {@code codisProt}. Els codis repetits
+     * només surten un cop i els que no existeixen s'ometen.
+     * 
+     * @param codisProt els codis de les protectores (com a màxim {@link #LIMIT_IDS}, ho comprova el controlador).
+     * @return una llista amb les protectores trobades. Pot estar buida.
+     * @see DirectoriProtectores#perCodi(Long)
+     */
+    public List<Protectora>getProtectoresByIds(List<Long> codisProt){
+        return codisProt.stream().filter(Objects::nonNull).distinct()
+            .map(directoriProtectores::perCodi)
+            .flatMap(Optional::stream)
+            .toList();
+    }
+
+    /**
+     * Retorna només uns camps (paràmetre {@code fields}) de totes les protectores, per exemple el nom i la localitat.
+     * La consulta només llegeix les columnes d'aquests camps.
+     * 
+     * @param camps els camps a retornar.
+     * @return una llista amb els camps demanats de cada protectora. Pot estar buida.
+     * @see ProtectoraRepositoryCustom#llegirCamps(java.util.Collection, SeleccioCamps)
+     */
+    public List<Map<String, Object>>getCampsProtectores(SeleccioCamps camps){
+        return List.copyOf(protectoraRepository.llegirCamps(null, camps).values());
+    }
+
+    /**
+     * Retorna només uns camps de diverses protectores, com {@link #getProtectoresByIds(List)}:
+     * en el mateix ordre que {@code codisProt}, sense repetits i ometent les que no existeixen.
+     * 
+     * @param codisProt els codis de les protectores (com a màxim {@link #LIMIT_IDS}, ho comprova el controlador).
+     * @param camps els camps a retornar.
+     * @return una llista amb els camps demanats de cada protectora trobada. Pot estar buida.
+     * @see ProtectoraRepositoryCustom#llegirCamps(java.util.Collection, SeleccioCamps)
+     */
+    public List<Map<String, Object>>getCampsProtectoresByIds(List<Long> codisProt, SeleccioCamps camps){
+        List<Long> unics = codisProt.stream().filter(Objects::nonNull).distinct().toList();
+        if (unics.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Map<String, Object>> perCodi = protectoraRepository.llegirCamps(unics, camps);
+        return unics.stream().map(perCodi::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Retorna només uns camps d'una protectora.
+     * 
+     * @param codiProt el codi de la protectora.
+     * @param camps els camps a retornar.
+     * @return un {@link Optional} amb els camps demanats, o buit si la protectora no existeix.
+     * @see ProtectoraRepositoryCustom#llegirCamps(java.util.Collection, SeleccioCamps)
+     */
+    public Optional<Map<String, Object>>getCampsProtectora(Long codiProt, SeleccioCamps camps){
+        if (codiProt == null) {
             return Optional.empty();
         }
-        return protectoraRepository.findByCodiProt(codiProt);
+        return Optional.ofNullable(protectoraRepository.llegirCamps(List.of(codiProt), camps).get(codiProt));
     }
 
     /**
@@ -70,10 +170,10 @@ public class ProtectoraService {
      * @param nomProt el nom de la protectora.
      * @return un objecte {@link Optional} que conté la protectora si existeix,
      *         o buit si no s'ha trobat cap protectora amb aquest nom.
-     * @see ProtectoraRepository#findProtectoraByNomProt(String)
+     * @see DirectoriProtectores#perNom(String)
      */
     public Optional<Protectora>getProtectoraByNomProt(String nomProt ){
-        return protectoraRepository.findProtectoraByNomProt(nomProt);
+        return directoriProtectores.perNom(nomProt);
     }
 
     /**
@@ -94,10 +194,10 @@ public class ProtectoraService {
      * @param codiPostal el codi postal de la protectora.
      * @return una llista de protectores que coincideixen amb el codi postal.
      *         pot estar buida si no s'han trobat resultats.
-     * @see ProtectoraRepository#findByCodiPostal(String)
+     * @see DirectoriProtectores#perCodiPostal(String)
      */
     public List<Protectora>getProtectoresByCodiPostal(String codiPostal){
-        return protectoraRepository.findByCodiPostal(codiPostal);
+        return directoriProtectores.perCodiPostal(codiPostal);
     }
 
     /**
@@ -106,10 +206,10 @@ public class ProtectoraService {
      * @param localitat la localitat de la protectora.
      * @returnuna llista de protectores que coincideixen amb la localitat.
      *         pot estar buida si no s'han trobat resultats.
-     * @see ProtectoraRepository#findByLocalitat(String)
+     * @see DirectoriProtectores#perLocalitat(String)
      */
     public List<Protectora>getProtectoresByLocalitat(String localitat){
-        return protectoraRepository.findByLocalitat(localitat);
+        return directoriProtectores.perLocalitat(localitat);
     }
 
     /**
@@ -118,23 +218,68 @@ public class ProtectoraService {
      * @param provincia la provincia de la protectora.
      * @return una llista de protectores que coincideixen amb la provincia.
      *         pot estar buida si no s'han trobat resultats.
-     * @see ProtectoraRepository#findByProvincia(String)
+     * @see DirectoriProtectores#perProvincia(String)
      */
     public List<Protectora>getProtectoresByProvincia(String provincia){
-        return protectoraRepository.findByProvincia(provincia);
+        return directoriProtectores.perProvincia(provincia);
+    }
+
+    /**
+     * Compta les protectores d'un codi postal, una localitat o una província (com a molt un criteri,
+     * igual que les cerques), o totes si no se n'indica cap, amb els índexs de {@link DirectoriProtectores}.
+     * 
+     * @param codiPostal el codi postal (pot ser {@code null}).
+     * @param localitat la localitat (pot ser {@code null}).
+     * @param provincia la província (pot ser {@code null}).
+     * @return el nombre de protectores que compleixen el criteri.
+     * @see DirectoriProtectores#comptar(String, String, String)
+     */
+    public long comptarProtectores(String codiPostal, String localitat, String provincia){
+        return directoriProtectores.comptar(codiPostal, localitat, provincia);
+    }
+
+    /**
+     * Retorna les protectores més properes a un punt, ordenades per distància.
+     * Es resol amb l'índex espacial en memòria, sense consultar la base de dades.
+     * 
+     * @param latitud latitud del punt, en graus.
+     * @param longitud longitud del punt, en graus.
+     * @param radiKm distància màxima, en quilòmetres.
+     * @param limit nombre màxim de protectores (com a molt {@link IndexGeoProtectores#LIMIT_MAXIM}).
+     * @return les protectores dins del radi amb la seva distància, de la més propera a la més llunyana.
+     * @see IndexGeoProtectores#propers(double, double, double, int)
+     */
+    public List<ProtectoraDistanciaDTO>getProtectoresPropers(double latitud, double longitud, double radiKm, int limit){
+        return indexGeoProtectores.propers(latitud, longitud, radiKm, limit);
+    }
+
+    /**
+     * Retorna les protectores d'una zona del mapa agrupades per proximitat, per dibuixar un marcador per grup.
+     * Es resol amb les agrupacions en memòria, sense consultar la base de dades.
+     * 
+     * @param caixa la zona visible del mapa.
+     * @param zoom el nivell de zoom del mapa (com a molt {@link MapaProtectores#ZOOM_MAXIM}).
+     * @return els grups de protectores amb el seu centre, el nombre de protectores i d'animals disponibles.
+     * @see MapaProtectores#clusters(CaixaGeo, int)
+     */
+    public List<ClusterMapaDTO>getClustersMapa(CaixaGeo caixa, int zoom){
+        return mapaProtectores.clusters(caixa, zoom);
     }
 
     /**
      * Retorna una protectora per la seva ubicació geogràfica (longitud, latitud).
      * 
+     * <p>Les coordenades no han de coincidir exactament: es retorna la protectora més propera
+     * a menys de {@code buscadorpelut.geo.tolerancia-metres} (per defecte, 25 metres).
+     * 
      * @param longitud longitud geogràfica de la protectora.
      * @param latitud latitud geogràfica de la protectora.
-     * @returnun objecte {@link Optional} que conté la protectora si existeix,
-     *         o buit si no s'ha trobat cap protectora amb aquesta ubicació.
-     * @see ProtectoraRepository#findByLongitudAndLatitud(double, double).
+     * @return un objecte {@link Optional} que conté la protectora si existeix,
+     *         o buit si no s'ha trobat cap protectora prop d'aquesta ubicació.
+     * @see IndexGeoProtectores#protectora(double, double)
      */
     public Optional<Protectora>getProtectoraByLongitudAndLatitud(double longitud, double latitud){
-        return protectoraRepository.findByLongitudAndLatitud(longitud, latitud);
+        return indexGeoProtectores.protectora(latitud, longitud);
     }
 
     /**
@@ -143,10 +288,10 @@ public class ProtectoraService {
      * @param emailProt el email de la protectora.
      * @return un objecte {@link Optional} que conté la protectora si existeix,
      *         o buit si no s'ha trobat cap protectora amb aquest email.
-     * @see ProtectoraRepository#findByEmailProt(String)
+     * @see DirectoriProtectores#perEmail(String)
      */
     public Optional<Protectora>getProtectoraByEmailProt(String emailProt){
-        return protectoraRepository.findByEmailProt(emailProt);
+        return directoriProtectores.perEmail(emailProt);
     }
 
     /**
@@ -159,11 +304,29 @@ public class ProtectoraService {
      * <p>Este mètode gestiona automáticamente todos los campos de la protectora,
      * incluida la localización geográfica (longitud i latitud).
      * 
+     * <p>Después de guardar se reconstruye la copia en memoria del directorio {@link DirectoriProtectores},
+     * que se sustituye de golpe. Como la ubicación de la protectora se indexa con cada uno de sus animales,
+     * también se reconstruyen el diccionario de localizaciones {@link DiccionariLocalitzacions},
+     * el índice espacial {@link IndexGeoProtectores} y el índice de búsqueda {@link IndexAnimals}, se mueve
+     * la protectora en las agrupaciones del mapa {@link MapaProtectores}, y se vuelven a indexar sus animales en {@link CercaTextAnimals}. También se vacían las cachés
+     * de animales.
+     * 
      * @param protectora entidad {@link Protectora} con los datos a guardar.
      * @return {@link Protectora} guardada, incluido el identificador autogenerado si es nueva.
      */
+    @CacheEvict(cacheNames = {CacheConfig.CERCA_ANIMALS, CacheConfig.COMPTES_ANIMALS, CacheConfig.FACETS_ANIMALS,
+        CacheConfig.ANIMALS_ADOPTATS, CacheConfig.ANIMAL, CacheConfig.RESPOSTES_CATALEG}, allEntries = true)
     public Protectora save(Protectora protectora){
-        return protectoraRepository.save(protectora);
+        Protectora saved = protectoraRepository.save(protectora);
+        directoriProtectores.reconstruir();
+        diccionariLocalitzacions.reconstruir();
+        indexGeoProtectores.reconstruir();
+        indexAnimals.reconstruir();
+        mapaProtectores.actualitzarProtectora(saved);
+        cercaTextAnimals.indexarProtectora(saved.getCodiProt());
+        adopcionsRecents.refrescar();
+        catalegVersio.incrementar();
+        return saved;
     }
 
     /**
@@ -172,10 +335,25 @@ public class ProtectoraService {
      * <p>No lanza ninguna excepción si la protectora no existe (comportamiento per defecto
      * de {@link JpaRepository#deleteById}).
      * 
+     * <p>Reconstruye la copia en memoria del directorio {@link DirectoriProtectores}, el diccionario de
+     * localizaciones {@link DiccionariLocalitzacions}, el índice espacial {@link IndexGeoProtectores}
+     * y el índice de búsqueda {@link IndexAnimals}, la quita de las agrupaciones del mapa {@link MapaProtectores},
+     * quita sus animales del índice de texto {@link CercaTextAnimals}, y vacía las cachés de animales.
+     * 
      * @param codiProt identificador de la protectora a eliminar.
      */
+    @CacheEvict(cacheNames = {CacheConfig.CERCA_ANIMALS, CacheConfig.COMPTES_ANIMALS, CacheConfig.FACETS_ANIMALS,
+        CacheConfig.ANIMALS_ADOPTATS, CacheConfig.ANIMAL, CacheConfig.RESPOSTES_CATALEG}, allEntries = true)
     public void deleteById(Long codiProt){
         protectoraRepository.deleteById(codiProt);
+        directoriProtectores.reconstruir();
+        diccionariLocalitzacions.reconstruir();
+        indexGeoProtectores.reconstruir();
+        indexAnimals.reconstruir();
+        mapaProtectores.eliminarProtectora(codiProt);
+        cercaTextAnimals.eliminarProtectora(codiProt);
+        adopcionsRecents.refrescar();
+        catalegVersio.incrementar();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.buscadorpelut.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.buscadorpelut.Service.IndexGeoProtectores;
+
+@ExtendWith(MockitoExtension.class)
+public class ColumnaEspacialProtectoraTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ColumnaEspacialProtectora columnaEspacialProtectora;
+
+    @Test
+    void testCrearColumna_ModeMemoria() {
+        ReflectionTestUtils.setField(columnaEspacialProtectora, "mode", "memoria");
+
+        columnaEspacialProtectora.crearColumna();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testCrearColumna_LatitudPrimerEix() {
+        // El mode es compara igual que a IndexGeoProtectores: sense distingir majúscules
+        ReflectionTestUtils.setField(columnaEspacialProtectora, "mode", "MySQL");
+        when(jdbcTemplate.queryForObject(contains("information_schema"), eq(Integer.class), any())).thenReturn(0);
+
+        columnaEspacialProtectora.crearColumna();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).execute(sql.capture());
+        assertThat(sql.getValue()).contains("ST_SRID(POINT(latitud, longitud), 4326)");
+    }
+
+    @Test
+    void testCrearColumna_JaCorrecta() {
+        ReflectionTestUtils.setField(columnaEspacialProtectora, "mode", "mysql");
+        when(jdbcTemplate.queryForObject(contains("information_schema"), eq(Integer.class), any())).thenReturn(1);
+        when(jdbcTemplate.queryForObject(contains("ST_Latitude"), eq(Integer.class))).thenReturn(0);
+
+        columnaEspacialProtectora.crearColumna();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void testCrearColumna_EixosGirats() {
+        // Una columna creada amb POINT(longitud, latitud) es torna a crear
+        ReflectionTestUtils.setField(columnaEspacialProtectora, "mode", "mysql");
+        when(jdbcTemplate.queryForObject(contains("information_schema"), eq(Integer.class), any())).thenReturn(1);
+        when(jdbcTemplate.queryForObject(contains("ST_Latitude"), eq(Integer.class))).thenReturn(3);
+
+        columnaEspacialProtectora.crearColumna();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).execute(sql.capture());
+        assertThat(sql.getAllValues().get(0)).contains("DROP COLUMN " + ColumnaEspacialProtectora.COLUMNA);
+        assertThat(sql.getAllValues().get(1)).contains("ST_SRID(POINT(latitud, longitud), 4326)");
+    }
+
+    @Test
+    void testEsModeMysql() {
+        assertThat(IndexGeoProtectores.esModeMysql("mysql")).isTrue();
+        assertThat(IndexGeoProtectores.esModeMysql(" MySQL ")).isTrue();
+        assertThat(IndexGeoProtectores.esModeMysql("memoria")).isFalse();
+        assertThat(IndexGeoProtectores.esModeMysql(null)).isFalse();
+    }
+}
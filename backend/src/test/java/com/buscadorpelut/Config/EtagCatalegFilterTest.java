@@ -0,0 +1,208 @@
+package com.buscadorpelut.Config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.hamcrest.Matchers.hasItem;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.buscadorpelut.Controller.ProtectoraController;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Service.CatalegVersio;
+import com.buscadorpelut.Service.ProtectoraService;
+
+@WebMvcTest(ProtectoraController.class)
+@Import(CatalegVersio.class)
+public class EtagCatalegFilterTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CatalegVersio catalegVersio;
+
+    @SuppressWarnings("removal")
+    @MockBean
+    private ProtectoraService protectoraService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp(){
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+            .addFilter(new EtagCatalegFilter(catalegVersio, List.of("/api/protectores")), "/api/protectores", "/api/protectores/*")
+            .addFilter(new RespostesCatalegFilter(catalegVersio, new ConcurrentMapCache(CacheConfig.RESPOSTES_CATALEG)),
+                "/api/protectores")
+            .build();
+
+        Protectora protectora = new Protectora(1L, "A.A.A. amics", "carrer Fontanella", "08031", "Barcelona",
+            "Barcelona", "www.amics.com", 42.000321, 2.003234, "620234242", "amics@gmail.com");
+        when(protectoraService.getAllProtectores()).thenReturn(List.of(protectora));
+        when(protectoraService.getProtectoraByCodiProt(1L)).thenReturn(Optional.of(protectora));
+        when(protectoraService.getProtectoraByCodiProt(99L)).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testGet_Etag() throws Exception{
+        mockMvc.perform(get("/api/protectores"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, CatalegVersio.etag(catalegVersio.actual())))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$[0].codiProt").value(1));
+    }
+
+    @Test
+    void testGet_IfNoneMatchCoincideix() throws Exception{
+        String etag = mockMvc.perform(get("/api/protectores/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/protectores/1").header(HttpHeaders.IF_NONE_MATCH, "\"v0\", " + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGet_IfNoneMatchSenseControlador() throws Exception{
+        String etag = CatalegVersio.etag(catalegVersio.actual());
+        mockMvc.perform(get("/api/protectores/1"));
+        mockMvc.perform(get("/api/protectores").header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        clearInvocations(protectoraService);
+
+        // La revalidació es respon abans del controlador: no es consulta cap servei ni la base de dades
+        mockMvc.perform(get("/api/protectores/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        // Una ruta que no es comprimeix té l'ETag sense comprimir encara que el client accepti gzip
+        mockMvc.perform(get("/api/protectores/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/protectores").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, CatalegVersio.etag(catalegVersio.actual(), "gzip")))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/protectores/1").accept(FormatsBinarisConfig.SMILE + ", application/json;q=0.5")
+                .header(HttpHeaders.IF_NONE_MATCH, CatalegVersio.etag(catalegVersio.actual(), "smile")))
+                .andExpect(status().isNotModified());
+        verifyNoInteractions(protectoraService);
+    }
+
+    @Test
+    void testGet_IfNoneMatchAsterisc() throws Exception{
+        mockMvc.perform(get("/api/protectores").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].codiProt").value(1));
+    }
+
+    @Test
+    void testGet_NoTrobada() throws Exception{
+        // Un error no porta ETag (un client mai en pot tenir cap per a aquesta ruta en aquesta versió)
+        mockMvc.perform(get("/api/protectores/99"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+        mockMvc.perform(get("/api/protectores/99").header(HttpHeaders.IF_NONE_MATCH, "\"v-1\""))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void testGet_DespresDeModificar() throws Exception{
+        String etag = mockMvc.perform(get("/api/protectores"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        catalegVersio.incrementar();
+
+        String nou = mockMvc.perform(get("/api/protectores").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].codiProt").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, nou);
+        assertEquals(CatalegVersio.etag(catalegVersio.actual()), nou);
+    }
+
+    @Test
+    void testGet_SenseComprimir() throws Exception{
+        mockMvc.perform(get("/api/protectores"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, CatalegVersio.etag(catalegVersio.actual())))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(jsonPath("$[0].codiProt").value(1));
+    }
+
+    @Test
+    void testGet_Gzip() throws Exception{
+        // Primer es guarda la resposta, després se serveix la guardada: totes dues han de ser iguals
+        for (int i = 0; i < 2; i++) {
+            byte[] cos = mockMvc.perform(get("/api/protectores").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                    .andExpect(header().string(HttpHeaders.ETAG, CatalegVersio.etag(catalegVersio.actual(), "gzip")))
+                    .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                    .andReturn().getResponse().getContentAsByteArray();
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(cos))) {
+                assertTrue(new String(gzip.readAllBytes(), StandardCharsets.UTF_8).contains("\"codiProt\":1"));
+            }
+        }
+    }
+
+    @Test
+    void testGet_GzipIfNoneMatch() throws Exception{
+        String gzip = CatalegVersio.etag(catalegVersio.actual(), "gzip");
+        String json = CatalegVersio.etag(catalegVersio.actual());
+
+        mockMvc.perform(get("/api/protectores").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, gzip))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, gzip));
+
+        // L'ETag de la variant sense comprimir no valida la comprimida, ni al revés
+        mockMvc.perform(get("/api/protectores").header(HttpHeaders.ACCEPT_ENCODING, "gzip").header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, gzip));
+        mockMvc.perform(get("/api/protectores").header(HttpHeaders.IF_NONE_MATCH, gzip))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, json));
+    }
+
+    @Test
+    void testGet_FormatsBinaris() throws Exception{
+        long versio = catalegVersio.actual();
+        mockMvc.perform(get("/api/protectores").accept(FormatsBinarisConfig.CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(FormatsBinarisConfig.CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, CatalegVersio.etag(versio, "cbor")))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(get("/api/protectores/1").accept(FormatsBinarisConfig.SMILE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, CatalegVersio.etag(versio, "smile")));
+
+        // L'ETag de JSON no valida la resposta CBOR
+        mockMvc.perform(get("/api/protectores").accept(FormatsBinarisConfig.CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, CatalegVersio.etag(versio)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/protectores").accept(FormatsBinarisConfig.CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, CatalegVersio.etag(versio, "cbor")))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -19,10 +19,17 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.buscadorpelut.DTO.ComparativaFormatDTO;
+import com.buscadorpelut.DTO.EstadistiquesCacheDTO;
+import com.buscadorpelut.DTO.InformeIndexDTO;
 import com.buscadorpelut.DTO.UsuarioDTO;
 import com.buscadorpelut.Model.Animal;
 import com.buscadorpelut.Model.Protectora;
 import com.buscadorpelut.Service.AnimalService;
+import com.buscadorpelut.Service.CatalegVersio;
+import com.buscadorpelut.Service.GestioCaches;
+import com.buscadorpelut.Service.IndexAnimals;
+import com.buscadorpelut.Service.ComparativaFormats;
 import com.buscadorpelut.Service.ProtectoraService;
 import com.buscadorpelut.Service.UsuarioService;
 
@@ -45,6 +52,22 @@ public class AdminControllerTest {
     @MockBean
     private ProtectoraService protectoraService;
 
+    @SuppressWarnings("removal")
+    @MockBean
+    private IndexAnimals indexAnimals;
+
+    @SuppressWarnings("removal")
+    @MockBean
+    private GestioCaches gestioCaches;
+
+    @SuppressWarnings("removal")
+    @MockBean
+    private ComparativaFormats comparativaFormats;
+
+    @SuppressWarnings("removal")
+    @MockBean
+    private CatalegVersio catalegVersio;
+
     private UsuarioDTO usuarioDTO;
     private Animal animal;
     private Protectora protectora;
@@ -318,4 +341,100 @@ public class AdminControllerTest {
         verify(protectoraService, times(1)).deleteById(1L);
     }
 
+    @Test
+    void testComprovarIndexAnimals_Inconsistent() throws Exception{
+        InformeIndexDTO informe = new InformeIndexDTO(true, false, 3, 2,
+            List.of(3L), List.of(), List.of(), null, 5L);
+        when(indexAnimals.comprovarConsistencia()).thenReturn(informe);
+
+        mockMvc.perform(get("/api/admin/index-animals")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consistent").value(false))
+                .andExpect(jsonPath("$.animalsBD").value(3))
+                .andExpect(jsonPath("$.falten[0]").value(3));
+
+        verify(indexAnimals, times(1)).comprovarConsistencia();
+    }
+
+    @Test
+    void testReconstruirIndexAnimals() throws Exception{
+        InformeIndexDTO informe = new InformeIndexDTO(true, true, 3, 3,
+            List.of(), List.of(), List.of(), null, 5L);
+        when(indexAnimals.comprovarConsistencia()).thenReturn(informe);
+
+        mockMvc.perform(post("/api/admin/index-animals/reconstruir")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.consistent").value(true))
+                .andExpect(jsonPath("$.duradaReconstruccioMs").value(5));
+
+        verify(indexAnimals, times(1)).reconstruir();
+        verify(gestioCaches, times(1)).buidarAnimals();
+        verify(catalegVersio, times(1)).incrementar();
+    }
+
+    @Test
+    void testGetEstadistiquesCaches() throws Exception{
+        when(gestioCaches.estadistiques()).thenReturn(List.of(
+            new EstadistiquesCacheDTO("cercaAnimals", 12, 900, 100, 3, 0.9)));
+
+        mockMvc.perform(get("/api/admin/caches")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nom").value("cercaAnimals"))
+                .andExpect(jsonPath("$[0].encerts").value(900))
+                .andExpect(jsonPath("$[0].taxaEncerts").value(0.9));
+    }
+
+    @Test
+    void testCompararFormats() throws Exception{
+        when(comparativaFormats.iniciar(10)).thenReturn(true);
+
+        mockMvc.perform(post("/api/admin/formats")
+                .param("iteracions", "10"))
+                .andExpect(status().isAccepted());
+        verify(comparativaFormats, times(1)).iniciar(10);
+        verify(comparativaFormats, never()).comparar(anyInt());
+    }
+
+    @Test
+    void testCompararFormats_EnCurs() throws Exception{
+        when(comparativaFormats.iniciar(50)).thenReturn(false);
+
+        mockMvc.perform(post("/api/admin/formats"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testGetComparativaFormats() throws Exception{
+        when(comparativaFormats.resultat()).thenReturn(Optional.of(List.of(
+            new ComparativaFormatDTO("targetes", 2, "application/json", 420, 210, 15.5, 20.1),
+            new ComparativaFormatDTO("targetes", 2, "application/cbor", 300, 190, 9.8, 12.3))));
+
+        mockMvc.perform(get("/api/admin/formats")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[1].format").value("application/cbor"))
+                .andExpect(jsonPath("$[1].bytes").value(300));
+    }
+
+    @Test
+    void testGetComparativaFormats_SenseResultat() throws Exception{
+        when(comparativaFormats.resultat()).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/admin/formats"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testBuidarCachesReturnNoContent() throws Exception{
+        mockMvc.perform(delete("/api/admin/caches"))
+                .andExpect(status().isNoContent());
+
+        verify(gestioCaches, times(1)).buidarTot();
+        verify(catalegVersio, times(1)).incrementar();
+    }
+
 }
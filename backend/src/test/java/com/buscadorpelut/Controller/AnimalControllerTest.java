@@ -1,15 +1,23 @@
 package com.buscadorpelut.Controller;
 
 
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.util.Arrays;
 import java.sql.Date;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,8 +28,15 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FacetsDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.DTO.PaginaDTO;
 import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.SeleccioCamps;
 import com.buscadorpelut.Service.AnimalService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 
 @WebMvcTest(AnimalController.class)
 @AutoConfigureMockMvc(addFilters = false)
@@ -36,6 +51,7 @@ public class AnimalControllerTest {
 
     private Animal animal1;
     private Animal animal2;
+    private FiltreAnimalsDTO filtre;
 
     @BeforeEach
     void setUp() {
@@ -70,66 +86,335 @@ public class AnimalControllerTest {
             null
         
         );
+
+        // Filtre per defecte: només animals disponibles
+        filtre = new FiltreAnimalsDTO();
         
     }
+
+    // Targeta de llistat equivalent a l'animal (com la construeix la consulta del repositori)
+    private AnimalCardDTO targeta(Animal animal) {
+        return new AnimalCardDTO(animal.getNumId(), animal.getNomAn(), animal.getEspecie(),
+            animal.getSexe(), animal.getDataNeix(), animal.getFotoPerfil(), animal.getLocalitatProtectora());
+    }
     @Test
     void testGetAllAnimals()throws Exception {
-        List<Animal> animals = Arrays.asList(animal1, animal2);
-        when(animalService.getAllAnimalsNoAdoptats()).thenReturn(animals);
+        List<AnimalCardDTO> animals = Arrays.asList(targeta(animal1), targeta(animal2));
+        when(animalService.cercar(filtre, null, 24)).thenReturn(new PaginaDTO<>(animals, null, 24));
 
         mockMvc.perform(get("/api/animals")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(2))
-                .andExpect(jsonPath("$[0].nomAn").value("Dark"))
-                .andExpect(jsonPath("$[1].especie").value("Gat"));
+                .andExpect(jsonPath("$.items.size()").value(2))
+                .andExpect(jsonPath("$.items[0].nomAn").value("Dark"))
+                .andExpect(jsonPath("$.items[1].especie").value("Gat"))
+                .andExpect(jsonPath("$.items[0].localitatProtectora").value("Desconeguda"))
+                .andExpect(jsonPath("$.items[0].edat.anys").exists())
+                .andExpect(jsonPath("$.items[0].descripcio").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(animalService, times(1)).cercar(filtre, null, 24);
+    }
+
+    @Test
+    void testGetAllAnimals_SeguentPagina()throws Exception {
+        List<AnimalCardDTO> animals = Arrays.asList(targeta(animal2));
+        when(animalService.cercar(filtre, 1L, 1)).thenReturn(new PaginaDTO<>(animals, 2L, 1));
+
+        mockMvc.perform(get("/api/animals")
+                .param("after", "1")
+                .param("limit", "1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].nomAn").value("Pelut"))
+                .andExpect(jsonPath("$.nextCursor").value(2))
+                .andExpect(jsonPath("$.limit").value(1));
 
-        verify(animalService, times(1)).getAllAnimalsNoAdoptats();
+        verify(animalService, times(1)).cercar(filtre, 1L, 1);
     }
 
     @Test
     void testGetAnimalsByEspecie_Exotic()throws Exception {
         animal2.setEspecie("Conill");
-        List<Animal> Exotics = Arrays.asList(animal2);
-        when(animalService.getAnimalsExcluirGosGatNoAdoptats()).thenReturn(Exotics);
+        List<AnimalCardDTO> Exotics = Arrays.asList(targeta(animal2));
+        filtre.setEspecie("Exòtic");
+        when(animalService.cercar(filtre, null, 24)).thenReturn(new PaginaDTO<>(Exotics, null, 24));
 
         mockMvc.perform(get("/api/animals")
                 .param("especie", "Exòtic")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(1))
-                .andExpect(jsonPath("$[0].especie").value("Conill"));
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].especie").value("Conill"));
 
-        verify(animalService, times(1)).getAnimalsExcluirGosGatNoAdoptats();
+        verify(animalService, times(1)).cercar(filtre, null, 24);
     }
 
     @Test
     void testGetAnimalsByEspecie_NoExotic()throws Exception {
        
-        List<Animal> Gossos = Arrays.asList(animal1);
-        when(animalService.getAnimalsByEspecieNoAdoptats("Gos")).thenReturn(Gossos);
+        List<AnimalCardDTO> Gossos = Arrays.asList(targeta(animal1));
+        filtre.setEspecie("Gos");
+        when(animalService.cercar(filtre, null, 24)).thenReturn(new PaginaDTO<>(Gossos, null, 24));
 
         mockMvc.perform(get("/api/animals")
                 .param("especie", "Gos")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(1))
-                .andExpect(jsonPath("$[0].especie").value("Gos"));
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].especie").value("Gos"));
+
+        verify(animalService, times(1)).cercar(filtre, null, 24);
+    }
+
+    @Test
+    void testCercarAnimals_DiversosCriteris()throws Exception {
+        List<AnimalCardDTO> Gates = Arrays.asList(targeta(animal2));
+        filtre.setEspecie("Gat");
+        filtre.setSexe("F");
+        filtre.setEdatMax(36);
+        filtre.setProvincia("Girona");
+        when(animalService.cercar(filtre, null, 24)).thenReturn(new PaginaDTO<>(Gates, null, 24));
+
+        mockMvc.perform(get("/api/animals")
+                .param("especie", "Gat")
+                .param("sexe", "F")
+                .param("edatMax", "36")
+                .param("provincia", "Girona")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].nomAn").value("Pelut"));
 
-        verify(animalService, times(1)).getAnimalsByEspecieNoAdoptats("Gos");
+        verify(animalService, times(1)).cercar(filtre, null, 24);
     }
 
     @Test
     void testGetAnimalsByEspecie_NoExistent()throws Exception {
-        when(animalService.getAnimalsByEspecieNoAdoptats("Peixos")).thenReturn(List.of());
+        filtre.setEspecie("Peixos");
+        when(animalService.cercar(filtre, null, 24)).thenReturn(new PaginaDTO<>(List.of(), null, 24));
 
         mockMvc.perform(get("/api/animals")
                 .param("especie", "Peixos")
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.size()").value(0));
+                .andExpect(jsonPath("$.items.size()").value(0));
+
+        verify(animalService, times(1)).cercar(filtre, null, 24);
+    }
+
+    @Test
+    void testCercarAnimals_TextLliure()throws Exception {
+        List<AnimalCardDTO> animals = Arrays.asList(targeta(animal2), targeta(animal1));
+        filtre.setQ("gata juganera");
+        filtre.setProvincia("Girona");
+        when(animalService.cercar(filtre, null, 2)).thenReturn(new PaginaDTO<>(animals, 2L, 2));
+
+        mockMvc.perform(get("/api/animals")
+                .param("q", "gata juganera")
+                .param("provincia", "Girona")
+                .param("limit", "2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(2))
+                .andExpect(jsonPath("$.items[0].nomAn").value("Pelut"))
+                .andExpect(jsonPath("$.nextCursor").value(2));
+
+        verify(animalService, times(1)).cercar(filtre, null, 2);
+    }
+
+    @Test
+    void testCercarAnimals_Ordre()throws Exception {
+        List<AnimalCardDTO> animals = Arrays.asList(targeta(animal2), targeta(animal1));
+        filtre.setSort("joves");
+        when(animalService.cercar(filtre, null, 24)).thenReturn(new PaginaDTO<>(animals, null, 24));
+
+        mockMvc.perform(get("/api/animals")
+                .param("sort", "joves")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].nomAn").value("Pelut"))
+                .andExpect(jsonPath("$.items[1].nomAn").value("Dark"));
+
+        verify(animalService, times(1)).cercar(filtre, null, 24);
+    }
+
+    @Test
+    void testCercarAnimals_OrdreNoValid()throws Exception {
+        mockMvc.perform(get("/api/animals")
+                .param("sort", "descripcio")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(animalService, never()).cercar(any(), any(), anyInt());
+    }
+
+    @Test
+    void testCercarAnimals_Cbor()throws Exception {
+        when(animalService.cercar(filtre, null, 24)).thenReturn(new PaginaDTO<>(List.of(targeta(animal1)), null, 24));
+
+        byte[] cos = mockMvc.perform(get("/api/animals")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode pagina = new CBORMapper().readTree(cos);
+        assertEquals("Dark", pagina.get("items").get(0).get("nomAn").asText());
+        assertEquals(1L, pagina.get("items").get(0).get("numId").asLong());
+        assertTrue(pagina.get("items").get(0).get("edat").has("anys"));
+    }
+
+    @Test
+    void testGetFacets()throws Exception {
+        filtre.setEspecie("Gos");
+        FacetsDTO facets = new FacetsDTO(3,
+            Map.of("Gos", 3L),
+            Map.of("Barcelona", 2L, "Girona", 1L),
+            Map.of("M", 2L, "F", 1L),
+            Map.of("CADELL", 1L, "JOVE", 2L, "ADULT", 0L, "SENIOR", 0L));
+        when(animalService.facets(filtre)).thenReturn(facets);
+
+        mockMvc.perform(get("/api/animals/facets")
+                .param("especie", "Gos")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.provincia.Barcelona").value(2))
+                .andExpect(jsonPath("$.edat.JOVE").value(2));
+
+        verify(animalService, times(1)).facets(filtre);
+    }
+
+    @Test
+    void testComptarAnimals()throws Exception {
+        filtre.setEspecie("Gos");
+        filtre.setProvincia("Girona");
+        when(animalService.comptar(filtre)).thenReturn(7L);
+
+        mockMvc.perform(get("/api/animals/count")
+                .param("especie", "Gos")
+                .param("provincia", "Girona")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "7"))
+                .andExpect(content().string("7"));
+
+        verify(animalService, times(1)).comptar(filtre);
+        verify(animalService, never()).cercar(any(), any(), anyInt());
+    }
+
+    @Test
+    void testComptarAnimals_Head()throws Exception {
+        when(animalService.comptar(any())).thenReturn(3L);
+
+        mockMvc.perform(head("/api/animals/count")
+                .param("especie", "Gat"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"));
+    }
+
+    @Test
+    void testGetCampsAnimalsByIds()throws Exception {
+        Map<String, Object> camps1 = new LinkedHashMap<>(Map.of("nomAn", "Max"));
+        camps1.put("protectora", Map.of("nomProt", "Protectora 1"));
+        when(animalService.getCampsAnimals(eq(List.of(1L)), any(SeleccioCamps.class))).thenReturn(List.of(camps1));
+
+        mockMvc.perform(get("/api/animals")
+                .param("ids", "1")
+                .param("fields", "nomAn,protectora.nomProt")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nomAn").value("Max"))
+                .andExpect(jsonPath("$[0].protectora.nomProt").value("Protectora 1"))
+                .andExpect(jsonPath("$[0].descripcio").doesNotExist());
+
+        verify(animalService, never()).getAnimalsByIds(any());
+    }
+
+    @Test
+    void testGetCampsAnimal_CampNoValid()throws Exception {
+        mockMvc.perform(get("/api/animals/1")
+                .param("fields", "nomAn,contrasenya")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(animalService, never()).getCampsAnimal(any(), any());
+        verify(animalService, never()).getAnimalByIdWithProtectora(any());
+    }
+
+    @Test
+    void testGetCampsAnimal()throws Exception {
+        when(animalService.getCampsAnimal(eq(1L), any(SeleccioCamps.class))).thenReturn(Optional.of(Map.of("fotoPerfil", "max.jpg")));
+
+        mockMvc.perform(get("/api/animals/1")
+                .param("fields", "fotoPerfil")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fotoPerfil").value("max.jpg"))
+                .andExpect(jsonPath("$.nomAn").doesNotExist());
+
+        verify(animalService, never()).getAnimalByIdWithProtectora(any());
+    }
+
+    @Test
+    void testGetAnimalsByIds()throws Exception {
+        when(animalService.getAnimalsByIds(List.of(2L, 1L))).thenReturn(Arrays.asList(animal2, animal1));
+
+        mockMvc.perform(get("/api/animals")
+                .param("ids", "2,1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].numId").value(2))
+                .andExpect(jsonPath("$[1].descripcio").value("Gos molt carinyos"));
+
+        verify(animalService, times(1)).getAnimalsByIds(List.of(2L, 1L));
+        verify(animalService, never()).cercar(any(), any(), anyInt());
+    }
+
+    @Test
+    void testGetAnimalsByIds_MassaIds()throws Exception {
+        String ids = String.join(",", LongStream.rangeClosed(1, AnimalService.LIMIT_MAXIM + 1)
+            .mapToObj(String::valueOf).toList());
+
+        mockMvc.perform(get("/api/animals")
+                .param("ids", ids)
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        verify(animalService, never()).getAnimalsByIds(any());
+    }
+
+    @Test
+    void testGetDestacats()throws Exception {
+        when(animalService.getDestacats(6)).thenReturn(Arrays.asList(targeta(animal2), targeta(animal1)));
+
+        mockMvc.perform(get("/api/animals/featured")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].nomAn").value("Pelut"));
+
+        verify(animalService, times(1)).getDestacats(6);
+    }
+
+    @Test
+    void testGetAdopcionsRecents()throws Exception {
+        animal1.setEsAdoptat(true);
+        List<AnimalCardDTO> recents = Arrays.asList(targeta(animal1));
+        when(animalService.getAdopcionsRecents(5)).thenReturn(recents);
+
+        mockMvc.perform(get("/api/animals/adoptats/recents")
+                .param("n", "5")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].nomAn").value("Dark"))
+                .andExpect(jsonPath("$[0].descripcio").doesNotExist());
 
-        verify(animalService, times(1)).getAnimalsByEspecieNoAdoptats("Peixos");
+        verify(animalService, times(1)).getAdopcionsRecents(5);
     }
 
     @Test
@@ -0,0 +1,62 @@
+package com.buscadorpelut.Controller;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.buscadorpelut.DTO.SuggerimentLocalitzacioDTO;
+import com.buscadorpelut.Model.TipusLocalitzacio;
+import com.buscadorpelut.Service.DiccionariLocalitzacions;
+
+@WebMvcTest(LocalitzacioController.class)
+@AutoConfigureMockMvc(addFilters = false)
+public class LocalitzacioControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SuppressWarnings("removal")
+    @MockBean
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    @Test
+    void testSuggerir()throws Exception{
+        when(diccionariLocalitzacions.suggerir("gir", DiccionariLocalitzacions.MAXIM_SUGGERIMENTS)).thenReturn(List.of(
+            new SuggerimentLocalitzacioDTO("Girona", TipusLocalitzacio.PROVINCIA, null, 3),
+            new SuggerimentLocalitzacioDTO("Refugi de Girona", TipusLocalitzacio.PROTECTORA, 4L, 1)));
+
+        mockMvc.perform(get("/api/localitzacions/suggest")
+                .param("prefix", "gir"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].text").value("Girona"))
+                .andExpect(jsonPath("$[0].tipus").value("PROVINCIA"))
+                .andExpect(jsonPath("$[0].protectores").value(3))
+                .andExpect(jsonPath("$[1].tipus").value("PROTECTORA"))
+                .andExpect(jsonPath("$[1].codiProt").value(4));
+        verify(diccionariLocalitzacions, times(1)).suggerir("gir", DiccionariLocalitzacions.MAXIM_SUGGERIMENTS);
+    }
+
+    @Test
+    void testSuggerir_Limit()throws Exception{
+        when(diccionariLocalitzacions.suggerir("08", 3)).thenReturn(List.of(
+            new SuggerimentLocalitzacioDTO("08031", TipusLocalitzacio.CODI_POSTAL, null, 1)));
+
+        mockMvc.perform(get("/api/localitzacions/suggest")
+                .param("prefix", "08")
+                .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("08031"))
+                .andExpect(jsonPath("$[0].tipus").value("CODI_POSTAL"));
+        verify(diccionariLocalitzacions, times(1)).suggerir("08", 3);
+    }
+}
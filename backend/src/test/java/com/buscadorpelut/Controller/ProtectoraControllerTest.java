@@ -1,14 +1,19 @@
 package com.buscadorpelut.Controller;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,8 +23,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.buscadorpelut.DTO.ClusterMapaDTO;
+import com.buscadorpelut.DTO.ProtectoraDistanciaDTO;
+import com.buscadorpelut.Model.CaixaGeo;
 import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Model.SeleccioCamps;
 import com.buscadorpelut.Service.ProtectoraService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 @WebMvcTest(ProtectoraController.class)
 @AutoConfigureMockMvc(addFilters = false)
@@ -66,6 +77,145 @@ public class ProtectoraControllerTest {
         );
     }
 
+    @Test
+    void testGetProtectoresByIds()throws Exception{
+        when(protectoraService.getProtectoresByIds(List.of(2L, 1L))).thenReturn(Arrays.asList(protectora2, protectora1));
+
+        mockMvc.perform(get("/api/protectores")
+                .param("ids", "2,1")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].codiProt").value(2))
+                .andExpect(jsonPath("$[1].codiProt").value(1));
+        verify(protectoraService, times(1)).getProtectoresByIds(List.of(2L, 1L));
+        verify(protectoraService, never()).getAllProtectores();
+    }
+
+    @Test
+    void testComptarProtectores()throws Exception{
+        when(protectoraService.comptarProtectores(null, null, "Girona")).thenReturn(2L);
+
+        mockMvc.perform(head("/api/protectores/count")
+                .param("provincia", "Girona"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"));
+        verify(protectoraService, times(1)).comptarProtectores(null, null, "Girona");
+    }
+
+    @Test
+    void testComptarProtectores_MesDUnCriteri()throws Exception{
+        mockMvc.perform(get("/api/protectores/count")
+                .param("provincia", "Girona")
+                .param("localitat", "Olot"))
+                .andExpect(status().isBadRequest());
+        verify(protectoraService, never()).comptarProtectores(any(), any(), any());
+    }
+
+    @Test
+    void testGetProtectoresPropers()throws Exception{
+        when(protectoraService.getProtectoresPropers(41.39, 2.17, 10.0, 5)).thenReturn(List.of(
+            new ProtectoraDistanciaDTO(protectora1, 1.5),
+            new ProtectoraDistanciaDTO(protectora2, 7.25)));
+
+        mockMvc.perform(get("/api/protectores/near")
+                .param("lat", "41.39")
+                .param("lon", "2.17")
+                .param("radiusKm", "10")
+                .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].protectora.nomProt").value(protectora1.getNomProt()))
+                .andExpect(jsonPath("$[0].distanciaKm").value(1.5))
+                .andExpect(jsonPath("$[1].distanciaKm").value(7.25));
+        verify(protectoraService, times(1)).getProtectoresPropers(41.39, 2.17, 10.0, 5);
+    }
+
+    @Test
+    void testGetProtectoresPropers_CoordenadesInvalides()throws Exception{
+        mockMvc.perform(get("/api/protectores/near")
+                .param("lat", "91")
+                .param("lon", "2.17"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/protectores/near")
+                .param("lat", "41.39")
+                .param("lon", "2.17")
+                .param("radiusKm", "0"))
+                .andExpect(status().isBadRequest());
+        verify(protectoraService, never()).getProtectoresPropers(anyDouble(), anyDouble(), anyDouble(), anyInt());
+    }
+
+    @Test
+    void testGetClustersMapa()throws Exception{
+        CaixaGeo caixa = new CaixaGeo(40.5, 0.15, 42.9, 3.35);
+        when(protectoraService.getClustersMapa(caixa, 8)).thenReturn(List.of(
+            new ClusterMapaDTO(41.39, 2.17, 3, 25),
+            new ClusterMapaDTO(41.98, 2.82, 1, 4)));
+
+        mockMvc.perform(get("/api/protectores/map")
+                .param("bbox", "0.15,40.5,3.35,42.9")
+                .param("zoom", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].latitud").value(41.39))
+                .andExpect(jsonPath("$[0].protectores").value(3))
+                .andExpect(jsonPath("$[0].animalsDisponibles").value(25));
+        verify(protectoraService, times(1)).getClustersMapa(caixa, 8);
+    }
+
+    @Test
+    void testGetClustersMapa_ZonaInvalida()throws Exception{
+        mockMvc.perform(get("/api/protectores/map")
+                .param("bbox", "0.15,40.5,3.35")
+                .param("zoom", "8"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/protectores/map")
+                .param("bbox", "0.15,42.9,3.35,40.5")
+                .param("zoom", "8"))
+                .andExpect(status().isBadRequest());
+        verify(protectoraService, never()).getClustersMapa(any(), anyInt());
+    }
+
+    @Test
+    void testGetCampsProtectores()throws Exception{
+        when(protectoraService.getCampsProtectores(any(SeleccioCamps.class)))
+            .thenReturn(List.of(Map.of("nomProt", "Protectora 1"), Map.of("nomProt", "Protectora 2")));
+
+        mockMvc.perform(get("/api/protectores")
+                .param("fields", "nomProt")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].nomProt").value("Protectora 1"))
+                .andExpect(jsonPath("$[0].emailProt").doesNotExist());
+        verify(protectoraService, never()).getAllProtectores();
+    }
+
+    @Test
+    void testGetCampsProtectores_CampNoValid()throws Exception{
+        mockMvc.perform(get("/api/protectores")
+                .param("ids", "1,2")
+                .param("fields", "nomProt,codiPostalClau")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(protectoraService, never()).getCampsProtectoresByIds(any(), any());
+    }
+
+    @Test
+    void testGetAllProtectores_Smile()throws Exception{
+        when(protectoraService.getAllProtectores()).thenReturn(Arrays.asList(protectora1, protectora2));
+
+        byte[] cos = mockMvc.perform(get("/api/protectores")
+                .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode protectores = new SmileMapper().readTree(cos);
+        assertEquals(2, protectores.size());
+        assertEquals(protectora1.getLatitud(), protectores.get(0).get("latitud").asDouble());
+    }
+
     @Test
     void testGetAllProtectores()throws Exception{
         List<Protectora>protectoras = Arrays.asList(protectora1,protectora2);
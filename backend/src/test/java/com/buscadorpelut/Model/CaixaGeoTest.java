@@ -0,0 +1,82 @@
+package com.buscadorpelut.Model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+public class CaixaGeoTest {
+
+    @Test
+    void testAlVoltant() {
+        CaixaGeo caixa = CaixaGeo.alVoltant(41.39, 2.17, 10);
+
+        // 10 km són 0,0899 graus de latitud, i més graus de longitud com més lluny de l'equador
+        assertThat(caixa.latMax() - 41.39).isCloseTo(0.0899, within(0.0001));
+        assertThat(41.39 - caixa.latMin()).isCloseTo(0.0899, within(0.0001));
+        assertThat(caixa.lonMax() - 2.17).isCloseTo(0.1199, within(0.0001));
+        assertThat(caixa.conte(41.39, 2.17)).isTrue();
+
+        // Els punts a 10 km en les quatre direccions són dins de la caixa
+        assertThat(caixa.conte(41.39 + 0.0899, 2.17)).isTrue();
+        assertThat(caixa.conte(41.39, 2.17 - 0.1198)).isTrue();
+        assertThat(caixa.conte(41.39 + 0.0901, 2.17)).isFalse();
+        assertThat(caixa.conte(41.39, 2.17 + 0.1200)).isFalse();
+    }
+
+    @Test
+    void testAlVoltant_Pols() {
+        // El cercle inclou el pol: cap caixa el pot envoltar
+        assertThat(CaixaGeo.alVoltant(89.9, 10, 50)).isNull();
+        assertThat(CaixaGeo.alVoltant(-89.95, 10, 10)).isNull();
+        // Radi més gran que un quart de la circumferència terrestre
+        assertThat(CaixaGeo.alVoltant(0, 0, 10_100)).isNull();
+    }
+
+    @Test
+    void testAlVoltant_Meridia180() {
+        assertThat(CaixaGeo.alVoltant(0, 179.95, 10)).isNull();
+        assertThat(CaixaGeo.alVoltant(-17.7, -179.99, 5)).isNull();
+        assertThat(CaixaGeo.alVoltant(0, 179.5, 10)).isNotNull();
+    }
+
+    @Test
+    void testConte() {
+        CaixaGeo caixa = new CaixaGeo(40.5, 0.5, 42.0, 3.3);
+
+        // Els límits són inclosos
+        assertThat(caixa.conte(40.5, 0.5)).isTrue();
+        assertThat(caixa.conte(42.0, 3.3)).isTrue();
+        assertThat(caixa.conte(41.0, 2.0)).isTrue();
+        assertThat(caixa.conte(40.4999, 2.0)).isFalse();
+        assertThat(caixa.conte(41.0, 3.3001)).isFalse();
+    }
+
+    @Test
+    void testWkt() {
+        assertThat(new CaixaGeo(40.5, 0.5, 42.0, 3.3).wkt()).isEqualTo(
+            "POLYGON((0.5000000 40.5000000, 3.3000000 40.5000000, 3.3000000 42.0000000, 0.5000000 42.0000000, 0.5000000 40.5000000))");
+        assertThat(new CaixaGeo(-33.9, -70.7, -33.4, -70.5).wkt()).startsWith("POLYGON((-70.7000000 -33.9000000, ");
+    }
+
+    @Test
+    void testBbox() {
+        assertThat(CaixaGeo.bbox("0.15,40.52,3.33,42.86")).isEqualTo(new CaixaGeo(40.52, 0.15, 42.86, 3.33));
+        assertThat(CaixaGeo.bbox(" 0.15, 40.52 ,3.33,42.86 ")).isEqualTo(new CaixaGeo(40.52, 0.15, 42.86, 3.33));
+        // Mapa desplaçat més enllà del meridià 180: les longituds es limiten
+        assertThat(CaixaGeo.bbox("-200,10,200,20")).isEqualTo(new CaixaGeo(10, -180, 20, 180));
+    }
+
+    @Test
+    void testBbox_Invalida() {
+        assertThat(CaixaGeo.bbox("0.15,40.52,3.33")).isNull();
+        assertThat(CaixaGeo.bbox("0.15,40.52,3.33,42.86,1")).isNull();
+        assertThat(CaixaGeo.bbox("a,40.52,3.33,42.86")).isNull();
+        assertThat(CaixaGeo.bbox("NaN,40.52,3.33,42.86")).isNull();
+        // Oest a l'est de l'est, sud al nord del nord, latituds fora de rang
+        assertThat(CaixaGeo.bbox("3.33,40.52,0.15,42.86")).isNull();
+        assertThat(CaixaGeo.bbox("0.15,42.86,3.33,40.52")).isNull();
+        assertThat(CaixaGeo.bbox("0.15,-91,3.33,42.86")).isNull();
+        assertThat(CaixaGeo.bbox("0.15,40.52,3.33,90.5")).isNull();
+    }
+}
@@ -0,0 +1,63 @@
+package com.buscadorpelut.Model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+public class ClauCercaTest {
+
+    @Test
+    void testNormalitzar_AccentsIMajuscules() {
+        assertThat(ClauCerca.normalitzar("Exòtic")).isEqualTo("exotic");
+        assertThat(ClauCerca.normalitzar("EXÒTIC")).isEqualTo("exotic");
+        assertThat(ClauCerca.normalitzar("Lleida")).isEqualTo(ClauCerca.normalitzar("LLEIDA"));
+        assertThat(ClauCerca.normalitzar("Cañellas Güell")).isEqualTo("canellas guell");
+        assertThat(ClauCerca.normalitzar("Sant Martí Sescorts i Collbató")).isEqualTo("sant marti sescorts i collbato");
+        assertThat(ClauCerca.normalitzar("Cabrera d'Igualada")).isEqualTo("cabrera d'igualada");
+        // La ç perd el trenc, però el punt volat de la ela geminada no és un accent
+        assertThat(ClauCerca.normalitzar("Façana")).isEqualTo("facana");
+        assertThat(ClauCerca.normalitzar("Sant Pol de Mar · Col·legi")).isEqualTo("sant pol de mar · col·legi");
+    }
+
+    @Test
+    void testNormalitzar_MinusculesSenseLocale() {
+        // Amb Locale.ROOT la I majúscula sempre és una i, també amb la configuració turca
+        Locale anterior = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertThat(ClauCerca.normalitzar("IGUALADA")).isEqualTo("igualada");
+        } finally {
+            Locale.setDefault(anterior);
+        }
+    }
+
+    @Test
+    void testNormalitzar_Espais() {
+        assertThat(ClauCerca.normalitzar("  Gos ")).isEqualTo("gos");
+        assertThat(ClauCerca.normalitzar("Sant   Cugat\tdel\nVallès")).isEqualTo("sant cugat del valles");
+    }
+
+    @Test
+    void testNormalitzar_Buit() {
+        assertThat(ClauCerca.normalitzar(null)).isNull();
+        assertThat(ClauCerca.normalitzar("")).isNull();
+        assertThat(ClauCerca.normalitzar(" \t ")).isNull();
+    }
+
+    @Test
+    void testNormalitzarCodiPostal() {
+        assertThat(ClauCerca.normalitzarCodiPostal("08031")).isEqualTo("08031");
+        assertThat(ClauCerca.normalitzarCodiPostal("08 031")).isEqualTo("08031");
+        assertThat(ClauCerca.normalitzarCodiPostal(" 08 0 31 ")).isEqualTo("08031");
+        assertThat(ClauCerca.normalitzarCodiPostal("08\t031")).isEqualTo("08031");
+    }
+
+    @Test
+    void testNormalitzarCodiPostal_Buit() {
+        assertThat(ClauCerca.normalitzarCodiPostal(null)).isNull();
+        assertThat(ClauCerca.normalitzarCodiPostal("")).isNull();
+        assertThat(ClauCerca.normalitzarCodiPostal("   ")).isNull();
+    }
+}
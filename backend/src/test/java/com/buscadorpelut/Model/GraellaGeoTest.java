@@ -0,0 +1,68 @@
+package com.buscadorpelut.Model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class GraellaGeoTest {
+
+    private record Lloc(String nom, double latitud, double longitud) {}
+
+    private static GraellaGeo<Lloc> graella(double toleranciaKm, Lloc... llocs) {
+        return GraellaGeo.construir(List.of(llocs), Lloc::latitud, Lloc::longitud, toleranciaKm);
+    }
+
+    @Test
+    void testMesProper_DinsDeLaTolerancia() {
+        GraellaGeo<Lloc> graella = graella(1, new Lloc("Barcelona", 41.39, 2.17), new Lloc("Girona", 41.98, 2.82));
+
+        // 1 km són 0,00899 graus de latitud
+        assertThat(graella.mesProper(41.39, 2.17)).map(Lloc::nom).contains("Barcelona");
+        assertThat(graella.mesProper(41.39 + 0.0089, 2.17)).map(Lloc::nom).contains("Barcelona");
+        assertThat(graella.mesProper(41.98 - 0.0089, 2.82)).map(Lloc::nom).contains("Girona");
+    }
+
+    @Test
+    void testMesProper_Fora() {
+        GraellaGeo<Lloc> graella = graella(1, new Lloc("Barcelona", 41.39, 2.17));
+
+        // Just fora de la tolerància, en qualsevol direcció
+        assertThat(graella.mesProper(41.39 + 0.0091, 2.17)).isEmpty();
+        assertThat(graella.mesProper(41.39 - 0.0091, 2.17)).isEmpty();
+        assertThat(graella.mesProper(41.39, 2.17 + 0.0121)).isEmpty();
+        assertThat(graella.mesProper(41.98, 2.82)).isEmpty();
+    }
+
+    @Test
+    void testMesProper_LimitEntreCubs() {
+        // A (0, 0) el vector és (1, 0, 0): el punt és just a la vora de quatre cubs, i la consulta cau a un altre
+        GraellaGeo<Lloc> graella = graella(1, new Lloc("Origen", 0, 0));
+
+        assertThat(graella.mesProper(-0.005, -0.005)).map(Lloc::nom).contains("Origen");
+        assertThat(graella.mesProper(0.005, -0.005)).map(Lloc::nom).contains("Origen");
+        assertThat(graella.mesProper(-0.005, 0.005)).map(Lloc::nom).contains("Origen");
+    }
+
+    @Test
+    void testMesProper_Empat() {
+        Lloc est = new Lloc("Est", 0, 0.005);
+        Lloc oest = new Lloc("Oest", 0, -0.005);
+
+        // Els dos són a la mateixa distància: guanya el primer de la llista de construcció
+        assertThat(graella(1, est, oest).mesProper(0, 0)).contains(est);
+        assertThat(graella(1, oest, est).mesProper(0, 0)).contains(oest);
+        // També si tenen les mateixes coordenades
+        Lloc bis = new Lloc("Est bis", 0, 0.005);
+        assertThat(graella(1, est, bis).mesProper(0, 0.005)).contains(est);
+        assertThat(graella(1, bis, est).mesProper(0, 0.005)).contains(bis);
+    }
+
+    @Test
+    void testConstruir_ToleranciaNoPositiva() {
+        assertThatThrownBy(() -> graella(0, new Lloc("Barcelona", 41.39, 2.17)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -10,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
 import com.buscadorpelut.Repository.AnimalRepository;
 import com.buscadorpelut.Repository.ProtectoraRepository;
 
@@ -148,6 +150,49 @@ public class TestManipulacioBDbuscadorPelutAnimal {
         assertThat(esborrat).isNull();//No l'ha de trobar perquè l'hem esborrat
     }
 
+    @Test
+    void testCercarExotic_SenseClauEspecie(){ // Un animal sense clau d'espècie també és exòtic, igual que a l'índex en memòria
+        //0- Preparació dada protectora (clau forana)
+        Protectora protectoraTest = new Protectora();
+        protectoraTest.setNomProt("Protectora Test");
+        protectoraTest.setLatitud(99999999);
+        protectoraTest.setLongitud(99999999);
+
+        protectoraRepository.save(protectoraTest); //guardem la protectora per evitar errors de clau forana
+
+        //1- Creem un animal amb l'espècie en blanc (la clau es guarda a null) i un gos
+        Animal animalTest = new Animal();
+        animalTest.setNomAn("Nit");
+        animalTest.setSexe("femella");
+        animalTest.setEspecie(" ");
+        animalTest.setDescripcio("La Nit encara no sabem quin animal és.");
+        animalTest.setDataNeix(Date.valueOf(LocalDate.of(2023, 3, 3)));
+        animalTest.setNumXip("null");
+        animalTest.setEsAdoptat(false);
+        animalTest.setFotoPerfil("Nit.jpg");
+        animalTest.setProtectora(protectoraTest);
+        animalRepository.save(animalTest);
+
+        Animal gos = new Animal();
+        gos.setNomAn("Rex");
+        gos.setSexe("mascle");
+        gos.setEspecie("Gos");
+        gos.setDescripcio("En Rex és un gos.");
+        gos.setDataNeix(Date.valueOf(LocalDate.of(2022, 2, 2)));
+        gos.setNumXip("null");
+        gos.setEsAdoptat(false);
+        gos.setFotoPerfil("Rex.jpg");
+        gos.setProtectora(protectoraTest);
+        animalRepository.save(gos);
+        animalRepository.flush();
+
+        //2- Cerquem els exòtics de la protectora: només hi ha de sortir la Nit
+        FiltreAnimalsDTO filtre = new FiltreAnimalsDTO();
+        filtre.setEspecie(FiltreAnimalsDTO.ESPECIE_EXOTIC);
+        filtre.setProtectora(protectoraTest.getCodiProt());
+        assertThat(animalRepository.cercar(filtre, 0L, 10)).extracting(AnimalCardDTO::getNomAn).containsExactly("Nit");
+        assertThat(animalRepository.comptar(filtre)).isEqualTo(1);
+    }
 
     /**
     * Retorna l'animal amb el nom especificat dins de la llista passada.
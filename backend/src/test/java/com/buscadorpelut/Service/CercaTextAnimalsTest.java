@@ -0,0 +1,118 @@
+package com.buscadorpelut.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.Model.Animal;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.AnimalRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class CercaTextAnimalsTest {
+
+    @Mock
+    private AnimalRepository animalRepository;
+
+    @Mock
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    @InjectMocks
+    private CercaTextAnimals cercaTextAnimals;
+
+    @TempDir
+    Path directori;
+
+    private static final Protectora PROTECTORA = new Protectora(1L, "Amics", "carrer", "08031", "Barcelona",
+        "Barcelona", "www.a.com", 2.17, 41.39, "600000000", "a@a.com");
+
+    private static final Protectora ALTRA = new Protectora(2L, "Peluts", "carrer", "17001", "Girona",
+        "Girona", "www.p.com", 2.82, 41.98, "600000001", "p@p.com");
+
+    private static Animal animal(long numId, String nomAn) {
+        return animal(numId, nomAn, PROTECTORA);
+    }
+
+    private static Animal animal(long numId, String nomAn, Protectora protectora) {
+        return new Animal(numId, nomAn, "Mascle", null, "Gos molt tranquil", null, "Gos", false, null, protectora);
+    }
+
+    private List<Long> cercar(String q) {
+        FiltreAnimalsDTO filtre = new FiltreAnimalsDTO();
+        filtre.setQ(q);
+        return cercaTextAnimals.cercar(filtre, 0, 10).stream().map(AnimalCardDTO::getNumId).toList();
+    }
+
+    private int documentsAlDisc() throws IOException {
+        IndexWriter writer = (IndexWriter) ReflectionTestUtils.getField(cercaTextAnimals, "writer");
+        try (DirectoryReader reader = DirectoryReader.open(writer.getDirectory())) {
+            return reader.numDocs();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(cercaTextAnimals, "directori", directori.toString());
+        cercaTextAnimals.obrir();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        cercaTextAnimals.tancar();
+    }
+
+    @Test
+    void testIndexar_VisibleSenseCommit() throws IOException {
+        when(animalRepository.findAllWithProtectora()).thenReturn(List.of(animal(1, "Rex")));
+        cercaTextAnimals.reconstruir();
+        cercaTextAnimals.confirmar();
+
+        when(animalRepository.findByIdWithProtectora(2L)).thenReturn(Optional.of(animal(2, "Toby")));
+        cercaTextAnimals.indexar(2L);
+
+        // La cerca el troba de seguida, però al disc encara no hi és fins al commit periòdic
+        assertThat(cercar("toby")).containsExactly(2L);
+        assertThat(documentsAlDisc()).isEqualTo(1);
+
+        cercaTextAnimals.confirmar();
+        assertThat(documentsAlDisc()).isEqualTo(2);
+    }
+
+    @Test
+    void testEliminarProtectora() {
+        when(animalRepository.findAllWithProtectora()).thenReturn(List.of(
+            animal(1, "Rex"), animal(2, "Toby"), animal(3, "Max", ALTRA)));
+        cercaTextAnimals.reconstruir();
+        assertThat(cercar("gos")).containsExactlyInAnyOrder(1L, 2L, 3L);
+
+        // El 1 s'ha eliminat amb la protectora; el 2 continua a la base de dades, però sense protectora
+        when(animalRepository.findByIdWithProtectora(1L)).thenReturn(Optional.empty());
+        when(animalRepository.findByIdWithProtectora(2L)).thenReturn(Optional.of(animal(2, "Toby", null)));
+        cercaTextAnimals.eliminarProtectora(1L);
+
+        assertThat(cercar("gos")).containsExactlyInAnyOrder(2L, 3L);
+        FiltreAnimalsDTO filtre = new FiltreAnimalsDTO();
+        filtre.setQ("gos");
+        filtre.setProtectora(1L);
+        assertThat(cercaTextAnimals.comptar(filtre)).isZero();
+        verify(animalRepository, never()).findByIdWithProtectora(3L);
+    }
+}
@@ -0,0 +1,91 @@
+package com.buscadorpelut.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class DiccionariLocalitzacionsTest {
+
+    @Mock
+    private ProtectoraRepository protectoraRepository;
+
+    @InjectMocks
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    private static Protectora protectora(long codiProt, String codiPostal, String localitat, String provincia) {
+        return new Protectora(codiProt, "P" + codiProt, "carrer", codiPostal, localitat, provincia, "www.p.com",
+            2.0, 41.0, "600000000", "p" + codiProt + "@p.com");
+    }
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(protectoraRepository.findAll()).thenReturn(List.of(
+            protectora(1, "08031", "Barcelona", "Barcelona"),
+            protectora(2, "08201", "Sabadell", "Barcelona"),
+            protectora(3, "17001", "Girona", "Girona"),
+            protectora(5, "43500", "Tortosa", "Tarragona"),
+            protectora(6, "17600", "Figueres", "Girona"),
+            protectora(7, "25700", "La Seu d'Urgell", "Lleida"),
+            protectora(11, "17300", "Blanes", "Girona"),
+            protectora(14, "25300", "Tàrrega", "Lleida")));
+    }
+
+    @Test
+    void testProtectores_SenseAccentsNiMajuscules() {
+        assertThat(diccionariLocalitzacions.protectores("Tàrrega")).containsExactly(14L);
+        assertThat(diccionariLocalitzacions.protectores("tarrega")).containsExactly(14L);
+        assertThat(diccionariLocalitzacions.protectores("  TÀRREGA ")).containsExactly(14L);
+        assertThat(diccionariLocalitzacions.protectores("la seu d'urgell")).containsExactly(7L);
+    }
+
+    @Test
+    void testProtectores_CodiPostal() {
+        assertThat(diccionariLocalitzacions.protectores("08031")).containsExactly(1L);
+        assertThat(diccionariLocalitzacions.protectores("08 031")).containsExactly(1L);
+    }
+
+    @Test
+    void testProtectores_ProvinciaILocalitat() {
+        // "Girona" és província i localitat: la unió de totes dues
+        assertThat(diccionariLocalitzacions.protectores("girona")).containsExactlyInAnyOrder(3L, 6L, 11L);
+        assertThat(diccionariLocalitzacions.protectores("Tarragona")).containsExactly(5L);
+    }
+
+    @Test
+    void testProtectores_Desconeguda() {
+        // Una localització o un codi postal que no té cap protectora és null, no un conjunt buit
+        assertThat(diccionariLocalitzacions.protectores("Terrassa")).isNull();
+        assertThat(diccionariLocalitzacions.protectores("99999")).isNull();
+    }
+
+    @Test
+    void testProtectores_TextBuit() {
+        assertThat(diccionariLocalitzacions.protectores(null)).isNull();
+        assertThat(diccionariLocalitzacions.protectores("   ")).isNull();
+        verify(protectoraRepository, never()).findAll();
+    }
+
+    @Test
+    void testReconstruir() {
+        assertThat(diccionariLocalitzacions.protectores("Sabadell")).containsExactly(2L);
+
+        // Quan es reconstrueix, les protectores noves ja es troben
+        when(protectoraRepository.findAll()).thenReturn(List.of(protectora(15, "08221", "Terrassa", "Barcelona")));
+        diccionariLocalitzacions.reconstruir();
+
+        assertThat(diccionariLocalitzacions.protectores("Terrassa")).containsExactly(15L);
+        assertThat(diccionariLocalitzacions.protectores("Sabadell")).isNull();
+    }
+}
@@ -0,0 +1,112 @@
+package com.buscadorpelut.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class DirectoriProtectoresTest {
+
+    @Mock
+    private ProtectoraRepository protectoraRepository;
+
+    @InjectMocks
+    private DirectoriProtectores directoriProtectores;
+
+    private static Protectora protectora(long codiProt, String nomProt, String codiPostal, String localitat,
+            String provincia, String emailProt) {
+        return new Protectora(codiProt, nomProt, "carrer", codiPostal, localitat, provincia, "www.p.com",
+            2.0, 41.0, "600000000", emailProt);
+    }
+
+    @Test
+    void testAccentsIMajuscules() {
+        when(protectoraRepository.findAll()).thenReturn(List.of(
+            protectora(1, "A.P.A. Rodamón", "17200", "Palafrugell", "Girona", "Rodamon@Gmail.com"),
+            protectora(2, "Amics dels Animals", "08901", "L'Hospitalet de Llobregat", "Barcelona", "amics@gmail.com")));
+
+        assertThat(directoriProtectores.perNom("a.p.a. RODAMON")).map(Protectora::getCodiProt).contains(1L);
+        assertThat(directoriProtectores.perNom("  amics   dels animals ")).map(Protectora::getCodiProt).contains(2L);
+        assertThat(directoriProtectores.perLocalitat("l'hospitalet de llobregat")).extracting(Protectora::getCodiProt)
+            .containsExactly(2L);
+        assertThat(directoriProtectores.perProvincia("GIRONA")).extracting(Protectora::getCodiProt).containsExactly(1L);
+        assertThat(directoriProtectores.perEmail(" rodamon@gmail.COM")).map(Protectora::getCodiProt).contains(1L);
+        assertThat(directoriProtectores.perNom("Rodamó")).isEmpty();
+        assertThat(directoriProtectores.perProvincia("Tarragona")).isEmpty();
+        assertThat(directoriProtectores.perNom(null)).isEmpty();
+        assertThat(directoriProtectores.perCodi(null)).isEmpty();
+    }
+
+    @Test
+    void testCodiPostalAmbEspais() {
+        when(protectoraRepository.findAll()).thenReturn(List.of(
+            protectora(1, "Amics", "08 031", "Barcelona", "Barcelona", "a@a.com"),
+            protectora(2, "Rodamón", "08031 ", "Barcelona", "Barcelona", "r@r.com"),
+            protectora(3, "Patitas", "17200", "Palafrugell", "Girona", "p@p.com")));
+
+        assertThat(directoriProtectores.perCodiPostal("08031")).extracting(Protectora::getCodiProt).containsExactly(1L, 2L);
+        assertThat(directoriProtectores.perCodiPostal(" 080 31")).extracting(Protectora::getCodiProt).containsExactly(1L, 2L);
+        assertThat(directoriProtectores.comptar("08031", null, null)).isEqualTo(2);
+        assertThat(directoriProtectores.comptar(null, null, "girona")).isEqualTo(1);
+        assertThat(directoriProtectores.comptar(null, null, null)).isEqualTo(3);
+    }
+
+    @Test
+    void testNomRepetit() {
+        // El repositori no les retorna ordenades: es queda la més antiga (el codi més petit)
+        when(protectoraRepository.findAll()).thenReturn(List.of(
+            protectora(5, "Amics dels Animals", "08031", "Barcelona", "Barcelona", "nova@gmail.com"),
+            protectora(2, "AMICS DELS ANIMALS", "17200", "Palafrugell", "Girona", "antiga@gmail.com"),
+            protectora(9, "Àmics dels animals", "43001", "Tarragona", "Tarragona", "antiga@gmail.com")));
+
+        assertThat(directoriProtectores.perNom("amics dels animals")).map(Protectora::getCodiProt).contains(2L);
+        assertThat(directoriProtectores.perEmail("antiga@gmail.com")).map(Protectora::getCodiProt).contains(2L);
+        assertThat(directoriProtectores.totes()).extracting(Protectora::getCodiProt).containsExactly(2L, 5L, 9L);
+    }
+
+    @Test
+    void testReconstruirDespresDeGuardar() {
+        when(protectoraRepository.findAll())
+            .thenReturn(List.of(protectora(1, "Amics", "08031", "Barcelona", "Barcelona", "a@a.com")))
+            .thenReturn(List.of(protectora(1, "Amics", "17200", "Palafrugell", "Girona", "a@a.com"),
+                protectora(2, "Rodamón", "08031", "Barcelona", "Barcelona", "r@r.com")));
+
+        directoriProtectores.enArrencar();
+        assertThat(directoriProtectores.perCodiPostal("08031")).extracting(Protectora::getCodiProt).containsExactly(1L);
+        assertThat(directoriProtectores.perNom("Rodamón")).isEmpty();
+
+        // ProtectoraService la reconstrueix després de guardar: les consultes veuen la còpia nova sencera
+        directoriProtectores.reconstruir();
+        assertThat(directoriProtectores.perCodiPostal("08031")).extracting(Protectora::getCodiProt).containsExactly(2L);
+        assertThat(directoriProtectores.perProvincia("Girona")).extracting(Protectora::getCodiProt).containsExactly(1L);
+        assertThat(directoriProtectores.perNom("Rodamón")).map(Protectora::getCodiProt).contains(2L);
+        verify(protectoraRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testRetornaLaCopiaSenseCopiarla() {
+        Protectora llegida = protectora(1, "Amics", "08031", "Barcelona", "Barcelona", "a@a.com");
+        when(protectoraRepository.findAll()).thenReturn(List.of(llegida));
+
+        // La còpia es fa en construir el directori, no a cada consulta
+        Protectora protectora = directoriProtectores.perCodi(1L).orElseThrow();
+        assertThat(protectora).isNotSameAs(llegida);
+        assertThat(directoriProtectores.totes()).singleElement().isSameAs(protectora);
+        assertThat(directoriProtectores.perProvincia("Barcelona")).singleElement().isSameAs(protectora);
+
+        // Modificar l'entitat llegida del repositori no canvia el directori
+        llegida.setNomProt("Canviat");
+        assertThat(directoriProtectores.perNom("Amics")).get().isSameAs(protectora);
+        assertThat(protectora.getNomProt()).isEqualTo("Amics");
+    }
+}
@@ -0,0 +1,169 @@
+package com.buscadorpelut.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.buscadorpelut.DTO.AnimalCardDTO;
+import com.buscadorpelut.DTO.AnimalIndexatDTO;
+import com.buscadorpelut.DTO.FiltreAnimalsDTO;
+import com.buscadorpelut.Repository.AnimalRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class IndexAnimalsTest {
+
+    @Mock
+    private AnimalRepository animalRepository;
+
+    @Mock
+    private DiccionariLocalitzacions diccionariLocalitzacions;
+
+    @InjectMocks
+    private IndexAnimals indexAnimals;
+
+    private static AnimalIndexatDTO animal(long numId) {
+        AnimalIndexatDTO animal = new AnimalIndexatDTO();
+        animal.setNumId(numId);
+        animal.setNomAn("A" + numId);
+        animal.setEspecie("Gos");
+        animal.setEspecieClau("gos");
+        animal.setCodiProt(1L);
+        return animal;
+    }
+
+    private List<Long> mostraSencera() {
+        return indexAnimals.mostra(100).stream().map(AnimalCardDTO::getNumId).toList();
+    }
+
+    @Test
+    void testMostra_SenseRepeticions() {
+        List<AnimalIndexatDTO> animals = new ArrayList<>();
+        for (long numId = 1; numId <= 40; numId++) {
+            animals.add(animal(numId));
+        }
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(animals);
+        indexAnimals.reconstruir();
+
+        List<Long> mostra = indexAnimals.mostra(10).stream().map(AnimalCardDTO::getNumId).toList();
+        assertThat(mostra).hasSize(10).doesNotHaveDuplicates().allMatch(numId -> numId >= 1 && numId <= 40);
+        assertThat(mostraSencera()).hasSize(40).doesNotHaveDuplicates();
+        assertThat(indexAnimals.mostra(0)).isEmpty();
+    }
+
+    @Test
+    void testMostra_DespresDeModificar() {
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(List.of(animal(1), animal(2), animal(3), animal(4)));
+        indexAnimals.reconstruir();
+
+        // Es treu un animal del mig, s'adopta el primer i se n'afegeix un de nou
+        indexAnimals.eliminar(2L);
+        when(animalRepository.findDisponiblePerIndex(1L)).thenReturn(Optional.empty());
+        indexAnimals.actualitzar(1L);
+        when(animalRepository.findDisponiblePerIndex(5L)).thenReturn(Optional.of(animal(5)));
+        indexAnimals.actualitzar(5L);
+        // Tornar a guardar un animal que ja hi és no el duplica
+        when(animalRepository.findDisponiblePerIndex(3L)).thenReturn(Optional.of(animal(3)));
+        indexAnimals.actualitzar(3L);
+        // Eliminar un animal que no hi és no canvia res
+        indexAnimals.eliminar(2L);
+
+        assertThat(mostraSencera()).containsExactlyInAnyOrder(3L, 4L, 5L);
+
+        indexAnimals.eliminar(3L);
+        indexAnimals.eliminar(4L);
+        indexAnimals.eliminar(5L);
+        assertThat(mostraSencera()).isEmpty();
+    }
+
+    @Test
+    void testReconstruir_CanvisDurantLaCarrega() {
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(List.of(animal(1), animal(2)));
+        indexAnimals.reconstruir();
+
+        // Mentre es carrega l'índex nou (amb les dades d'abans) s'adopta el 2 i es dona d'alta el 3
+        when(animalRepository.findDisponiblesPerIndex()).thenAnswer(invocacio -> {
+            List<AnimalIndexatDTO> carregats = List.of(animal(1), animal(2));
+            when(animalRepository.findDisponiblePerIndex(2L)).thenReturn(Optional.empty());
+            indexAnimals.actualitzar(2L);
+            when(animalRepository.findDisponiblePerIndex(3L)).thenReturn(Optional.of(animal(3)));
+            indexAnimals.actualitzar(3L);
+            return carregats;
+        });
+        indexAnimals.reconstruir();
+
+        assertThat(mostraSencera()).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void testCercar_NoModificaLIndex() {
+        AnimalIndexatDTO gat = animal(2);
+        gat.setEspecie("Gat");
+        gat.setEspecieClau("gat");
+        gat.setCodiProt(2L);
+        AnimalIndexatDTO conill = animal(3);
+        conill.setEspecie("Conill");
+        conill.setEspecieClau("conill");
+        conill.setCodiProt(2L);
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(List.of(animal(1), gat, conill));
+        indexAnimals.reconstruir();
+
+        // Amb un sol criteri es fa servir el bitmap de l'índex directament: les cerques següents no l'han d'alterar
+        FiltreAnimalsDTO filtre = new FiltreAnimalsDTO();
+        filtre.setProtectora(2L);
+        filtre.setEspecie("Exòtic");
+        assertThat(indexAnimals.cercar(filtre, 0L, 10)).extracting(AnimalCardDTO::getNumId).containsExactly(3L);
+        filtre.setEspecie(null);
+        assertThat(indexAnimals.facets(filtre).getEspecie()).containsOnlyKeys("Gat", "Conill");
+        filtre.setEspecie("Gat");
+        assertThat(indexAnimals.comptar(filtre)).isEqualTo(1);
+
+        filtre.setEspecie(null);
+        assertThat(indexAnimals.cercar(filtre, 0L, 10)).extracting(AnimalCardDTO::getNumId).containsExactly(2L, 3L);
+        filtre.setProtectora(null);
+        filtre.setEspecie("Exòtic");
+        assertThat(indexAnimals.comptar(filtre)).isEqualTo(1);
+        assertThat(indexAnimals.comptar(new FiltreAnimalsDTO())).isEqualTo(3);
+    }
+
+    @Test
+    void testCercar_ExoticSenseClauEspecie() {
+        AnimalIndexatDTO senseEspecie = animal(2);
+        senseEspecie.setEspecie(" ");
+        senseEspecie.setEspecieClau(null);
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(List.of(animal(1), senseEspecie));
+        indexAnimals.reconstruir();
+
+        // Igual que la consulta SQL: un animal sense clau d'espècie no és comú
+        FiltreAnimalsDTO filtre = new FiltreAnimalsDTO();
+        filtre.setEspecie("Exòtic");
+        assertThat(indexAnimals.cercar(filtre, 0L, 10)).extracting(AnimalCardDTO::getNumId).containsExactly(2L);
+        assertThat(indexAnimals.comptar(filtre)).isEqualTo(1);
+    }
+
+    @Test
+    void testCercar_IdentificadorsDispersos() {
+        AnimalIndexatDTO lluny = animal(2_000_000_000L);
+        lluny.setCodiProt(2L);
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(List.of(animal(5), animal(70_000), lluny));
+        indexAnimals.reconstruir();
+
+        FiltreAnimalsDTO filtre = new FiltreAnimalsDTO();
+        assertThat(indexAnimals.cercar(filtre, 0L, 10)).extracting(AnimalCardDTO::getNumId)
+            .containsExactly(5L, 70_000L, 2_000_000_000L);
+        // El cursor salta directament al següent identificador
+        assertThat(indexAnimals.cercar(filtre, 5L, 1)).extracting(AnimalCardDTO::getNumId).containsExactly(70_000L);
+        filtre.setProtectora(2L);
+        assertThat(indexAnimals.cercar(filtre, 0L, 10)).extracting(AnimalCardDTO::getNumId)
+            .containsExactly(2_000_000_000L);
+        assertThat(indexAnimals.comptar(filtre)).isEqualTo(1);
+    }
+}
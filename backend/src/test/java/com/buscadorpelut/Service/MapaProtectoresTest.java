@@ -0,0 +1,142 @@
+package com.buscadorpelut.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.buscadorpelut.DTO.AnimalIndexatDTO;
+import com.buscadorpelut.DTO.ClusterMapaDTO;
+import com.buscadorpelut.Model.CaixaGeo;
+import com.buscadorpelut.Model.Protectora;
+import com.buscadorpelut.Repository.AnimalRepository;
+import com.buscadorpelut.Repository.ProtectoraRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class MapaProtectoresTest {
+
+    /** La Catalunya continental, a zoom 7 té les protectores de Barcelona en una cel·la i la de Girona en una altra. */
+    private static final CaixaGeo CATALUNYA = new CaixaGeo(40.5, 0.15, 42.9, 3.35);
+
+    @Mock
+    private ProtectoraRepository protectoraRepository;
+
+    @Mock
+    private AnimalRepository animalRepository;
+
+    @InjectMocks
+    private MapaProtectores mapaProtectores;
+
+    private static Protectora protectora(long codiProt, double latitud, double longitud) {
+        return new Protectora(codiProt, "P" + codiProt, "carrer", "08001", "Barcelona", "Barcelona", "www.p.com",
+            longitud, latitud, "600000000", "p" + codiProt + "@p.com");
+    }
+
+    private static AnimalIndexatDTO animal(long numId, long codiProt) {
+        AnimalIndexatDTO animal = new AnimalIndexatDTO();
+        animal.setNumId(numId);
+        animal.setCodiProt(codiProt);
+        return animal;
+    }
+
+    @Test
+    void testEliminar_AbansDePreparat() {
+        // Sense agrupacions construïdes, eliminar no ha de fallar ni tocar res
+        mapaProtectores.eliminarProtectora(1L);
+        mapaProtectores.eliminarAnimal(10L);
+
+        verifyNoInteractions(protectoraRepository, animalRepository);
+    }
+
+    @Test
+    void testEliminarProtectora_TreuElsSeusAnimals() {
+        when(protectoraRepository.findAll()).thenReturn(List.of(protectora(1, 41.40, 2.15), protectora(2, 41.42, 2.19)));
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(List.of(animal(10, 1), animal(11, 1), animal(12, 2)));
+        mapaProtectores.reconstruir();
+
+        mapaProtectores.eliminarProtectora(1L);
+        List<ClusterMapaDTO> clusters = mapaProtectores.clusters(CATALUNYA, 7);
+        assertThat(clusters).hasSize(1);
+        assertThat(clusters.get(0).getProtectores()).isEqualTo(1);
+        assertThat(clusters.get(0).getAnimalsDisponibles()).isEqualTo(1);
+
+        // Els animals de la protectora eliminada no tornen si es torna a crear amb el mateix codi
+        mapaProtectores.eliminarAnimal(10L);
+        mapaProtectores.actualitzarProtectora(protectora(1, 41.40, 2.15));
+        clusters = mapaProtectores.clusters(CATALUNYA, 7);
+        assertThat(clusters).hasSize(1);
+        assertThat(clusters.get(0).getProtectores()).isEqualTo(2);
+        assertThat(clusters.get(0).getAnimalsDisponibles()).isEqualTo(1);
+    }
+
+    @Test
+    void testCentre_MitjanaDelsMembres() {
+        when(protectoraRepository.findAll()).thenReturn(List.of(
+            protectora(1, 41.40, 2.15), protectora(2, 41.42, 2.19), protectora(3, 41.38, 2.11)));
+        when(animalRepository.findDisponiblesPerIndex()).thenReturn(List.of());
+        mapaProtectores.reconstruir();
+
+        // La protectora 3 es trasllada a Girona: el centre de Barcelona és el de les dues que hi queden
+        mapaProtectores.actualitzarProtectora(protectora(3, 41.98, 2.82));
+        List<ClusterMapaDTO> clusters = mapaProtectores.clusters(CATALUNYA, 7);
+        assertThat(clusters).hasSize(2);
+        assertThat(clusters.get(0).getLatitud()).isEqualTo((41.40 + 41.42) / 2);
+        assertThat(clusters.get(0).getLongitud()).isEqualTo((2.15 + 2.19) / 2);
+        assertThat(clusters.get(1).getLatitud()).isEqualTo(41.98);
+        assertThat(clusters.get(1).getLongitud()).isEqualTo(2.82);
+
+        // En eliminar la 2, el centre torna a ser exactament el de la 1, sense restes acumulades
+        mapaProtectores.eliminarProtectora(2L);
+        clusters = mapaProtectores.clusters(CATALUNYA, 7);
+        assertThat(clusters.get(0).getLatitud()).isEqualTo(41.40);
+        assertThat(clusters.get(0).getLongitud()).isEqualTo(2.15);
+    }
+
+    @Test
+    void testClusters_ModeMysql() {
+        ReflectionTestUtils.setField(mapaProtectores, "mode", "mysql");
+        when(protectoraRepository.findDinsCaixa(CATALUNYA.wkt())).thenReturn(List.of(
+            protectora(1, 41.40, 2.15), protectora(2, 41.42, 2.19), protectora(3, 41.98, 2.82)));
+        List<Object[]> animals = new ArrayList<>();
+        animals.add(new Object[] {1L, 3L});
+        animals.add(new Object[] {3L, 2L});
+        when(animalRepository.countDisponiblesPerProtectora(List.of(1L, 2L, 3L))).thenReturn(animals);
+
+        mapaProtectores.enArrencar();
+        List<ClusterMapaDTO> clusters = mapaProtectores.clusters(CATALUNYA, 7);
+
+        // D'oest a est: Barcelona (2 protectores) i Girona
+        assertThat(clusters).hasSize(2);
+        assertThat(clusters.get(0).getProtectores()).isEqualTo(2);
+        assertThat(clusters.get(0).getAnimalsDisponibles()).isEqualTo(3);
+        assertThat(clusters.get(0).getLatitud()).isEqualTo((41.40 + 41.42) / 2);
+        assertThat(clusters.get(0).getLongitud()).isEqualTo((2.15 + 2.19) / 2);
+        assertThat(clusters.get(1).getProtectores()).isEqualTo(1);
+        assertThat(clusters.get(1).getAnimalsDisponibles()).isEqualTo(2);
+
+        // No es construeix cap agrupació en memòria, ni en arrencar ni en modificar
+        mapaProtectores.actualitzarProtectora(protectora(4, 41.5, 2.0));
+        mapaProtectores.actualitzarAnimal(10L);
+        verify(protectoraRepository, never()).findAll();
+        verify(animalRepository, never()).findDisponiblesPerIndex();
+        verify(animalRepository, never()).findDisponiblePerIndex(any());
+    }
+
+    @Test
+    void testClusters_ModeMysqlZonaBuida() {
+        ReflectionTestUtils.setField(mapaProtectores, "mode", "mysql");
+        when(protectoraRepository.findDinsCaixa(CATALUNYA.wkt())).thenReturn(List.of());
+
+        assertThat(mapaProtectores.clusters(CATALUNYA, 7)).isEmpty();
+        verify(animalRepository, never()).countDisponiblesPerProtectora(any());
+    }
+}
@@ -4,6 +4,10 @@ document.addEventListener("DOMContentLoaded", () => {
   const resultsTitle = document.querySelector("h4");
   const selectEspecie = searchForm.querySelector("select");
   const localitzacioInput = document.getElementById("localitzacio-input");
+  const suggerimentsLocalitzacio = document.getElementById("suggeriments-localitzacio");
+  const textInput = document.getElementById("text-input");
+  const edatSelect = document.getElementById("edat-select");
+  const ordreSelect = document.getElementById("ordre-select");
   const paginationNav = document.querySelector(
     'nav[aria-label="Paginació de resultats"]'
   );
@@ -11,11 +15,18 @@ document.addEventListener("DOMContentLoaded", () => {
 
   // CONFIGURACIÓN CLAVE: URL de tu API Backend
   const API_URL = "http://localhost:8080/api/animals";
+  // Autocompletat de la localització (províncies, localitats i codis postals de les protectores)
+  const SUGGEST_URL = "http://localhost:8080/api/localitzacions/suggest";
 
   // Ajusta la paginación según tu diseño
   const ANIMALS_PER_PAGE = 3;
-  let currentAnimals = []; // Almacenará los animales cargados por el backend
   let currentPage = 1;
+  // Paginació per cursor: cursors[i] és el valor "after" que retorna la pàgina i+1
+  let cursors = [null];
+  let nextCursor = null;
+  // Total d'animals dels filtres actuals (X-Total-Count de /api/animals/count), o null si no es coneix
+  let totalResultats = null;
+  let currentFilters = { especie: null, localitzacio: null, q: null, edat: "", sort: "" };
 
   //Genera la URL de la imatge
   function getAnimalUrlImatge(animal) {
@@ -86,27 +97,41 @@ document.addEventListener("DOMContentLoaded", () => {
   //const renderAnimals = (animals, page) => {
   function renderAnimals(animals, page) {
     currentPage = page;
-    const start = (page - 1) * ANIMALS_PER_PAGE;
-    const end = start + ANIMALS_PER_PAGE;
-    const paginatedAnimals = animals.slice(start, end);
 
-    if (paginatedAnimals.length === 0) {
+    if (animals.length === 0) {
       animalResultsContainer.innerHTML =
         '<div class="col-12 text-center"><p class="alert alert-warning">No s\'ha trobat cap animal amb aquests filtres.</p></div>';
     } else {
-      animalResultsContainer.innerHTML = paginatedAnimals
+      animalResultsContainer.innerHTML = animals
         .map(createAnimalCard)
         .join("");
     }
 
-    renderPagination(animals.length);
-    resultsTitle.textContent = `Resultats (${animals.length} trobats)`;
+    renderPagination();
+    resultsTitle.textContent = totalResultats === null
+      ? `Resultats (pàgina ${currentPage})`
+      : `Resultats (${totalResultats} trobats, pàgina ${currentPage})`;
   }
 
-  //const renderPagination = (totalAnimals) => {
-  function renderPagination(totalAnimals) {
-    const totalPages = Math.ceil(totalAnimals / ANIMALS_PER_PAGE);
-    if (totalPages <= 1) {
+  /**
+   * Obté el nombre total d'animals que compleixen els filtres amb una petició HEAD a /count,
+   * que només retorna la capçalera X-Total-Count (sense carregar els animals).
+   * @param {URLSearchParams} params - Els mateixos filtres de la cerca (sense ordre ni paginació).
+   * @returns {Promise<number|null>} El total, o null si no s'ha pogut obtenir.
+   */
+  async function fetchTotal(params) {
+    try {
+      const response = await fetch(`${API_URL}/count?${params.toString()}`, { method: "HEAD" });
+      const total = response.headers.get("X-Total-Count");
+      return response.ok && total !== null ? Number(total) : null;
+    } catch (error) {
+      return null;
+    }
+  }
+
+  //const renderPagination = () => {
+  function renderPagination() {
+    if (currentPage === 1 && nextCursor === null) {
       paginationNav.innerHTML = "";
       return;
     }
@@ -119,18 +144,16 @@ document.addEventListener("DOMContentLoaded", () => {
                 }">Anterior</a>
             </li>`;
 
-    // Botones de Páginas
-    for (let i = 1; i <= totalPages; i++) {
-      paginationHtml += `
-                <li class="page-item ${i === currentPage ? "active" : ""}"> 
-                    <a class="page-link" href="#" data-page="${i}">${i}</a>
+    // Pàgina actual (amb cursor no es coneix el total de pàgines)
+    paginationHtml += `
+                <li class="page-item active"> 
+                    <a class="page-link" href="#" data-page="${currentPage}">${currentPage}</a>
                 </li>`;
-    }
 
     // Botón Siguiente
     paginationHtml += `
             <li class="page-item ${
-              currentPage === totalPages ? "disabled" : ""
+              nextCursor === null ? "disabled" : ""
             }">
                 <a class="page-link" href="#" data-page="${
                   currentPage + 1
@@ -148,11 +171,17 @@ document.addEventListener("DOMContentLoaded", () => {
   // ----------------------------------------------------
 
   /**
-   * Carga los animales del backend, con o sin filtros.
-   * @param {URLSearchParams} [params=new URLSearchParams()] - Parámetros de filtro para la URL.
+   * Carga una página de animales del backend, con o sin filtros.
+   * @param {Object} [filters=currentFilters] - Filtres de la cerca:
+   *   especie (espècie a filtrar), localitzacio (codi postal, província o localitat),
+   *   q (text lliure al nom i la descripció, resultats per rellevància) i
+   *   edat (franja en mesos "min-max", per exemple "12-35" o "96-") i
+   *   sort (ordre dels resultats: "recents", "joves" o "nom"; no s'aplica amb text lliure).
+   * @param {number} [page=1] - Pàgina a carregar (el seu cursor ha d'estar a "cursors").
    */
   //async function fetchAnimals(params = new URLSearchParams()) {
-  async function fetchAnimals(especie = null, localitzacio = null) {
+  async function fetchAnimals(filters = currentFilters, page = 1) {
+    const { especie, localitzacio, q, edat, sort } = filters;
     try {
       animalResultsContainer.innerHTML =
         '<div class="col-12 text-center"><p class="text-acento">Carregant animals...</p></div>';
@@ -170,6 +199,30 @@ document.addEventListener("DOMContentLoaded", () => {
         params.append("localitzacio", localitzacio.trim());
       }
 
+      if (q && q.trim() !== "") {
+        params.append("q", q.trim());
+      }
+
+      // L'edat es filtra al servidor (en mesos) sobre la data de naixement
+      if (edat) {
+        const [edatMin, edatMax] = edat.split("-");
+        if (edatMin) params.append("edatMin", edatMin);
+        if (edatMax) params.append("edatMax", edatMax);
+      }
+
+      // El total només canvia amb els filtres: es demana a la primera pàgina, en paral·lel amb la cerca
+      const total = page === 1 ? fetchTotal(new URLSearchParams(params)) : null;
+
+      // L'ordre s'aplica al servidor; el cursor continua sent el numId de l'últim animal
+      if (sort) {
+        params.append("sort", sort);
+      }
+
+      params.append("limit", ANIMALS_PER_PAGE);
+      if (cursors[page - 1] !== null) {
+        params.append("after", cursors[page - 1]);
+      }
+
       if(params.toString()) {
         url += `?${params.toString()}`;
       }
@@ -181,12 +234,16 @@ document.addEventListener("DOMContentLoaded", () => {
         throw new Error(`HTTP error! Status: ${response.status}`);
       }
 
-      // El backend devuelve un array de objetos Animal
-      const animals = await response.json();
+      // El backend devuelve una página: { items, nextCursor, limit }
+      const pagina = await response.json();
 
-      // Almacena los resultados y renderiza la primera página
-      currentAnimals = animals;
-      renderAnimals(currentAnimals, 1);
+      // Guarda el cursor de la página siguiente y renderiza la página actual
+      nextCursor = pagina.nextCursor;
+      cursors[page] = nextCursor;
+      if (total !== null) {
+        totalResultats = await total;
+      }
+      renderAnimals(pagina.items, page);
     } catch (error) {
       console.error(
         "Error al connectar amb el backend o carregar els animals:",
@@ -206,10 +263,48 @@ document.addEventListener("DOMContentLoaded", () => {
   // 3.1 Submissió del Formulari de Filtre
   searchForm.addEventListener("submit", (event) => {
     event.preventDefault();
-    fetchAnimals(selectEspecie.value, localitzacioInput.value);
+    currentFilters = {
+      especie: selectEspecie.value,
+      localitzacio: localitzacioInput.value,
+      q: textInput.value,
+      edat: edatSelect.value,
+      sort: ordreSelect.value,
+    };
+    cursors = [null];
+    fetchAnimals(currentFilters, 1);
+  });
+
+  // 3.2 Autocompletat de la localització: suggeriments mentre s'escriu, després d'una pausa breu.
+  // Els noms de protectora no es poden fer servir com a localització, i s'ometen.
+  let suggerimentsTimeout = null;
+  localitzacioInput.addEventListener("input", () => {
+    clearTimeout(suggerimentsTimeout);
+    const text = localitzacioInput.value;
+    if (!suggerimentsLocalitzacio) return;
+    if (!text.trim()) {
+      suggerimentsLocalitzacio.innerHTML = "";
+      return;
+    }
+    suggerimentsTimeout = setTimeout(async () => {
+      try {
+        const response = await fetch(`${SUGGEST_URL}?prefix=${encodeURIComponent(text)}`);
+        if (!response.ok) return;
+        const suggeriments = await response.json();
+        suggerimentsLocalitzacio.innerHTML = "";
+        suggeriments
+          .filter((s) => s.tipus !== "PROTECTORA")
+          .forEach((s) => {
+            const option = document.createElement("option");
+            option.value = s.text;
+            suggerimentsLocalitzacio.appendChild(option);
+          });
+      } catch (error) {
+        console.error("Error carregant els suggeriments:", error);
+      }
+    }, 150);
   });
 
-  // 3.2 Clics de Paginació
+  // 3.3 Clics de Paginació
   paginationNav.addEventListener("click", (event) => {
     //const target = event.target.matches('.page-link');
     const clickedLink = event.target.closest(".page-link");
@@ -217,10 +312,11 @@ document.addEventListener("DOMContentLoaded", () => {
       event.preventDefault();
       const newPage = parseInt(clickedLink.dataset.page);
 
-      // Comprueba si la página es válida
-      const totalPages = Math.ceil(currentAnimals.length / ANIMALS_PER_PAGE);
-      if (newPage >= 1 && newPage <= totalPages) {
-        renderAnimals(currentAnimals, newPage);
+      // Comprueba si la página es válida (només es pot anar a pàgines amb cursor conegut)
+      const esSeguent = newPage === currentPage + 1 && nextCursor !== null;
+      const esAnterior = newPage >= 1 && newPage < currentPage;
+      if (esSeguent || esAnterior) {
+        fetchAnimals(currentFilters, newPage);
       }
     }
   });
@@ -1,14 +1,20 @@
 // Variable global per Leaflet
 let map;
 let marker;
+let clustersLayer; // Capa amb un marcador per cada grup de protectores (/api/protectores/map)
 
 // NOVES VARIABLES PER GEOLOCALITZACIÓ
 const MAX_DISTANCE_KM = 50; // Límit de distància per filtrar (50km)
+const MAX_NEARBY_RESULTS = 50; // Nombre màxim de protectores properes que es demanen
 let userLocation = null;
 // FI NOVES VARIABLES
 
 // URL base del backend (a través del proxy d'Apache)
 const API_URL = '/api/protectores'; // ← sense http://localhost:8080 gràcies al ProxyPass
+// Autocompletat de províncies, localitats, codis postals i noms de protectora
+const SUGGEST_URL = '/api/localitzacions/suggest';
+// Paràmetre de cerca de /api/protectores per a cada tipus de suggeriment
+const PARAMETRE_PER_TIPUS = { PROVINCIA: 'provincia', LOCALITAT: 'localitat', CODI_POSTAL: 'codiPostal' };
 
 document.addEventListener('DOMContentLoaded', () => {
     // ===============================================
@@ -39,6 +45,7 @@ document.addEventListener('DOMContentLoaded', () => {
     const searchFormText = document.getElementById('search-form-text');
     const proximitySearchBtn = document.getElementById('proximity-search-btn');
     const textSearchInput = document.getElementById('text-search-input');
+    const suggerimentsList = document.getElementById('suggeriments-protectores');
 
     // Amaga el select de protectores quan l'usuari clica al camp de cerca
     if (textSearchInput) {
@@ -89,6 +96,11 @@ document.addEventListener('DOMContentLoaded', () => {
         // Inicialitza el marcador, però sense posició visible inicialment
         marker = L.marker(DEFAULT_CENTER, { opacity: 0 }).addTo(map);
 
+        // Grups de protectores de la zona visible, que es tornen a demanar cada vegada que es mou el mapa
+        clustersLayer = L.layerGroup().addTo(map);
+        map.on('moveend', loadClusters);
+        loadClusters();
+
         // Amb el canvi, això ara OCULTARÀ el contenidor al principi.
         populateProtectoraSelect([]); 
     }
@@ -110,6 +122,64 @@ document.addEventListener('DOMContentLoaded', () => {
         marker.setOpacity(1); // Fer visible
     }
     
+    /**
+     * Demana els grups de protectores de la zona visible i en dibuixa un cercle per grup,
+     * més gran com més protectores té.
+     */
+    async function loadClusters() {
+        if (!map || !clustersLayer) return;
+
+        const params = new URLSearchParams({
+            bbox: map.getBounds().toBBoxString(),
+            zoom: map.getZoom()
+        });
+        try {
+            const response = await fetch(`${API_URL}/map?${params.toString()}`);
+            if (!response.ok) {
+                throw new Error(`Error al carregar el mapa: ${response.statusText}`);
+            }
+            const clusters = await response.json();
+
+            clustersLayer.clearLayers();
+            clusters.forEach(cluster => {
+                const text = cluster.protectores === 1
+                    ? `${cluster.animalsDisponibles} animals disponibles`
+                    : `${cluster.protectores} protectores · ${cluster.animalsDisponibles} animals disponibles`;
+                L.circleMarker([cluster.latitud, cluster.longitud], {
+                    radius: 8 + 4 * Math.log2(cluster.protectores),
+                    weight: 2,
+                    fillOpacity: 0.6
+                })
+                    .bindTooltip(text)
+                    .on('click', () => openCluster(cluster))
+                    .addTo(clustersLayer);
+            });
+        } catch (error) {
+            console.error("Error:", error);
+        }
+    }
+
+    /**
+     * En clicar un grup: si és una sola protectora se'n mostren les dades, si no, s'hi acosta el mapa.
+     */
+    async function openCluster(cluster) {
+        if (cluster.protectores > 1) {
+            map.setView([cluster.latitud, cluster.longitud], Math.min(map.getZoom() + 2, MAP_ZOOM_DETAIL));
+            return;
+        }
+        try {
+            const response = await fetch(`${API_URL}?longitud=${cluster.longitud}&latitud=${cluster.latitud}`);
+            if (response.ok) {
+                const protectora = await response.json();
+                populateProtectoraSelect([protectora]);
+                protectoraSelect.value = protectora.codiProt;
+                renderProtectoraDetails(protectora);
+            }
+        } catch (error) {
+            console.error("Error:", error);
+        }
+    }
+
     // ===============================================
     // 4. FUNCIONES DE RENDERIZADO
     // ===============================================
@@ -218,6 +288,26 @@ document.addEventListener('DOMContentLoaded', () => {
     // 5. LÓGICA DE FILTRADO (TEXTUAL I PROXIMITAT)
     // ===============================================
 
+    /**
+     * Demana a l'autocompletat els suggeriments que comencen pel text.
+     * @param {string} text - Text escrit per l'usuari.
+     * @returns {Promise<Array>} Suggeriments ({text, tipus, codiProt, protectores}), ja ordenats.
+     */
+    async function fetchSuggeriments(text) {
+        const response = await fetch(`${SUGGEST_URL}?prefix=${encodeURIComponent(text)}`);
+        if (!response.ok) {
+            throw new Error(`Error al carregar els suggeriments: ${response.statusText}`);
+        }
+        return response.json();
+    }
+
+    /**
+     * Normalitza un text per comparar-lo sense majúscules ni accents.
+     */
+    function normalitzar(text) {
+        return text.trim().toLowerCase().normalize("NFD").replace(/[\u0300-\u036f]/g, "");
+    }
+
     async function applyTextFilter(searchText) {
         if (!searchText.trim()) {
             // Si el camp de cerca està buit, tornem a carregar totes (o buidem).
@@ -227,25 +317,27 @@ document.addEventListener('DOMContentLoaded', () => {
         }
 
         try {
-            let foundResults = [];
-            
-            // 1. Cerca per nom
-            const reponseNom = await fetch(`${API_URL}?nomProt=${encodeURIComponent(searchText)}`);
-            if (reponseNom.ok) {
-                const dataNom = await reponseNom.json();
-                //Convertim a array si es un sol objecte
-                const protectoras = Array.isArray(dataNom) ? dataNom : [dataNom];
-                foundResults = [...foundResults, ...protectoras];
-            }
+            // 1. L'autocompletat diu què és el text (província, localitat, codi postal o protectora):
+            //    si algun suggeriment coincideix exactament el fem servir, si no, el primer
+            const suggeriments = await fetchSuggeriments(searchText);
+            const suggeriment = suggeriments.find(s => normalitzar(s.text) === normalitzar(searchText)) || suggeriments[0];
 
-            // 2. Cerca per provincia
-            const reponseProvincia = await fetch(`${API_URL}?provincia=${encodeURIComponent(searchText)}`);
-            if (reponseProvincia.ok) {
-                const dataProvincia = await reponseProvincia.json();
-                foundResults = [...foundResults, ...dataProvincia];
+            // 2. Una sola cerca pel paràmetre del tipus
+            let foundResults = [];
+            if (suggeriment && suggeriment.tipus === 'PROTECTORA') {
+                const response = await fetch(`${API_URL}/${suggeriment.codiProt}`);
+                if (response.ok) {
+                    foundResults = [await response.json()];
+                }
+            } else if (suggeriment) {
+                const parametre = PARAMETRE_PER_TIPUS[suggeriment.tipus];
+                const response = await fetch(`${API_URL}?${parametre}=${encodeURIComponent(suggeriment.text)}`);
+                if (response.ok) {
+                    foundResults = await response.json();
+                }
             }
             
-            // 3. Si no s'ha trobat cap resultat en cap de les cerques (FET REQUERIMENT)
+            // 3. Si no s'ha trobat cap resultat (FET REQUERIMENT)
             if (foundResults.length > 0) {
                 populateProtectoraSelect(foundResults);
             } else {
@@ -260,27 +352,6 @@ document.addEventListener('DOMContentLoaded', () => {
         }
     }
 
-    /**
-     * Converteix graus a radians.
-     */
-    function deg2rad(deg) {
-        return deg * (Math.PI / 180);
-    }
-    
-    /**
-     * Calcula la distància en quilòmetres entre dos punts GPS (Fórmula de Haversine).
-     */
-    function getDistanceFromLatLonInKm(lat1, lon1, lat2, lon2) {
-        const R = 6371; // Radi de la Terra en km
-        const dLat = deg2rad(lat2 - lat1);
-        const dLon = deg2rad(lon2 - lon1); 
-        const a = 
-            Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-            Math.cos(deg2rad(lat1)) * Math.cos(deg2rad(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2); 
-        const c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)); 
-        return R * c; 
-    }
-
     async function filterByProximity() {
         if (!navigator.geolocation) {
             alert("El teu navegador no suporta la Geolocalització per a la cerca per proximitat.");
@@ -305,25 +376,19 @@ document.addEventListener('DOMContentLoaded', () => {
                 lng: position.coords.longitude
             };
             
-            // Carrega totes les protectores i filtra per distància
-            const response = await fetch(API_URL);
+            // El servidor retorna només les protectores dins del radi, ja ordenades per distància
+            const params = new URLSearchParams({
+                lat: userLocation.lat,
+                lon: userLocation.lng,
+                radiusKm: MAX_DISTANCE_KM,
+                limit: MAX_NEARBY_RESULTS
+            });
+            const response = await fetch(`${API_URL}/near?${params.toString()}`);
             if (!response.ok) {
                 throw new Error(`Error al carregar les protectores`);
             };
-            const allProtectoras = await response.json();
-
-            const nearbyProtectoras = allProtectoras
-                .map(p => ({
-                    ...p,
-                    distance: getDistanceFromLatLonInKm(
-                        userLocation.lat, 
-                        userLocation.lng, 
-                        p.latitud,
-                         p.longitud
-                    )
-                }))
-                .filter(p => p.distance <= MAX_DISTANCE_KM)
-                .sort((a, b) => a.distance - b.distance); // Ordenar per distància (més a prop primer)
+            const nearbyProtectoras = (await response.json())
+                .map(r => ({ ...r.protectora, distance: r.distanciaKm }));
 
             if (nearbyProtectoras.length === 0) {
                 alert(`No s'han trobat protectores a menys de ${MAX_DISTANCE_KM}km de la teva ubicació.`);
@@ -363,6 +428,32 @@ document.addEventListener('DOMContentLoaded', () => {
         });
     }
 
+    // A.2 Autocompletat mentre s'escriu (esperem una pausa breu per no fer una petició per tecla)
+    if (textSearchInput && suggerimentsList) {
+        let suggerimentsTimeout = null;
+        textSearchInput.addEventListener('input', () => {
+            clearTimeout(suggerimentsTimeout);
+            const text = textSearchInput.value;
+            if (!text.trim()) {
+                suggerimentsList.innerHTML = '';
+                return;
+            }
+            suggerimentsTimeout = setTimeout(async () => {
+                try {
+                    const suggeriments = await fetchSuggeriments(text);
+                    suggerimentsList.innerHTML = '';
+                    suggeriments.forEach(s => {
+                        const option = document.createElement('option');
+                        option.value = s.text;
+                        suggerimentsList.appendChild(option);
+                    });
+                } catch (error) {
+                    console.error("Error:", error);
+                }
+            }, 150);
+        });
+    }
+
     // B. Control del select (Selector de Protectora)
     if (protectoraSelect) {
         protectoraSelect.addEventListener('change', (e) => {
@@ -3,7 +3,9 @@ document.addEventListener('DOMContentLoaded', ()=>{
     const carouselInner = document.getElementById('carouselInnerAdoptats');
     if(!carouselInner) return;
 
-    const url = 'http://localhost:8080/api/animals/adoptats';
+    const url = 'http://localhost:8080/api/animals/adoptats/recents?n=10';
+    // Mostra aleatòria d'animals disponibles (cada petició en retorna una de diferent)
+    const urlDestacats = 'http://localhost:8080/api/animals/featured?n=6';
 
     function getImatgeAnimal(animal){
         if(!animal.fotoPerfil){
@@ -127,5 +129,25 @@ document.addEventListener('DOMContentLoaded', ()=>{
         }
     }
 
+    async function fetchAnimalsDestacats(){
+        const contenidor = document.getElementById('animalsDestacats');
+        if(!contenidor) return;
+        try{
+            const response = await fetch(urlDestacats);
+            if(!response.ok){
+                throw new Error(`Error al obtenir els animals destacats: ${response.status}`);
+            }
+            const animals = await response.json();
+            contenidor.innerHTML = animals.map(animal => crearTargetaAnimal(animal)).join('');
+            contenidor.querySelectorAll('.protected-detail-link').forEach(link => {
+                link.addEventListener('click', handleProtectedDetailClick);
+            });
+        }catch(error){
+            console.error('Error en la petició:', error);
+            contenidor.innerHTML = '';
+        }
+    }
+
+    fetchAnimalsDestacats();
     fetchAnimalsAdoptats();
 });
\ No newline at end of file